@@ -3,6 +3,11 @@ package com.BiteBooking.backend;
 
 import com.BiteBooking.backend.model.*;
 import com.BiteBooking.backend.repository.*;
+import com.BiteBooking.backend.service.BookingRollupService;
+import com.BiteBooking.backend.service.PromotionIndex;
+import com.BiteBooking.backend.service.RatingAggregationService;
+import com.BiteBooking.backend.service.RatingLeaderboard;
+import com.BiteBooking.backend.service.RestaurantSearchIndex;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.ApplicationContext;
@@ -683,6 +688,13 @@ public class Main {
 			promoGaggan25Bites, promoGagganStreetFood
 		));
 
+		// Los datos de prueba se insertan directamente en los repositorios: reconstruir agregados e índices en memoria
+		context.getBean(BookingRollupService.class).rebuildAll();
+		context.getBean(RatingLeaderboard.class).rebuild();
+		context.getBean(RatingAggregationService.class).reconcile();
+		context.getBean(PromotionIndex.class).reload();
+		context.getBean(RestaurantSearchIndex.class).rebuild();
+
 		System.out.println(">>> ✅ Datos de prueba insertados correctamente (incluye 16 promociones)");
 	}
 }
\ No newline at end of file
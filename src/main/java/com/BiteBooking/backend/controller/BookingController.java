@@ -1,10 +1,13 @@
 package com.BiteBooking.backend.controller;
 
+import com.BiteBooking.backend.dto.BookingPageDTO;
 import com.BiteBooking.backend.model.Booking;
 import com.BiteBooking.backend.model.BookingStatus;
 import com.BiteBooking.backend.repository.BookingRepository;
 import com.BiteBooking.backend.security.SecurityUtils;
+import com.BiteBooking.backend.service.BookingRollupService;
 import com.BiteBooking.backend.service.BookingService;
+import com.BiteBooking.backend.service.CapacityLedger;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -14,6 +17,7 @@ import org.springframework.web.bind.annotation.*;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 @CrossOrigin("*")
 @RestController
@@ -24,6 +28,8 @@ public class BookingController {
 
     private final BookingRepository bookingRepository;
     private final BookingService bookingService;
+    private final CapacityLedger capacityLedger;
+    private final BookingRollupService bookingRollupService;
 
     // ==================== CRUD BÁSICO ====================
 
@@ -51,6 +57,37 @@ public class BookingController {
         return this.bookingRepository.findAllByUserId(id);
     }
 
+    // ==================== LISTADOS PAGINADOS ====================
+
+    /**
+     * Listado paginado por cursor (keyset) con la vista reducida de reservas
+     */
+    @GetMapping("/page")
+    public ResponseEntity<?> findPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + BookingService.DEFAULT_PAGE_SIZE) int size
+    ) {
+        return page(() -> bookingService.getBookingPage(cursor, size));
+    }
+
+    @GetMapping("/filter-by-restaurant/{id}/page")
+    public ResponseEntity<?> findPageByRestaurantId(
+            @PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + BookingService.DEFAULT_PAGE_SIZE) int size
+    ) {
+        return page(() -> bookingService.getRestaurantBookingPage(id, cursor, size));
+    }
+
+    @GetMapping("/filter-by-user/{id}/page")
+    public ResponseEntity<?> findPageByUserId(
+            @PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + BookingService.DEFAULT_PAGE_SIZE) int size
+    ) {
+        return page(() -> bookingService.getUserBookingPage(id, cursor, size));
+    }
+
     @PostMapping
     public ResponseEntity<?> create(@RequestBody Booking booking) {
         try {
@@ -67,18 +104,28 @@ public class BookingController {
 
     @PutMapping("/{id}")
     public ResponseEntity<Booking> update(@PathVariable Long id, @RequestBody Booking booking) {
-        if (!bookingRepository.existsById(id)) {
+        Optional<Booking> existing = bookingRepository.findById(id);
+        if (existing.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
+        // Aportación al agregado antes de guardar (save puede copiar los cambios sobre la entidad cargada)
+        BookingRollupService.Contribution previous = BookingRollupService.Contribution.of(existing.get());
+        invalidateCapacity(existing.get());
         booking.setId(id);
         Booking savedBooking = bookingRepository.save(booking);
+        invalidateCapacity(savedBooking);
+        bookingRollupService.recordEdited(previous, savedBooking);
         return ResponseEntity.ok(savedBooking);
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteById(@PathVariable Long id) {
         try {
+            Optional<Booking> existing = bookingRepository.findById(id);
+            BookingRollupService.Contribution previous = existing.map(BookingRollupService.Contribution::of).orElse(null);
             bookingRepository.deleteById(id);
+            existing.ifPresent(this::invalidateCapacity);
+            bookingRollupService.recordRemoved(previous);
             return ResponseEntity.noContent().build();
         } catch (Exception e) {
             log.error("Error al eliminar reserva {}: {}", id, e.getMessage());
@@ -259,8 +306,22 @@ public class BookingController {
         List<Booking> bookings = bookingRepository.findByRestaurantIdAndStatus(restaurantId, status);
         return ResponseEntity.ok(bookings);
     }
-}
-
-
 
+    private ResponseEntity<?> page(Supplier<BookingPageDTO> loader) {
+        try {
+            return ResponseEntity.ok(loader.get());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
 
+    /**
+     * Las ediciones directas no pasan por BookingService: se recarga el día desde la BD
+     */
+    private void invalidateCapacity(Booking booking) {
+        if (booking.getRestaurant() != null && booking.getRestaurant().getId() != null
+                && booking.getBookingDate() != null) {
+            capacityLedger.invalidate(booking.getRestaurant().getId(), booking.getBookingDate());
+        }
+    }
+}
@@ -72,19 +72,29 @@ public class DishController {
             Dish dish,
             @RequestParam(value = "photo", required = false) MultipartFile file
     ){
-        if(!this.dishRepository.existsById(id))
+        Optional<Dish> existing = this.dishRepository.findById(id);
+        if(existing.isEmpty())
             return ResponseEntity.notFound().build();
 
-        if(file != null && !file.isEmpty()) {
+        String previousImage = existing.get().getImgDish();
+        boolean stored = file != null && !file.isEmpty();
+        if (stored) {
             String fileName = fileService.store(file);
             dish.setImgDish(fileName);
         }
-        return ResponseEntity.ok(this.dishRepository.save(dish));
+        Dish saved = this.dishRepository.save(dish);
+        // store() siempre suma una referencia (también si el contenido es el mismo)
+        if (stored) {
+            fileService.releaseStored(previousImage);
+        }
+        return ResponseEntity.ok(saved);
     }
     @DeleteMapping("dishes/{id}")
     public ResponseEntity<Void> deleteById(@PathVariable Long id) {
         try {
+            Optional<Dish> dish = dishRepository.findById(id);
             dishRepository.deleteById(id);
+            dish.ifPresent(d -> fileService.releaseStored(d.getImgDish()));
             return ResponseEntity.noContent().build();
         } catch (Exception e) {
             log.error("Ocurrio un Error al eliminar su reserva nro: {}:{}", id, e.getMessage());
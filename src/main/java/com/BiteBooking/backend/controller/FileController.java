@@ -1,32 +1,231 @@
 package com.BiteBooking.backend.controller;
 
 import com.BiteBooking.backend.service.FileService;
+import com.BiteBooking.backend.service.ImageVariant;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.Resource;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Sirve los archivos subidos con ETag fuerte, Cache-Control, respuestas 304
+ * y peticiones Range de un solo tramo.
+ *
+ * El contenido se envía sin copiarlo a memoria: con sendfile de Tomcat cuando
+ * el conector lo soporta y, si no, con FileChannel.transferTo.
+ *
+ * Con ?size=thumb|medium|full se sirve la variante generada por ImageVariantService;
+ * mientras no existe se devuelve el original con una caché corta.
+ */
 @CrossOrigin("*")
 @RestController
 @AllArgsConstructor
 @Slf4j
 public class FileController {
 
+    // Los nombres con UUID o con el hash del contenido nunca cambian de contenido: caché de un año
+    private static final String IMMUTABLE_CACHE = "public, max-age=31536000, immutable";
+    private static final String DEFAULT_CACHE = "public, max-age=86400";
+    private static final String PENDING_VARIANT_CACHE = "public, max-age=60";
+    private static final Pattern UUID_NAME = Pattern.compile(
+            ".*[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}.*");
+    private static final Pattern SINGLE_RANGE = Pattern.compile("^bytes=(\\d*)-(\\d*)$");
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     private final FileService fileService;
+
     @GetMapping("files/{name:.+}")
-    public ResponseEntity<Resource> getFile(@PathVariable String name){
+    public void getFile(@PathVariable String name,
+                        @RequestParam(required = false) String size,
+                        HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        Path file = null;
+        String servedName = name;
+        boolean pendingVariant = false;
+        if (size != null && !size.isBlank()) {
+            ImageVariant variant = ImageVariant.fromParam(size);
+            Optional<Path> variantPath = fileService.findVariantPath(name, variant);
+            if (variantPath.isPresent()) {
+                file = variantPath.get();
+                servedName = variant.fileName(name);
+            } else {
+                pendingVariant = true;
+            }
+        }
+        if (file == null) {
+            file = fileService.loadPath(name);
+        }
+        if (pendingVariant) {
+            // Subidas anteriores a las variantes: se generan en la primera petición
+            fileService.requestMissingVariants(name);
+        }
+
+        long length = Files.size(file);
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+        boolean immutable = !pendingVariant
+                && (UUID_NAME.matcher(name).matches() || fileService.isContentAddressed(name));
+        String etag = immutable
+                ? '"' + DigestUtils.md5DigestAsHex(servedName.getBytes(StandardCharsets.UTF_8)) + '"'
+                : '"' + Long.toHexString(lastModified) + '-' + Long.toHexString(length) + '"';
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL,
+                pendingVariant ? PENDING_VARIANT_CACHE : immutable ? IMMUTABLE_CACHE : DEFAULT_CACHE);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (notModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
 
-        Resource file = fileService.load(name);
-        return  ResponseEntity.ok(file);
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && ifRangeMatches(request, etag, lastModified)) {
+            long[] bounds = parseRange(range, length);
+            if (bounds == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (bounds.length == 2) {
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
 
+        long count = end - start + 1;
+        response.setContentType(MediaTypeFactory.getMediaType(servedName)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+        response.setContentLengthLong(count);
 
+        if ("HEAD".equals(request.getMethod()) || count == 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat envía el archivo con sendfile al terminar la petición
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    private static boolean notModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            return etagMatches(ifNoneMatch, etag);
+        }
+        long ifModifiedSince = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        // Las fechas HTTP tienen precisión de segundos
+        return ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
     }
 
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        long date = dateHeader(request, HttpHeaders.IF_RANGE);
+        return date >= 0 && lastModified / 1000 == date / 1000;
+    }
 
+    private static boolean etagMatches(String header, String etag) {
+        for (String candidate : header.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(etag) || value.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
+    private static long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
 
+    /**
+     * @return {inicio, fin} del tramo, un array vacío si hay que enviar el archivo
+     * completo (cabecera no soportada, p. ej. varios tramos) o null si no es satisfacible
+     */
+    private static long[] parseRange(String header, long length) {
+        var matcher = SINGLE_RANGE.matcher(header.trim());
+        if (!matcher.matches()) {
+            return new long[0];
+        }
+        String first = matcher.group(1);
+        String last = matcher.group(2);
+        try {
+            if (first.isEmpty()) {
+                if (last.isEmpty()) {
+                    return new long[0];
+                }
+                long suffix = Long.parseLong(last);
+                if (suffix == 0 || length == 0) {
+                    return null;
+                }
+                return new long[]{Math.max(0, length - suffix), length - 1};
+            }
+            long start = Long.parseLong(first);
+            if (start >= length) {
+                return null;
+            }
+            long end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            if (end < start) {
+                return new long[0];
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
 }
@@ -3,9 +3,11 @@ import com.BiteBooking.backend.model.Menu;
 import com.BiteBooking.backend.model.Role;
 import com.BiteBooking.backend.model.User;
 import com.BiteBooking.backend.repository.MenuRepository;
+import com.BiteBooking.backend.repository.RatingImageRepository;
 import com.BiteBooking.backend.repository.RatingRepository;
 import com.BiteBooking.backend.security.SecurityUtils;
 import com.BiteBooking.backend.service.FileService;
+import com.BiteBooking.backend.service.RatingAggregationService;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -26,6 +28,8 @@ public class MenuController {
     private final MenuRepository menuRepository;
     private FileService fileService;
     private RatingRepository ratingRepository;
+    private RatingImageRepository ratingImageRepository;
+    private RatingAggregationService ratingAggregationService;
 
     @GetMapping("/menus/can-edit/{menuId}")
     public ResponseEntity<Boolean> canEditMenu(@PathVariable Long menuId) {
@@ -84,22 +88,51 @@ public class MenuController {
             Menu menu,
             @RequestParam(value = "photo", required = false) MultipartFile file
     ){
-        if(!this.menuRepository.existsById(id))
+        Optional<Menu> existing = this.menuRepository.findById(id);
+        if(existing.isEmpty())
             return ResponseEntity.notFound().build();
 
-        if(file != null && !file.isEmpty()) {
+        String previousImage = existing.get().getImgMenu();
+        boolean stored = file != null && !file.isEmpty();
+        if (stored) {
             String fileName = fileService.store(file);
             menu.setImgMenu(fileName);
         }
-        return ResponseEntity.ok(this.menuRepository.save(menu));
+
+        // Conservar los agregados de valoraciones del menú existente
+        Long previousRestaurantId = existing.get().getRestaurant() != null
+                ? existing.get().getRestaurant().getId() : null;
+        menu.setAverageRating(existing.get().getAverageRating());
+        menu.setRatingSum(existing.get().getRatingSum());
+        menu.setRatingCount(existing.get().getRatingCount());
+
+        Menu saved = this.menuRepository.save(menu);
+        ratingAggregationService.onMenuMoved(saved, previousRestaurantId);
+        // store() siempre suma una referencia (también si el contenido es el mismo)
+        if (stored) {
+            fileService.releaseStored(previousImage);
+        }
+        return ResponseEntity.ok(saved);
     }
 
     @DeleteMapping("menus/{id}")
     public void deleteById(@PathVariable Long id){
 
-
+        Optional<Menu> menu = this.menuRepository.findById(id);
+        menu.ifPresent(ratingAggregationService::onMenuDeleted);
+        List<String> ratingImages = this.ratingImageRepository.findImagePathsByMenuId(id);
         this.ratingRepository.deleteByMenuId(id);
         this.menuRepository.deleteById(id);
+
+        // Una referencia por imagen de valoración borrada, más la imagen del menú
+        for (String imagePath : ratingImages) {
+            try {
+                fileService.release(imagePath);
+            } catch (Exception e) {
+                log.error("Error al eliminar imagen: {}", imagePath, e);
+            }
+        }
+        menu.ifPresent(m -> fileService.releaseStored(m.getImgMenu()));
     }
 
 }
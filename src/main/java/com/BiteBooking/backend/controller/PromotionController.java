@@ -4,12 +4,16 @@ import com.BiteBooking.backend.model.Promotion;
 import com.BiteBooking.backend.service.PromotionService;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @CrossOrigin("*")
 @RestController
@@ -74,15 +78,24 @@ public class PromotionController {
     }
 
     /**
-     * Validar código promocional
-     * GET /promotions/validate?code=ABC123&restaurantId=1
+     * Validar código promocional, opcionalmente para la fecha, hora y personas de una reserva
+     * GET /promotions/validate?code=ABC123&restaurantId=1&date=2024-05-10&time=20:00&numPeople=2
      */
     @GetMapping("/validate")
     public ResponseEntity<Promotion> validatePromoCode(
             @RequestParam String code,
-            @RequestParam Long restaurantId
+            @RequestParam Long restaurantId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime time,
+            @RequestParam(defaultValue = "0") int numPeople
     ) {
-        return promotionService.validatePromoCode(code, restaurantId)
+        Optional<Promotion> promotion = (date == null && time == null && numPeople <= 0)
+                ? promotionService.validatePromoCode(code, restaurantId)
+                : promotionService.validatePromoCode(code, restaurantId,
+                        date != null ? date : LocalDate.now(),
+                        time != null ? time : LocalTime.now(),
+                        numPeople);
+        return promotion
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -190,12 +203,23 @@ public class PromotionController {
     }
 
     /**
-     * Aplicar promoción (usar un uso)
-     * POST /promotions/{id}/apply
+     * Aplicar promoción (usar un uso), opcionalmente para la fecha, hora y personas
+     * de una reserva (misma regla que /validate)
+     * POST /promotions/{id}/apply?date=2024-05-10&time=20:00&numPeople=2
      */
     @PostMapping("/{id}/apply")
-    public ResponseEntity<Map<String, Object>> applyPromotion(@PathVariable Long id) {
-        boolean success = promotionService.applyPromotion(id);
+    public ResponseEntity<Map<String, Object>> applyPromotion(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime time,
+            @RequestParam(defaultValue = "0") int numPeople
+    ) {
+        boolean success = (date == null && time == null && numPeople <= 0)
+                ? promotionService.applyPromotion(id)
+                : promotionService.applyPromotion(id,
+                        date != null ? date : LocalDate.now(),
+                        time != null ? time : LocalTime.now(),
+                        numPeople);
         
         if (success) {
             return ResponseEntity.ok(Map.of(
@@ -5,7 +5,6 @@ import com.BiteBooking.backend.exception.UnauthorizedException;
 import com.BiteBooking.backend.model.Menu;
 import com.BiteBooking.backend.model.Rating;
 import com.BiteBooking.backend.model.RatingImage;
-import com.BiteBooking.backend.model.RatingLike;
 import com.BiteBooking.backend.model.Role;
 import com.BiteBooking.backend.model.User;
 import com.BiteBooking.backend.repository.MenuRepository;
@@ -14,11 +13,13 @@ import com.BiteBooking.backend.repository.RatingLikeRepository;
 import com.BiteBooking.backend.repository.RatingRepository;
 import com.BiteBooking.backend.security.SecurityUtils;
 import com.BiteBooking.backend.service.FileService;
+import com.BiteBooking.backend.service.RatingAggregationService;
+import com.BiteBooking.backend.service.RatingLeaderboard;
+import com.BiteBooking.backend.service.RatingLikeService;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -38,6 +39,9 @@ public class RatingController {
     private final RatingLikeRepository ratingLikeRepository;
     private final MenuRepository menuRepository;
     private final FileService fileService;
+    private final RatingLikeService ratingLikeService;
+    private final RatingLeaderboard ratingLeaderboard;
+    private final RatingAggregationService ratingAggregationService;
 
     // ==================== CRUD BÁSICO ====================
 
@@ -110,15 +114,28 @@ public class RatingController {
             savedRating = this.ratingRepository.save(savedRating);
         }
 
+        ratingAggregationService.onRatingCreated(savedRating);
+        ratingLeaderboard.onRatingCreated(savedRating.getId());
         return savedRating;
     }
 
     @PutMapping("ratings/{id}")
     public Rating update(@PathVariable Long id, @RequestBody Rating rating) {
-        if (this.ratingRepository.existsById(id))
-            return this.ratingRepository.save(rating);
-
-        throw new NoSuchElementException();
+        Rating existing = this.ratingRepository.findById(id).orElseThrow();
+        Menu previousMenu = existing.getMenu();
+        Integer previousScore = existing.getScore();
+
+        rating.setId(id);
+        // Las imágenes se gestionan con sus propios endpoints: se conservan las
+        // existentes para no borrarlas por orphanRemoval sin liberar su referencia
+        rating.getImages().clear();
+        for (RatingImage image : existing.getImages()) {
+            image.setRating(rating);
+            rating.getImages().add(image);
+        }
+        Rating saved = this.ratingRepository.save(rating);
+        ratingAggregationService.onRatingUpdated(previousMenu, previousScore, saved);
+        return saved;
     }
 
     @DeleteMapping("ratings/{id}")
@@ -130,18 +147,22 @@ public class RatingController {
         if(user.getRole().equals(Role.ADMIN) ||
                 (rating.getUser() != null && rating.getUser().getId().equals(user.getId()))
         ) {
-            // Eliminar archivos físicos de las imágenes antes de borrar el rating
-            if (rating.getImages() != null && !rating.getImages().isEmpty()) {
-                for (RatingImage image : rating.getImages()) {
-                    try {
-                        fileService.delete(image.getImagePath());
-                    } catch (Exception e) {
-                        log.error("Error al eliminar imagen: {}", image.getImagePath(), e);
-                    }
+            List<String> imagePaths = rating.getImages() == null ? List.of()
+                    : rating.getImages().stream().map(RatingImage::getImagePath).toList();
+
+            this.ratingRepository.deleteById(id);
+            ratingAggregationService.onRatingDeleted(rating);
+            ratingLikeService.ratingDeleted(id);
+
+            // Liberar las imágenes una vez borrado el rating: el archivo solo se
+            // elimina si ningún otro rating usa el mismo contenido
+            for (String imagePath : imagePaths) {
+                try {
+                    fileService.release(imagePath);
+                } catch (Exception e) {
+                    log.error("Error al eliminar imagen: {}", imagePath, e);
                 }
             }
-            
-            this.ratingRepository.deleteById(id);
         }
         else
             throw new UnauthorizedException("No puede borrar el rating");
@@ -165,15 +186,15 @@ public class RatingController {
             RatingImage image = this.ratingImageRepository.findById(imageId)
                     .orElseThrow(() -> new NoSuchElementException("Imagen no encontrada"));
             
-            // Eliminar archivo físico
+            // Eliminar de la base de datos
+            this.ratingImageRepository.deleteById(imageId);
+
+            // Liberar el archivo (se borra si no lo referencia otra imagen)
             try {
-                fileService.delete(image.getImagePath());
+                fileService.release(image.getImagePath());
             } catch (Exception e) {
                 log.error("Error al eliminar archivo de imagen: {}", image.getImagePath(), e);
             }
-            
-            // Eliminar de la base de datos
-            this.ratingImageRepository.deleteById(imageId);
         } else {
             throw new UnauthorizedException("No puede eliminar esta imagen");
         }
@@ -186,38 +207,36 @@ public class RatingController {
      * POST /ratings/{ratingId}/toggle-like
      */
     @PostMapping("ratings/{ratingId}/toggle-like")
-    @Transactional
     public ResponseEntity<Map<String, Object>> toggleLike(@PathVariable Long ratingId) {
-        Rating rating = ratingRepository.findById(ratingId)
-                .orElseThrow(() -> new NoSuchElementException("Rating no encontrado"));
-        
         User user = SecurityUtils.getCurrentUser()
                 .orElseThrow(() -> new UnauthorizedException("Debe iniciar sesión para dar like"));
 
-        Map<String, Object> response = new HashMap<>();
+        RatingLikeService.LikeState state = ratingLikeService.toggle(ratingId, user.getId());
+        return ResponseEntity.ok(likeResponse(state, state.liked() ? "Like agregado" : "Like eliminado"));
+    }
 
-        // Verificar si ya dio like
-        if (ratingLikeRepository.existsByRatingIdAndUserId(ratingId, user.getId())) {
-            // Quitar like
-            ratingLikeRepository.deleteByRatingIdAndUserId(ratingId, user.getId());
-            rating.decrementLikes();
-            ratingRepository.save(rating);
-            
-            response.put("message", "Like eliminado");
-            response.put("liked", false);
-        } else {
-            // Dar like
-            RatingLike like = new RatingLike(rating, user);
-            ratingLikeRepository.save(like);
-            rating.incrementLikes();
-            ratingRepository.save(rating);
-            
-            response.put("message", "Like agregado");
-            response.put("liked", true);
-        }
+    /**
+     * Dar like (idempotente)
+     * PUT /ratings/{ratingId}/like
+     */
+    @PutMapping("ratings/{ratingId}/like")
+    public ResponseEntity<Map<String, Object>> like(@PathVariable Long ratingId) {
+        User user = SecurityUtils.getCurrentUser()
+                .orElseThrow(() -> new UnauthorizedException("Debe iniciar sesión para dar like"));
 
-        response.put("likesCount", rating.getLikesCount());
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(likeResponse(ratingLikeService.like(ratingId, user.getId()), "Like agregado"));
+    }
+
+    /**
+     * Quitar like (idempotente)
+     * DELETE /ratings/{ratingId}/like
+     */
+    @DeleteMapping("ratings/{ratingId}/like")
+    public ResponseEntity<Map<String, Object>> unlike(@PathVariable Long ratingId) {
+        User user = SecurityUtils.getCurrentUser()
+                .orElseThrow(() -> new UnauthorizedException("Debe iniciar sesión para quitar el like"));
+
+        return ResponseEntity.ok(likeResponse(ratingLikeService.unlike(ratingId, user.getId()), "Like eliminado"));
     }
 
     /**
@@ -226,11 +245,8 @@ public class RatingController {
      */
     @GetMapping("ratings/{ratingId}/liked")
     public ResponseEntity<Map<String, Object>> hasCurrentUserLiked(@PathVariable Long ratingId) {
-        Rating rating = ratingRepository.findById(ratingId)
-                .orElseThrow(() -> new NoSuchElementException("Rating no encontrado"));
-
         Map<String, Object> response = new HashMap<>();
-        response.put("likesCount", rating.getLikesCount());
+        response.put("likesCount", ratingLikeService.getLikesCount(ratingId));
 
         // Verificar si el usuario está autenticado
         User user = SecurityUtils.getCurrentUser().orElse(null);
@@ -244,15 +260,44 @@ public class RatingController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Estado de like y contador de varios ratings en una sola petición
+     * GET /ratings/liked?ids=1,2,3
+     */
+    @GetMapping("ratings/liked")
+    public ResponseEntity<?> getLikeStatus(@RequestParam List<Long> ids) {
+        Long userId = SecurityUtils.getCurrentUser().map(User::getId).orElse(null);
+        try {
+            return ResponseEntity.ok(ratingLikeService.getLikeStatus(ids, userId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private Map<String, Object> likeResponse(RatingLikeService.LikeState state, String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", message);
+        response.put("liked", state.liked());
+        response.put("likesCount", state.likesCount());
+        return response;
+    }
+
     // ==================== ORDENACIÓN POR LIKES ====================
 
     /**
-     * Obtener todos los ratings ordenados por likes (mayor a menor)
-     * GET /ratings/top
+     * Obtener ratings ordenados por likes (mayor a menor), paginados
+     * GET /ratings/top?page=0&size=20
      */
     @GetMapping("ratings/top")
-    public ResponseEntity<List<Rating>> getTopRatings() {
-        return ResponseEntity.ok(ratingRepository.findAllByOrderByLikesCountDesc());
+    public ResponseEntity<?> getTopRatings(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "" + RatingLeaderboard.DEFAULT_PAGE_SIZE) int size
+    ) {
+        try {
+            return ResponseEntity.ok(ratingLeaderboard.getTop(page, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
     /**
@@ -274,16 +319,20 @@ public class RatingController {
     }
 
     /**
-     * Obtener ratings con más de X likes (populares)
-     * GET /ratings/popular?minLikes=5
+     * Obtener ratings con más de X likes (populares), paginados
+     * GET /ratings/popular?minLikes=5&page=0&size=20
      */
     @GetMapping("ratings/popular")
-    public ResponseEntity<List<Rating>> getPopularRatings(
-            @RequestParam(defaultValue = "5") Integer minLikes
+    public ResponseEntity<?> getPopularRatings(
+            @RequestParam(defaultValue = "5") Integer minLikes,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "" + RatingLeaderboard.DEFAULT_PAGE_SIZE) int size
     ) {
-        return ResponseEntity.ok(
-            ratingRepository.findByLikesCountGreaterThanOrderByLikesCountDesc(minLikes)
-        );
+        try {
+            return ResponseEntity.ok(ratingLeaderboard.getPopular(minLikes, page, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
     /**
@@ -1,5 +1,6 @@
 package com.BiteBooking.backend.controller;
 
+import com.BiteBooking.backend.dto.RestaurantSearchPageDTO;
 import com.BiteBooking.backend.exception.UnauthorizedException;
 import com.BiteBooking.backend.model.Restaurant;
 import com.BiteBooking.backend.model.RestaurantType;
@@ -8,11 +9,14 @@ import com.BiteBooking.backend.model.User;
 import com.BiteBooking.backend.repository.RestaurantRepository;
 import com.BiteBooking.backend.security.SecurityUtils;
 import com.BiteBooking.backend.service.FileService;
+import com.BiteBooking.backend.service.RestaurantSearchIndex;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Limit;
 
+import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -22,7 +26,10 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.time.LocalTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @CrossOrigin("*")
 @Slf4j
@@ -31,6 +38,7 @@ import java.util.Objects;
 public class RestaurantController {
     private final RestaurantRepository repository;
     private FileService fileService;
+    private final RestaurantSearchIndex searchIndex;
 
     @GetMapping("/my-restaurants")
     public ResponseEntity<List<Restaurant>> getMyRestaurants() {
@@ -52,6 +60,9 @@ public class RestaurantController {
 
     @GetMapping("restaurant-list/{restaurantType}")
     public List<Restaurant> findByRestaurantType(@PathVariable RestaurantType restaurantType) {
+        if (searchIndex.isLoaded()) {
+            return loadInOrder(searchIndex.search(null, restaurantType, null, null, 0, Integer.MAX_VALUE).ids());
+        }
         return repository.findByRestaurantType(restaurantType);
     }
 
@@ -67,6 +78,56 @@ public class RestaurantController {
         SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         return ResponseEntity.ok(restaurants);
     }
+
+    /**
+     * Búsqueda de restaurantes por texto (nombre, descripción, ciudad, tipo;
+     * sin distinguir acentos ni mayúsculas), con filtros y paginación.
+     * GET /restaurant/search?q=sushi&type=JAPANESE_FOOD&city=Madrid&minRating=4&page=0&size=20
+     */
+    @GetMapping("/restaurant/search")
+    public ResponseEntity<?> search(@RequestParam(required = false) String q,
+                                    @RequestParam(required = false) RestaurantType type,
+                                    @RequestParam(required = false) String city,
+                                    @RequestParam(required = false) Double minRating,
+                                    @RequestParam(defaultValue = "0") int page,
+                                    @RequestParam(defaultValue = "20") int size) {
+        try {
+            if (page < 0) {
+                throw new IllegalArgumentException("La página no puede ser negativa");
+            }
+            if (size < 1 || size > 100) {
+                throw new IllegalArgumentException("El tamaño de página debe estar entre 1 y 100");
+            }
+            if (!searchIndex.isLoaded()) {
+                // El índice se carga al arrancar: no se reconstruye en el hilo de la petición
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .body(Map.of("error", "La búsqueda aún no está disponible, inténtelo en unos segundos"));
+            }
+            RestaurantSearchIndex.SearchResult result = searchIndex.search(q, type, city, minRating, page, size);
+            return ResponseEntity.ok(RestaurantSearchPageDTO.builder()
+                    .items(loadInOrder(result.ids()))
+                    .total(result.total())
+                    .page(page)
+                    .size(size)
+                    .build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Restaurantes mejor valorados (usa la media mantenida por RatingAggregationService)
+     * GET /restaurant/top-rated?minRating=4&limit=20
+     */
+    @GetMapping("/restaurant/top-rated")
+    public ResponseEntity<List<Restaurant>> findTopRated(
+            @RequestParam(defaultValue = "0") Double minRating,
+            @RequestParam(defaultValue = "20") int limit) {
+        int size = Math.max(1, Math.min(limit, 100));
+        return ResponseEntity.ok(repository.findByAverageRatingGreaterThanEqualOrderByAverageRatingDescRatingCountDesc(
+                minRating, Limit.of(size)));
+    }
+
     @GetMapping("/restaurant/{id}")
     public ResponseEntity<Restaurant> findById(@PathVariable  Long id) {
         return repository.findById(id)
@@ -103,7 +164,9 @@ public class RestaurantController {
         restaurant.setOpeningTime(openingTime);
         restaurant.setClosingTime(closingTime);
 
-        return this.repository.save(restaurant);
+        Restaurant saved = this.repository.save(restaurant);
+        searchIndex.upsert(saved);
+        return saved;
     }
 
 
@@ -136,24 +199,35 @@ public class RestaurantController {
         LocalTime closingTime = LocalTime.parse(Objects.requireNonNull(formData.getFirst("closingTime")));
         restaurant.setClosingTime(closingTime);
 
-        if (file != null && !file.isEmpty()) {
+        String previousImage = restaurant.getImageUrl();
+        boolean stored = file != null && !file.isEmpty();
+        if (stored) {
             String fileName = fileService.store(file);
             restaurant.setImageUrl(fileName);
         }
 
         // Guarda y devuelve el restaurante actualizado
-        return repository.save(restaurant);
+        Restaurant saved = repository.save(restaurant);
+        searchIndex.upsert(saved);
+        // store() siempre suma una referencia (también si el contenido es el mismo)
+        if (stored) {
+            fileService.releaseStored(previousImage);
+        }
+        return saved;
     }
 
 
 
     @DeleteMapping("/restaurant/{id}")
     public ResponseEntity<Void> delete(@PathVariable Long id) {
-        if (repository.existsById(id)) {
-            repository.deleteById(id);
-            return ResponseEntity.ok().build();
-        }
-        return ResponseEntity.notFound().build();
+        return repository.findById(id)
+                .map(restaurant -> {
+                    repository.deleteById(id);
+                    searchIndex.remove(id);
+                    fileService.releaseStored(restaurant.getImageUrl());
+                    return ResponseEntity.ok().<Void>build();
+                })
+                .orElse(ResponseEntity.notFound().build());
     }
     @PostMapping("/restaurant/filter")
     public ResponseEntity<List<Restaurant>> findAllFiltering(@RequestBody Restaurant restaurant) {
@@ -164,4 +238,13 @@ public class RestaurantController {
         }
         return ResponseEntity.ok(restaurants);
     }
-}
\ No newline at end of file
+
+    /**
+     * Carga los restaurantes de una consulta y los devuelve en el orden del índice
+     */
+    private List<Restaurant> loadInOrder(List<Long> ids) {
+        Map<Long, Restaurant> byId = repository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Restaurant::getId, Function.identity()));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+}
@@ -8,6 +8,7 @@ import com.BiteBooking.backend.repository.RestaurantRepository;
 import com.BiteBooking.backend.repository.RestaurantScheduleRepository;
 import com.BiteBooking.backend.security.SecurityUtils;
 import com.BiteBooking.backend.service.AvailabilityService;
+import com.BiteBooking.backend.service.ScheduleSnapshotCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -16,6 +17,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 @RestController
@@ -29,6 +31,7 @@ public class ScheduleController {
     private final ClosedDateRepository closedDateRepository;
     private final RestaurantRepository restaurantRepository;
     private final AvailabilityService availabilityService;
+    private final ScheduleSnapshotCache scheduleSnapshotCache;
 
     // ==================== DISPONIBILIDAD (PÚBLICO) ====================
 
@@ -56,11 +59,25 @@ public class ScheduleController {
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam(defaultValue = "2") int numPeople) {
         
-        List<AvailabilityResponse> responses = new java.util.ArrayList<>();
-        for (int i = 0; i < 7; i++) {
-            responses.add(availabilityService.getAvailability(restaurantId, startDate.plusDays(i), numPeople));
+        return ResponseEntity.ok(availabilityService.getWeekAvailability(restaurantId, startDate, numPeople));
+    }
+
+    /**
+     * Obtener disponibilidad para un rango de días (calendario)
+     * GET /api/restaurants/{id}/availability/range?startDate=2024-01-15&days=30&numPeople=4
+     */
+    @GetMapping("/restaurants/{restaurantId}/availability/range")
+    public ResponseEntity<?> getRangeAvailability(
+            @PathVariable Long restaurantId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(defaultValue = "30") int days,
+            @RequestParam(defaultValue = "2") int numPeople) {
+        
+        try {
+            return ResponseEntity.ok(availabilityService.getAvailabilityRange(restaurantId, startDate, days, numPeople));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
-        return ResponseEntity.ok(responses);
     }
 
     // ==================== GESTIÓN DE HORARIOS (PROPIETARIOS) ====================
@@ -93,6 +110,7 @@ public class ScheduleController {
         
         schedule.setRestaurant(restaurant);
         RestaurantSchedule saved = scheduleRepository.save(schedule);
+        scheduleSnapshotCache.invalidate(restaurantId);
         
         log.info("Horario actualizado para restaurante {} - {}", restaurantId, schedule.getDayOfWeek());
         return ResponseEntity.ok(saved);
@@ -116,6 +134,7 @@ public class ScheduleController {
             schedule.setRestaurant(restaurant);
             return scheduleRepository.save(schedule);
         }).toList();
+        scheduleSnapshotCache.invalidate(restaurantId);
         
         log.info("Horarios bulk actualizados para restaurante {}", restaurantId);
         return ResponseEntity.ok(saved);
@@ -132,6 +151,7 @@ public class ScheduleController {
         
         validateRestaurantOwnership(restaurantId);
         scheduleRepository.deleteById(scheduleId);
+        scheduleSnapshotCache.invalidate(restaurantId);
         return ResponseEntity.noContent().build();
     }
 
@@ -162,6 +182,7 @@ public class ScheduleController {
         
         closedDate.setRestaurant(restaurant);
         ClosedDate saved = closedDateRepository.save(closedDate);
+        scheduleSnapshotCache.invalidate(restaurantId);
         
         log.info("Fecha cerrada agregada para restaurante {}: {}", restaurantId, closedDate.getClosedDate());
         return ResponseEntity.ok(saved);
@@ -183,6 +204,7 @@ public class ScheduleController {
             cd.setRestaurant(restaurant);
             return closedDateRepository.save(cd);
         }).toList();
+        scheduleSnapshotCache.invalidate(restaurantId);
         
         log.info("Fechas cerradas bulk agregadas para restaurante {}: {} fechas", 
                 restaurantId, closedDates.size());
@@ -200,6 +222,7 @@ public class ScheduleController {
         
         validateRestaurantOwnership(restaurantId);
         closedDateRepository.deleteById(closedDateId);
+        scheduleSnapshotCache.invalidate(restaurantId);
         return ResponseEntity.noContent().build();
     }
 
@@ -7,6 +7,7 @@ import com.BiteBooking.backend.model.Role;
 import com.BiteBooking.backend.model.User;
 import com.BiteBooking.backend.repository.UserRepository;
 import com.BiteBooking.backend.security.SecurityUtils;
+import com.BiteBooking.backend.security.UserPrincipalCache;
 import com.BiteBooking.backend.service.FileService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -35,6 +36,7 @@ public class UserController {
     private final FileService fileService;
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserPrincipalCache userPrincipalCache;
     
     @Value("${jwt.secret}")
     private String jwtSecret;
@@ -113,6 +115,7 @@ public class UserController {
             if (currentUser.getRole() == Role.ADMIN || Objects.equals(currentUser.getId(), user.getId())){
 
                 this.userRepository.save(user);
+                userPrincipalCache.invalidate(user.getId());
             } else {
                 throw new RuntimeException("No tiene permisos necesarios, no se puede actualizar.");
             }
@@ -125,9 +128,13 @@ public class UserController {
 
         User user = SecurityUtils.getCurrentUser().orElseThrow();
         if (file != null){
+            String previousAvatar = user.getImgUser();
             String fileName = fileService.store(file);
             user.setImgUser(fileName);
             this.userRepository.save(user);
+            userPrincipalCache.invalidate(user.getId());
+            // store() siempre suma una referencia (también si el contenido es el mismo)
+            fileService.releaseStored(previousAvatar);
 
         }
         return user;
@@ -143,12 +150,15 @@ public class UserController {
 
         User usuariosFromDB = userOtp.get();
         // faltan mas atributos
-        return ResponseEntity.ok(userRepository.save(usuariosFromDB));
+        User saved = userRepository.save(usuariosFromDB);
+        userPrincipalCache.invalidate(id);
+        return ResponseEntity.ok(saved);
     }
     @DeleteMapping("user/id")
     private ResponseEntity<Void> deleteById(@PathVariable Long id){
 
         userRepository.deleteById(id);
+        userPrincipalCache.invalidate(id);
         return ResponseEntity.noContent().build(); //204
     }
 }
@@ -0,0 +1,23 @@
+package com.BiteBooking.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página de reservas con cursor para pedir la siguiente
+ * (nextCursor es null cuando no hay más resultados)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingPageDTO {
+
+    private List<BookingSummaryDTO> items;
+    private String nextCursor;
+    private boolean hasMore;
+}
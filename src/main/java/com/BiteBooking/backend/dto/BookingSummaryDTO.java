@@ -0,0 +1,34 @@
+package com.BiteBooking.backend.dto;
+
+import com.BiteBooking.backend.model.BookingStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Vista reducida de una reserva para listados paginados
+ * (sin hidratar User ni Restaurant)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingSummaryDTO {
+
+    private Long id;
+    private LocalDate bookingDate;
+    private LocalTime bookingTime;
+    private Integer numPeople;
+    private BookingStatus status;
+    private Boolean interior;
+    private Integer tableNumber;
+    private Long restaurantId;
+    private String restaurantName;
+    private Long userId;
+    private String userFirstName;
+    private String userLastName;
+    private String contactName;
+    private String contactPhone;
+}
@@ -0,0 +1,25 @@
+package com.BiteBooking.backend.dto;
+
+import com.BiteBooking.backend.model.Restaurant;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página de resultados de la búsqueda de restaurantes
+ * (total es el número de coincidencias de todas las páginas)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RestaurantSearchPageDTO {
+
+    private List<Restaurant> items;
+    private int total;
+    private int page;
+    private int size;
+}
@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
 import java.util.Map;
 
 @Data
@@ -19,4 +20,5 @@ public class DashboardAnalyticsDTO {
     private TrendsDTO trends;
     private InsightsDTO insights;
     private Map<String, ComparisonDTO> comparisons;
+    private List<String> incompleteSections;  // secciones sin datos (timeout en modo paralelo)
 }
@@ -18,7 +18,11 @@ import java.time.LocalTime;
 @NoArgsConstructor
 @Getter
 @Setter
-@Table(name = "booking")
+@Table(name = "booking", indexes = {
+    @Index(name = "idx_booking_restaurant_keyset", columnList = "restaurant_id, booking_date, booking_time, id"),
+    @Index(name = "idx_booking_user_keyset", columnList = "user_id, booking_date, booking_time, id"),
+    @Index(name = "idx_booking_reminder", columnList = "booking_date, reminder_sent, id")
+})
 public class Booking {
 
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -65,6 +69,7 @@ public class Booking {
     @Column(length = 500)
     private String cancellationReason;
 
+    // Notificación registrada en notification_outbox; el estado de la entrega está en el outbox
     @Column(nullable = false)
     private Boolean reminderSent = false;
 
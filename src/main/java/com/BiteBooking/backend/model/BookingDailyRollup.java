@@ -0,0 +1,57 @@
+package com.BiteBooking.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * Agregado diario de reservas para analytics.
+ * Una fila por restaurante, día de creación, fecha de reserva, hora y estado.
+ * Se mantiene de forma incremental desde BookingService y se reconstruye
+ * desde la tabla booking con BookingRollupService.
+ */
+@Entity
+@Table(name = "booking_daily_rollup", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"restaurant_id", "created_date", "booking_date", "booking_hour", "status"})
+}, indexes = {
+    @Index(name = "idx_rollup_restaurant_created", columnList = "restaurant_id, created_date")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingDailyRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "restaurant_id", nullable = false)
+    private Long restaurantId;
+
+    // Día en que se creó la reserva (filtro de los períodos de analytics)
+    @Column(name = "created_date", nullable = false)
+    private LocalDate createdDate;
+
+    @Column(name = "booking_date", nullable = false)
+    private LocalDate bookingDate;
+
+    // Hora de la reserva (0-23)
+    @Column(name = "booking_hour", nullable = false)
+    private Integer bookingHour;
+
+    @Column(nullable = false, length = 20)
+    private String status;
+
+    // Número de reservas
+    @Column(nullable = false)
+    private Long bookings = 0L;
+
+    // Suma de personas
+    @Column(nullable = false)
+    private Long guests = 0L;
+}
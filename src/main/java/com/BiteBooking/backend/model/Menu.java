@@ -1,5 +1,6 @@
 package com.BiteBooking.backend.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -30,6 +31,20 @@ public class Menu {
     @JoinColumn(name = "restaurant_id")
     private Restaurant restaurant;
 
+    // Agregados de valoraciones (mantenidos por RatingAggregationService)
+    private Double averageRating;
+
+    @JsonIgnore
+    private Long ratingSum;
+
+    private Integer ratingCount;
+
+    // Constructor para datos seed (sin agregados de valoraciones)
+    public Menu(Long id, String title, String description, String imgMenu, Boolean active,
+                RestaurantType restaurantType, Boolean alergys, Restaurant restaurant) {
+        this(id, title, description, imgMenu, active, restaurantType, alergys, restaurant, null, null, null);
+    }
+
 
 
 }
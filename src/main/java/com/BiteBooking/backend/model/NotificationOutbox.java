@@ -0,0 +1,59 @@
+package com.BiteBooking.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Notificación pendiente de una reserva (patrón transactional outbox).
+ * Se inserta en la misma transacción que el cambio de estado de la reserva y
+ * NotificationOutboxService la envía después, de modo que la notificación no
+ * se pierde aunque la aplicación se reinicie o el SMTP esté caído.
+ */
+@Entity
+@Table(name = "notification_outbox", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_outbox_booking_type", columnNames = {"booking_id", "type"})
+}, indexes = {
+    @Index(name = "idx_outbox_status_next", columnList = "status, next_attempt_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "booking_id", nullable = false)
+    private Long bookingId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private NotificationType type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private OutboxStatus status;
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    // Próximo intento (PENDING) o fin del plazo de la reclamación (SENDING)
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+}
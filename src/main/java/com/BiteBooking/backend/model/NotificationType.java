@@ -0,0 +1,14 @@
+package com.BiteBooking.backend.model;
+
+/**
+ * Tipos de notificación por email de una reserva.
+ * Cada reserva tiene como mucho una notificación de cada tipo.
+ */
+public enum NotificationType {
+    BOOKING_CREATED,         // Reserva recibida (al cliente)
+    RESTAURANT_NEW_BOOKING,  // Nueva reserva (al dueño del restaurante)
+    BOOKING_CONFIRMED,       // Reserva confirmada (al cliente)
+    BOOKING_REJECTED,        // Reserva rechazada (al cliente)
+    BOOKING_CANCELLED,       // Reserva cancelada (al cliente)
+    BOOKING_REMINDER         // Recordatorio del día anterior (al cliente)
+}
@@ -0,0 +1,12 @@
+package com.BiteBooking.backend.model;
+
+/**
+ * Estados de una notificación del outbox
+ */
+public enum OutboxStatus {
+    PENDING,   // Pendiente de envío (o de reintento en nextAttemptAt)
+    SENDING,   // Reclamada por el poller; si no se confirma antes de nextAttemptAt se vuelve a reclamar
+    SENT,      // Aceptada por el servidor SMTP
+    SKIPPED,   // Ya no aplica (reserva eliminada, recordatorio de una reserva que ya no está confirmada)
+    FAILED     // Agotados los reintentos
+}
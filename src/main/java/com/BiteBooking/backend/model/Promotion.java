@@ -1,5 +1,6 @@
 package com.BiteBooking.backend.model;
 
+import com.BiteBooking.backend.service.PromotionRule;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
@@ -94,24 +95,14 @@ public class Promotion {
     }
 
     /**
-     * Verifica si la promoción está actualmente válida
+     * Verifica si la promoción está válida en este momento (se expone en JSON como
+     * currentlyValid). Usa la misma regla que la validación y el canje: fechas,
+     * días, franja horaria (en todos los tipos, no solo HAPPY_HOUR) y usos restantes.
      */
     public boolean isCurrentlyValid() {
-        if (!active) return false;
-        
-        LocalDate today = LocalDate.now();
-        if (today.isBefore(startDate) || today.isAfter(endDate)) return false;
-        
-        // Verificar si hay límite de usos
-        if (maxUses != null && currentUses >= maxUses) return false;
-        
-        // Verificar horario si es Happy Hour
-        if (type == PromotionType.HAPPY_HOUR && startTime != null && endTime != null) {
-            LocalTime now = LocalTime.now();
-            if (now.isBefore(startTime) || now.isAfter(endTime)) return false;
-        }
-        
-        return true;
+        LocalDateTime now = LocalDateTime.now();
+        if (maxUses != null && currentUses != null && currentUses >= maxUses) return false;
+        return PromotionRule.compile(this).isValidFor(now.toLocalDate(), now.toLocalTime(), 0);
     }
 
     /**
@@ -17,7 +17,9 @@ import java.util.List;
 @Getter
 @Setter
 @NoArgsConstructor
-@Table(name = "Ratings")
+@Table(name = "Ratings", indexes = {
+    @Index(name = "idx_ratings_likes", columnList = "likes_count, id")
+})
 public class Rating {
 
     @Id
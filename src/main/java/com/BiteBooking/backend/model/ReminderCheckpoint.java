@@ -0,0 +1,54 @@
+package com.BiteBooking.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Progreso del job de recordatorios para una fecha y un shard.
+ * Se actualiza en la misma transacción que cada bloque, de modo que si la
+ * aplicación cae a mitad de la ejecución se continúa desde lastBookingId.
+ */
+@Entity
+@Table(name = "reminder_checkpoint", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"reminder_date", "shard_index", "shard_count"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReminderCheckpoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "reminder_date", nullable = false)
+    private LocalDate reminderDate;
+
+    // Este shard procesa las reservas con restaurant_id % shardCount = shardIndex
+    @Column(name = "shard_index", nullable = false)
+    private Integer shardIndex;
+
+    @Column(name = "shard_count", nullable = false)
+    private Integer shardCount;
+
+    // Última reserva procesada (keyset)
+    @Column(name = "last_booking_id", nullable = false)
+    private Long lastBookingId = 0L;
+
+    // Recordatorios registrados en la ejecución actual
+    @Column(nullable = false)
+    private Integer processed = 0;
+
+    @Column(nullable = false)
+    private Boolean completed = false;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
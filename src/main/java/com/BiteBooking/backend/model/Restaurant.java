@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 import java.time.LocalTime;
@@ -13,7 +14,9 @@ import java.time.LocalTime;
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "Restaurants")
+@Table(name = "Restaurants", indexes = {
+    @Index(name = "idx_restaurants_rating", columnList = "average_rating, rating_count")
+})
 @Entity
 public class Restaurant {
     @Id
@@ -46,9 +49,24 @@ public class Restaurant {
 
     private Double averageRating;
 
+    // Suma y número de valoraciones de sus menús (mantenidos por RatingAggregationService)
+    @JsonIgnore
+    private Long ratingSum;
+
+    private Integer ratingCount;
+
     private Integer discount;
 
     @ManyToOne()
     @JoinColumn(name = "user_id")
     private User owner;
+
+    // Constructor para datos seed (sin agregados de valoraciones)
+    public Restaurant(Long id, String name, String phone, RestaurantType restaurantType, String description,
+                      LocalTime openingTime, LocalTime closingTime, Boolean status, String imageUrl, String city,
+                      String address, String number, String postalCode, Double averageRating, Integer discount,
+                      User owner) {
+        this(id, name, phone, restaurantType, description, openingTime, closingTime, status, imageUrl, city,
+                address, number, postalCode, averageRating, null, null, discount, owner);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.BiteBooking.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Archivo subido en el almacén direccionado por contenido.
+ * El nombre en disco es el SHA-256 del contenido, de modo que subir dos veces
+ * la misma imagen reutiliza el mismo archivo. refCount cuenta las entidades que
+ * lo referencian; el archivo solo se borra cuando llega a 0.
+ */
+@Entity
+@Table(name = "stored_blobs", indexes = {
+    @Index(name = "idx_stored_blobs_file_name", columnList = "file_name", unique = true)
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoredBlob {
+
+    // SHA-256 en hexadecimal
+    @Id
+    @Column(length = 64)
+    private String sha256;
+
+    @Column(name = "file_name", nullable = false, length = 80)
+    private String fileName;
+
+    @Column(name = "content_type", nullable = false, length = 50)
+    private String contentType;
+
+    @Column(nullable = false)
+    private Long size;
+
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
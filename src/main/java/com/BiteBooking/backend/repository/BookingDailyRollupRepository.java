@@ -0,0 +1,143 @@
+package com.BiteBooking.backend.repository;
+
+import com.BiteBooking.backend.model.BookingDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface BookingDailyRollupRepository extends JpaRepository<BookingDailyRollup, Long> {
+
+    // =====================================================
+    // MANTENIMIENTO INCREMENTAL
+    // =====================================================
+
+    // Sumar (o restar) reservas y personas a una fila del agregado
+    @Modifying
+    @Query(value = "INSERT INTO booking_daily_rollup " +
+           "(restaurant_id, created_date, booking_date, booking_hour, status, bookings, guests) " +
+           "VALUES (:restaurantId, :createdDate, :bookingDate, :bookingHour, :status, :bookings, :guests) " +
+           "ON DUPLICATE KEY UPDATE bookings = bookings + VALUES(bookings), guests = guests + VALUES(guests)",
+           nativeQuery = true)
+    void upsert(
+        @Param("restaurantId") Long restaurantId,
+        @Param("createdDate") LocalDate createdDate,
+        @Param("bookingDate") LocalDate bookingDate,
+        @Param("bookingHour") int bookingHour,
+        @Param("status") String status,
+        @Param("bookings") long bookings,
+        @Param("guests") long guests
+    );
+
+    // =====================================================
+    // RECONSTRUCCIÓN DESDE booking
+    // =====================================================
+
+    @Modifying
+    @Query(value = "DELETE FROM booking_daily_rollup " +
+           "WHERE created_date BETWEEN :startDate AND :endDate", nativeQuery = true)
+    int deleteByCreatedDateBetween(
+        @Param("startDate") LocalDate startDate,
+        @Param("endDate") LocalDate endDate
+    );
+
+    @Modifying
+    @Query(value = "INSERT INTO booking_daily_rollup " +
+           "(restaurant_id, created_date, booking_date, booking_hour, status, bookings, guests) " +
+           "SELECT restaurant_id, DATE(created_at), booking_date, HOUR(booking_time), status, " +
+           "COUNT(*), COALESCE(SUM(num_people), 0) FROM booking " +
+           "WHERE restaurant_id IS NOT NULL AND booking_date IS NOT NULL AND booking_time IS NOT NULL " +
+           "AND created_at >= :startDate AND created_at < DATE_ADD(:endDate, INTERVAL 1 DAY) " +
+           "GROUP BY restaurant_id, DATE(created_at), booking_date, HOUR(booking_time), status",
+           nativeQuery = true)
+    int insertFromBookings(
+        @Param("startDate") LocalDate startDate,
+        @Param("endDate") LocalDate endDate
+    );
+
+    @Modifying
+    @Query(value = "DELETE FROM booking_daily_rollup", nativeQuery = true)
+    int deleteAllRows();
+
+    @Modifying
+    @Query(value = "INSERT INTO booking_daily_rollup " +
+           "(restaurant_id, created_date, booking_date, booking_hour, status, bookings, guests) " +
+           "SELECT restaurant_id, DATE(created_at), booking_date, HOUR(booking_time), status, " +
+           "COUNT(*), COALESCE(SUM(num_people), 0) FROM booking " +
+           "WHERE restaurant_id IS NOT NULL AND booking_date IS NOT NULL AND booking_time IS NOT NULL " +
+           "AND created_at IS NOT NULL " +
+           "GROUP BY restaurant_id, DATE(created_at), booking_date, HOUR(booking_time), status",
+           nativeQuery = true)
+    int insertAllFromBookings();
+
+    // Totales por estado [status, reservas, personas] para comprobar el agregado al arrancar
+    @Query(value = "SELECT status, COALESCE(SUM(bookings), 0), COALESCE(SUM(guests), 0) " +
+           "FROM booking_daily_rollup GROUP BY status", nativeQuery = true)
+    List<Object[]> sumRollupByStatus();
+
+    @Query(value = "SELECT status, COUNT(*), COALESCE(SUM(num_people), 0) FROM booking " +
+           "WHERE restaurant_id IS NOT NULL AND booking_date IS NOT NULL AND booking_time IS NOT NULL " +
+           "AND created_at IS NOT NULL AND status IS NOT NULL GROUP BY status", nativeQuery = true)
+    List<Object[]> sumBookingsByStatus();
+
+    // =====================================================
+    // ANALYTICS QUERIES - mismas columnas que BookingRepository
+    // =====================================================
+
+    // Agregado de un período: total, personas, estados y lead time
+    @Query(value = "SELECT COALESCE(SUM(bookings), 0) AS total, COALESCE(SUM(guests), 0) AS guests, " +
+           "COALESCE(SUM(CASE WHEN status = 'PENDING' THEN bookings ELSE 0 END), 0) AS pending, " +
+           "COALESCE(SUM(CASE WHEN status = 'CONFIRMED' THEN bookings ELSE 0 END), 0) AS confirmed, " +
+           "COALESCE(SUM(CASE WHEN status = 'COMPLETED' THEN bookings ELSE 0 END), 0) AS completed, " +
+           "COALESCE(SUM(CASE WHEN status = 'CANCELLED' THEN bookings ELSE 0 END), 0) AS cancelled, " +
+           "COALESCE(SUM(CASE WHEN status = 'NO_SHOW' THEN bookings ELSE 0 END), 0) AS no_show, " +
+           "COALESCE(SUM(CASE WHEN status = 'REJECTED' THEN bookings ELSE 0 END), 0) AS rejected, " +
+           "SUM(bookings * DATEDIFF(booking_date, created_date)) / NULLIF(SUM(bookings), 0) AS lead_time " +
+           "FROM booking_daily_rollup WHERE restaurant_id = :restaurantId " +
+           "AND created_date BETWEEN :startDate AND :endDate", nativeQuery = true)
+    List<Object[]> getPeriodAggregates(
+        @Param("restaurantId") Long restaurantId,
+        @Param("startDate") LocalDate startDate,
+        @Param("endDate") LocalDate endDate
+    );
+
+    // Métricas diarias (para gráficos)
+    @Query(value = "SELECT booking_date AS date, SUM(bookings) AS bookings, SUM(guests) AS guests " +
+           "FROM booking_daily_rollup WHERE restaurant_id = :restaurantId " +
+           "AND created_date BETWEEN :startDate AND :endDate " +
+           "GROUP BY booking_date HAVING SUM(bookings) > 0 ORDER BY date", nativeQuery = true)
+    List<Object[]> getDailyMetrics(
+        @Param("restaurantId") Long restaurantId,
+        @Param("startDate") LocalDate startDate,
+        @Param("endDate") LocalDate endDate
+    );
+
+    // Distribución por hora (para gráficos)
+    @Query(value = "SELECT booking_hour AS hour, SUM(bookings) AS bookings, " +
+           "SUM(guests) / SUM(bookings) AS avg_guests " +
+           "FROM booking_daily_rollup WHERE restaurant_id = :restaurantId " +
+           "AND created_date BETWEEN :startDate AND :endDate " +
+           "GROUP BY booking_hour HAVING SUM(bookings) > 0 ORDER BY hour", nativeQuery = true)
+    List<Object[]> getHourlyDistribution(
+        @Param("restaurantId") Long restaurantId,
+        @Param("startDate") LocalDate startDate,
+        @Param("endDate") LocalDate endDate
+    );
+
+    // Distribución por día de semana (MySQL: 1=Sunday, 2=Monday...)
+    @Query(value = "SELECT DAYOFWEEK(booking_date) AS day_num, SUM(bookings) AS bookings, " +
+           "SUM(guests) / SUM(bookings) AS avg_guests " +
+           "FROM booking_daily_rollup WHERE restaurant_id = :restaurantId " +
+           "AND created_date BETWEEN :startDate AND :endDate " +
+           "GROUP BY DAYOFWEEK(booking_date) HAVING SUM(bookings) > 0 ORDER BY day_num", nativeQuery = true)
+    List<Object[]> getWeekdayDistribution(
+        @Param("restaurantId") Long restaurantId,
+        @Param("startDate") LocalDate startDate,
+        @Param("endDate") LocalDate endDate
+    );
+}
@@ -1,13 +1,18 @@
 package com.BiteBooking.backend.repository;
 
+import com.BiteBooking.backend.dto.BookingSummaryDTO;
 import com.BiteBooking.backend.model.Booking;
 import com.BiteBooking.backend.model.BookingStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface BookingRepository extends JpaRepository<Booking, Long> {
@@ -16,6 +21,58 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     List<Booking> findAllByRestaurant_Id(Long id);
     List<Booking> findAllByUserId(Long id);
 
+    // ==================== LISTADOS PAGINADOS (KEYSET) ====================
+    // Orden estable por (bookingDate, bookingTime, id); la página siguiente
+    // empieza después de la última fila devuelta. Las reservas sin fecha u hora
+    // no tienen posición en ese orden (ni cursor válido) y no se listan.
+
+    String SUMMARY_SELECT = "SELECT new com.BiteBooking.backend.dto.BookingSummaryDTO(" +
+            "b.id, b.bookingDate, b.bookingTime, b.numPeople, b.status, b.interior, b.tableNumber, " +
+            "r.id, r.name, u.id, u.firstName, u.lastName, b.contactName, b.contactPhone) " +
+            "FROM Booking b LEFT JOIN b.restaurant r LEFT JOIN b.user u ";
+
+    String WITH_SLOT = "b.bookingDate IS NOT NULL AND b.bookingTime IS NOT NULL ";
+
+    String AFTER_CURSOR = "(b.bookingDate > :date OR (b.bookingDate = :date AND " +
+            "(b.bookingTime > :time OR (b.bookingTime = :time AND b.id > :id)))) ";
+
+    String KEYSET_ORDER = "ORDER BY b.bookingDate ASC, b.bookingTime ASC, b.id ASC";
+
+    @Query(SUMMARY_SELECT + "WHERE " + WITH_SLOT + KEYSET_ORDER)
+    List<BookingSummaryDTO> findSummaryPage(Limit limit);
+
+    @Query(SUMMARY_SELECT + "WHERE " + WITH_SLOT + "AND " + AFTER_CURSOR + KEYSET_ORDER)
+    List<BookingSummaryDTO> findSummaryPageAfter(
+        @Param("date") LocalDate date,
+        @Param("time") LocalTime time,
+        @Param("id") Long id,
+        Limit limit
+    );
+
+    @Query(SUMMARY_SELECT + "WHERE b.restaurant.id = :restaurantId AND " + WITH_SLOT + KEYSET_ORDER)
+    List<BookingSummaryDTO> findSummaryPageByRestaurant(@Param("restaurantId") Long restaurantId, Limit limit);
+
+    @Query(SUMMARY_SELECT + "WHERE b.restaurant.id = :restaurantId AND " + WITH_SLOT + "AND " + AFTER_CURSOR + KEYSET_ORDER)
+    List<BookingSummaryDTO> findSummaryPageByRestaurantAfter(
+        @Param("restaurantId") Long restaurantId,
+        @Param("date") LocalDate date,
+        @Param("time") LocalTime time,
+        @Param("id") Long id,
+        Limit limit
+    );
+
+    @Query(SUMMARY_SELECT + "WHERE b.user.id = :userId AND " + WITH_SLOT + KEYSET_ORDER)
+    List<BookingSummaryDTO> findSummaryPageByUser(@Param("userId") Long userId, Limit limit);
+
+    @Query(SUMMARY_SELECT + "WHERE b.user.id = :userId AND " + WITH_SLOT + "AND " + AFTER_CURSOR + KEYSET_ORDER)
+    List<BookingSummaryDTO> findSummaryPageByUserAfter(
+        @Param("userId") Long userId,
+        @Param("date") LocalDate date,
+        @Param("time") LocalTime time,
+        @Param("id") Long id,
+        Limit limit
+    );
+
     // Por estado
     List<Booking> findByRestaurantIdAndStatus(Long restaurantId, BookingStatus status);
     List<Booking> findByUserIdAndStatus(Long userId, BookingStatus status);
@@ -103,10 +160,43 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
         @Param("time") java.time.LocalTime time
     );
 
-    // Buscar reservas para recordatorio (24h antes)
-    @Query("SELECT b FROM Booking b WHERE b.bookingDate = :reminderDate " +
-           "AND b.status = 'CONFIRMED' AND b.reminderSent = false")
-    List<Booking> findBookingsForReminder(@Param("reminderDate") LocalDate reminderDate);
+    // Personas reservadas por hora para una fecha (todos los slots en una sola consulta)
+    @Query("SELECT b.bookingTime, COALESCE(SUM(b.numPeople), 0) FROM Booking b " +
+           "WHERE b.restaurant.id = :restaurantId AND b.bookingDate = :date " +
+           "AND b.status IN ('PENDING', 'CONFIRMED') GROUP BY b.bookingTime")
+    List<Object[]> sumBookedPeopleByTime(
+        @Param("restaurantId") Long restaurantId,
+        @Param("date") LocalDate date
+    );
+
+    // Personas reservadas por fecha y hora en un rango (calendario de disponibilidad)
+    @Query("SELECT b.bookingDate, b.bookingTime, COALESCE(SUM(b.numPeople), 0) FROM Booking b " +
+           "WHERE b.restaurant.id = :restaurantId AND b.bookingDate BETWEEN :startDate AND :endDate " +
+           "AND b.status IN ('PENDING', 'CONFIRMED') GROUP BY b.bookingDate, b.bookingTime")
+    List<Object[]> sumBookedPeopleByDateAndTime(
+        @Param("restaurantId") Long restaurantId,
+        @Param("startDate") LocalDate startDate,
+        @Param("endDate") LocalDate endDate
+    );
+
+    // Reservas para recordatorio (24h antes), por bloques de id (keyset) y shard
+    // restaurant_id % shardCount = shardIndex
+    @Query(value = "SELECT b.id FROM booking b WHERE b.booking_date = :reminderDate " +
+           "AND b.status = 'CONFIRMED' AND b.reminder_sent = false AND b.id > :afterId " +
+           "AND MOD(b.restaurant_id, :shardCount) = :shardIndex ORDER BY b.id LIMIT :limit",
+           nativeQuery = true)
+    List<Long> findReminderIdsAfter(
+        @Param("reminderDate") LocalDate reminderDate,
+        @Param("afterId") Long afterId,
+        @Param("shardCount") int shardCount,
+        @Param("shardIndex") int shardIndex,
+        @Param("limit") int limit
+    );
+
+    // Marcar las reservas cuyo recordatorio ya está en el outbox
+    @Modifying
+    @Query("UPDATE Booking b SET b.reminderSent = true WHERE b.id IN :ids AND b.reminderSent = false")
+    int markRemindersScheduled(@Param("ids") Collection<Long> ids);
 
     // Buscar reservas confirmadas para una fecha
     @Query("SELECT b FROM Booking b WHERE b.restaurant.id = :restaurantId " +
@@ -211,6 +301,39 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
         @Param("endDate") LocalDateTime endDate
     );
 
+    // Agregado completo de un período en una sola consulta (resumen, estados, clientes, lead time)
+    @Query(value = "SELECT COUNT(*) AS total, COALESCE(SUM(num_people), 0) AS guests, " +
+           "COALESCE(SUM(CASE WHEN status = 'PENDING' THEN 1 ELSE 0 END), 0) AS pending, " +
+           "COALESCE(SUM(CASE WHEN status = 'CONFIRMED' THEN 1 ELSE 0 END), 0) AS confirmed, " +
+           "COALESCE(SUM(CASE WHEN status = 'COMPLETED' THEN 1 ELSE 0 END), 0) AS completed, " +
+           "COALESCE(SUM(CASE WHEN status = 'CANCELLED' THEN 1 ELSE 0 END), 0) AS cancelled, " +
+           "COALESCE(SUM(CASE WHEN status = 'NO_SHOW' THEN 1 ELSE 0 END), 0) AS no_show, " +
+           "COALESCE(SUM(CASE WHEN status = 'REJECTED' THEN 1 ELSE 0 END), 0) AS rejected, " +
+           "COUNT(DISTINCT user_id) AS customers, " +
+           "(SELECT COUNT(*) FROM (SELECT r.user_id FROM booking r " +
+           "WHERE r.restaurant_id = :restaurantId AND r.created_at BETWEEN :startDate AND :endDate " +
+           "GROUP BY r.user_id HAVING COUNT(*) > 1) AS returning_customers) AS returning_customers, " +
+           "AVG(DATEDIFF(booking_date, DATE(created_at))) AS lead_time " +
+           "FROM booking WHERE restaurant_id = :restaurantId " +
+           "AND created_at BETWEEN :startDate AND :endDate", nativeQuery = true)
+    List<Object[]> getPeriodAggregates(
+        @Param("restaurantId") Long restaurantId,
+        @Param("startDate") LocalDateTime startDate,
+        @Param("endDate") LocalDateTime endDate
+    );
+
+    // Clientes únicos y recurrentes en una sola consulta
+    @Query(value = "SELECT COUNT(*) AS customers, " +
+           "COALESCE(SUM(CASE WHEN c.total > 1 THEN 1 ELSE 0 END), 0) AS returning_customers " +
+           "FROM (SELECT user_id, COUNT(*) AS total FROM booking " +
+           "WHERE restaurant_id = :restaurantId AND user_id IS NOT NULL " +
+           "AND created_at BETWEEN :startDate AND :endDate GROUP BY user_id) c", nativeQuery = true)
+    List<Object[]> getCustomerCounts(
+        @Param("restaurantId") Long restaurantId,
+        @Param("startDate") LocalDateTime startDate,
+        @Param("endDate") LocalDateTime endDate
+    );
+
     // Lead time promedio (días entre creación y fecha de reserva)
     @Query(value = "SELECT AVG(DATEDIFF(booking_date, DATE(created_at))) " +
            "FROM booking WHERE restaurant_id = :restaurantId " +
@@ -2,6 +2,9 @@ package com.BiteBooking.backend.repository;
 
 import com.BiteBooking.backend.model.Menu;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
@@ -9,4 +12,24 @@ public interface MenuRepository extends JpaRepository<Menu, Long> {
     List<Menu> findByRestaurantId(Long restaurantId);
     boolean existsByIdAndRestaurantOwnerId(Long menuId, Long ownerId);
 
+    // Suma/resta valoraciones al agregado del menú. MySQL evalúa las asignaciones
+    // de izquierda a derecha, así que average_rating usa los valores ya actualizados
+    @Modifying
+    @Query(value = "UPDATE menu SET " +
+           "rating_sum = COALESCE(rating_sum, 0) + :scoreDelta, " +
+           "rating_count = COALESCE(rating_count, 0) + :countDelta, " +
+           "average_rating = IF(rating_count > 0, rating_sum / rating_count, NULL) " +
+           "WHERE id = :menuId", nativeQuery = true)
+    int addRatings(@Param("menuId") Long menuId,
+                   @Param("scoreDelta") long scoreDelta,
+                   @Param("countDelta") int countDelta);
+
+    // Recalcula los agregados de todos los menús desde Ratings
+    @Modifying
+    @Query(value = "UPDATE menu m LEFT JOIN (" +
+           "SELECT menu_id, SUM(score) AS total, COUNT(*) AS cnt FROM Ratings " +
+           "WHERE score IS NOT NULL GROUP BY menu_id) x ON x.menu_id = m.id " +
+           "SET m.rating_sum = COALESCE(x.total, 0), m.rating_count = COALESCE(x.cnt, 0), " +
+           "m.average_rating = IF(x.cnt > 0, x.total / x.cnt, NULL)", nativeQuery = true)
+    int reconcileRatings();
 }
\ No newline at end of file
@@ -0,0 +1,114 @@
+package com.BiteBooking.backend.repository;
+
+import com.BiteBooking.backend.model.NotificationOutbox;
+import com.BiteBooking.backend.model.OutboxStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+
+    // =====================================================
+    // ALTA (en la transacción del cambio de estado)
+    // =====================================================
+
+    // Una notificación por reserva y tipo: si ya existe no se duplica
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO notification_outbox " +
+           "(booking_id, type, status, attempts, next_attempt_at, created_at) " +
+           "VALUES (:bookingId, :type, 'PENDING', 0, :now, :now)",
+           nativeQuery = true)
+    int enqueue(
+        @Param("bookingId") Long bookingId,
+        @Param("type") String type,
+        @Param("now") LocalDateTime now
+    );
+
+    // Recordatorios de un bloque de reservas (las que siguen confirmadas y aún no lo tienen)
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO notification_outbox " +
+           "(booking_id, type, status, attempts, next_attempt_at, created_at) " +
+           "SELECT b.id, 'BOOKING_REMINDER', 'PENDING', 0, :now, :now FROM booking b " +
+           "WHERE b.id IN :bookingIds AND b.status = 'CONFIRMED' AND b.reminder_sent = false",
+           nativeQuery = true)
+    int enqueueReminders(
+        @Param("bookingIds") Collection<Long> bookingIds,
+        @Param("now") LocalDateTime now
+    );
+
+    // =====================================================
+    // ENVÍO
+    // =====================================================
+
+    // Filas listas para enviar. SKIP LOCKED: varias instancias reclaman lotes distintos sin esperarse
+    @Query(value = "SELECT * FROM notification_outbox " +
+           "WHERE status IN ('PENDING', 'SENDING') AND next_attempt_at <= :now " +
+           "ORDER BY next_attempt_at, id LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<NotificationOutbox> lockReady(
+        @Param("now") LocalDateTime now,
+        @Param("limit") int limit
+    );
+
+    @Modifying
+    @Query("UPDATE NotificationOutbox o SET o.status = com.BiteBooking.backend.model.OutboxStatus.SENDING, " +
+           "o.nextAttemptAt = :leaseUntil WHERE o.id IN :ids")
+    int claim(
+        @Param("ids") Collection<Long> ids,
+        @Param("leaseUntil") LocalDateTime leaseUntil
+    );
+
+    // Renueva el plazo de las filas que siguen enviándose (las ya cerradas no se tocan)
+    @Modifying
+    @Transactional
+    @Query("UPDATE NotificationOutbox o SET o.nextAttemptAt = :leaseUntil " +
+           "WHERE o.id IN :ids AND o.status = com.BiteBooking.backend.model.OutboxStatus.SENDING")
+    int extendLease(
+        @Param("ids") Collection<Long> ids,
+        @Param("leaseUntil") LocalDateTime leaseUntil
+    );
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE NotificationOutbox o SET o.status = com.BiteBooking.backend.model.OutboxStatus.SENT, " +
+           "o.sentAt = :now, o.attempts = o.attempts + 1, o.lastError = null WHERE o.id = :id")
+    int markSent(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE NotificationOutbox o SET o.status = com.BiteBooking.backend.model.OutboxStatus.PENDING, " +
+           "o.attempts = o.attempts + 1, o.nextAttemptAt = :nextAttemptAt, o.lastError = :error WHERE o.id = :id")
+    int markRetry(
+        @Param("id") Long id,
+        @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+        @Param("error") String error
+    );
+
+    // Cierra la notificación sin enviarla (FAILED o SKIPPED)
+    @Modifying
+    @Transactional
+    @Query("UPDATE NotificationOutbox o SET o.status = :status, o.lastError = :error WHERE o.id = :id")
+    int markClosed(
+        @Param("id") Long id,
+        @Param("status") OutboxStatus status,
+        @Param("error") String error
+    );
+
+    // =====================================================
+    // LIMPIEZA
+    // =====================================================
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM NotificationOutbox o " +
+           "WHERE o.status = com.BiteBooking.backend.model.OutboxStatus.SENT AND o.sentAt < :cutoff")
+    int deleteSentBefore(@Param("cutoff") LocalDateTime cutoff);
+}
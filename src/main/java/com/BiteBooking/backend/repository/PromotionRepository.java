@@ -3,10 +3,12 @@ package com.BiteBooking.backend.repository;
 import com.BiteBooking.backend.model.Promotion;
 import com.BiteBooking.backend.model.PromotionType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,6 +33,16 @@ public interface PromotionRepository extends JpaRepository<Promotion, Long> {
            "ORDER BY p.featured DESC, p.createdAt DESC")
     List<Promotion> findAllActivePromotions(@Param("today") LocalDate today);
 
+    // Activas que no han terminado (vigentes y futuras), para PromotionIndex
+    @Query("SELECT p FROM Promotion p JOIN FETCH p.restaurant " +
+           "WHERE p.active = true AND p.endDate >= :today")
+    List<Promotion> findActiveNotEnded(@Param("today") LocalDate today);
+
+    // Una promoción si sigue activa y no ha terminado, para refrescar su entrada en PromotionIndex
+    @Query("SELECT p FROM Promotion p JOIN FETCH p.restaurant " +
+           "WHERE p.id = :id AND p.active = true AND p.endDate >= :today")
+    Optional<Promotion> findActiveNotEndedById(@Param("id") Long id, @Param("today") LocalDate today);
+
     // Promociones destacadas
     @Query("SELECT p FROM Promotion p WHERE p.active = true AND p.featured = true " +
            "AND p.startDate <= :today AND p.endDate >= :today")
@@ -50,6 +62,19 @@ public interface PromotionRepository extends JpaRepository<Promotion, Long> {
         @Param("today") LocalDate today
     );
 
+    // Canjea un uso de forma atómica: solo incrementa si no ha alcanzado maxUses.
+    // La vigencia (fechas, días, horario) la decide PromotionRule antes del canje.
+    // Devuelve 1 si se canjeó, 0 si no
+    @Modifying
+    @Query("UPDATE Promotion p SET p.currentUses = COALESCE(p.currentUses, 0) + 1, p.updatedAt = :now " +
+           "WHERE p.id = :id AND (p.maxUses IS NULL OR COALESCE(p.currentUses, 0) < p.maxUses)")
+    int redeem(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // Le quedan usos (para validar códigos con maxUses)
+    @Query("SELECT COUNT(p) > 0 FROM Promotion p WHERE p.id = :id " +
+           "AND (p.maxUses IS NULL OR COALESCE(p.currentUses, 0) < p.maxUses)")
+    boolean hasUsesLeft(@Param("id") Long id);
+
     // Contar promociones activas de un restaurante
     @Query("SELECT COUNT(p) FROM Promotion p WHERE p.restaurant.id = :restaurantId " +
            "AND p.active = true AND p.startDate <= :today AND p.endDate >= :today")
@@ -2,9 +2,14 @@ package com.BiteBooking.backend.repository;
 
 import com.BiteBooking.backend.model.RatingImage;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
 
 public interface RatingImageRepository extends JpaRepository<RatingImage, Long> {
     List<RatingImage> findByRatingIdOrderByImageOrder(Long ratingId);
+
+    // Imágenes de todas las valoraciones de un menú (una fila por imagen, con repetidos)
+    @Query("SELECT i.imagePath FROM RatingImage i WHERE i.rating.menu.id = :menuId")
+    List<String> findImagePathsByMenuId(Long menuId);
 }
\ No newline at end of file
@@ -2,9 +2,14 @@ package com.BiteBooking.backend.repository;
 
 import com.BiteBooking.backend.model.RatingLike;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -22,4 +27,29 @@ public interface RatingLikeRepository extends JpaRepository<RatingLike, Long> {
     // Eliminar like de un usuario en un rating
     @Transactional
     void deleteByRatingIdAndUserId(Long ratingId, Long userId);
+
+    // Estado de varios ratings en una sola consulta: [ratingId, likesCount, likeId o null].
+    // Con userId null la columna de like siempre es null
+    @Query("SELECT r.id, r.likesCount, l.id FROM Rating r " +
+           "LEFT JOIN RatingLike l ON l.rating = r AND l.user.id = :userId " +
+           "WHERE r.id IN :ratingIds")
+    List<Object[]> findLikeStatus(@Param("ratingIds") Collection<Long> ratingIds, @Param("userId") Long userId);
+
+    // Ids de todos los ratings a los que un usuario dio like
+    @Query("SELECT l.rating.id FROM RatingLike l WHERE l.user.id = :userId")
+    List<Long> findRatingIdsByUserId(@Param("userId") Long userId);
+
+    // Like idempotente: la clave única (rating_id, user_id) descarta duplicados.
+    // Devuelve 1 si se insertó, 0 si ya existía
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO rating_likes (rating_id, user_id, created_at) " +
+           "VALUES (:ratingId, :userId, NOW())", nativeQuery = true)
+    int insertIfAbsent(@Param("ratingId") Long ratingId, @Param("userId") Long userId);
+
+    // Quitar like idempotente. Devuelve el número de filas borradas (0 o 1)
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RatingLike l WHERE l.rating.id = :ratingId AND l.user.id = :userId")
+    int removeLike(@Param("ratingId") Long ratingId, @Param("userId") Long userId);
 }
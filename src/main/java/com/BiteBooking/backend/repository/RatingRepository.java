@@ -1,12 +1,18 @@
 package com.BiteBooking.backend.repository;
 
 import com.BiteBooking.backend.model.Rating;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface RatingRepository extends JpaRepository<Rating, Long> {
@@ -23,6 +29,15 @@ public interface RatingRepository extends JpaRepository<Rating, Long> {
     // Obtener todos los ratings ordenados por likes (mayor a menor)
     List<Rating> findAllByOrderByLikesCountDesc();
 
+    // Páginas ordenadas por likes con desempate estable por id (ver RatingLeaderboard)
+    List<Rating> findAllByOrderByLikesCountDescIdDesc(Pageable pageable);
+
+    List<Rating> findByLikesCountGreaterThanOrderByLikesCountDescIdDesc(Integer minLikes, Pageable pageable);
+
+    // [id, likesCount] de los ratings con más likes, para cargar el ranking
+    @Query("SELECT r.id, r.likesCount FROM Rating r ORDER BY r.likesCount DESC, r.id DESC")
+    List<Object[]> findTopLikes(Limit limit);
+
     // Obtener ratings de un usuario
     List<Rating> findByUserId(Long userId);
 
@@ -32,5 +47,15 @@ public interface RatingRepository extends JpaRepository<Rating, Long> {
     @Transactional
     @Modifying
     void deleteByMenuId(Long menuId);
+
+    // Contador persistido de likes (sin cargar imágenes ni usuario)
+    @Query("SELECT r.likesCount FROM Rating r WHERE r.id = :id")
+    Optional<Integer> findLikesCountById(@Param("id") Long id);
+
+    // Aplica el mismo delta de likes a varios ratings en una sola sentencia
+    @Modifying
+    @Query(value = "UPDATE Ratings SET likes_count = GREATEST(0, likes_count + :delta) " +
+           "WHERE id IN (:ids)", nativeQuery = true)
+    int addLikes(@Param("ids") Collection<Long> ids, @Param("delta") long delta);
 }
 
@@ -0,0 +1,20 @@
+package com.BiteBooking.backend.repository;
+
+import com.BiteBooking.backend.model.ReminderCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ReminderCheckpointRepository extends JpaRepository<ReminderCheckpoint, Long> {
+
+    Optional<ReminderCheckpoint> findByReminderDateAndShardIndexAndShardCount(
+            LocalDate reminderDate, Integer shardIndex, Integer shardCount);
+
+    // Ejecuciones interrumpidas de este shard (para continuar al arrancar)
+    List<ReminderCheckpoint> findByShardIndexAndShardCountAndCompletedFalseAndReminderDateGreaterThanEqual(
+            Integer shardIndex, Integer shardCount, LocalDate fromDate);
+}
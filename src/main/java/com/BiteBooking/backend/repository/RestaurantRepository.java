@@ -3,7 +3,11 @@ package com.BiteBooking.backend.repository;
 import com.BiteBooking.backend.model.Menu;
 import com.BiteBooking.backend.model.Restaurant;
 import com.BiteBooking.backend.model.RestaurantType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
@@ -18,5 +22,28 @@ public interface RestaurantRepository extends JpaRepository<Restaurant, Long> {
 
     boolean existsByOwner_IdAndId(Long id, Long id1);
 
-
+    List<Restaurant> findByAverageRatingGreaterThanEqualOrderByAverageRatingDescRatingCountDesc(
+        Double minRating, Limit limit);
+
+    // Suma/resta valoraciones al agregado del restaurante. MySQL evalúa las asignaciones
+    // de izquierda a derecha, así que average_rating usa los valores ya actualizados
+    @Modifying
+    @Query(value = "UPDATE Restaurants SET " +
+           "rating_sum = COALESCE(rating_sum, 0) + :scoreDelta, " +
+           "rating_count = COALESCE(rating_count, 0) + :countDelta, " +
+           "average_rating = IF(rating_count > 0, rating_sum / rating_count, NULL) " +
+           "WHERE id = :restaurantId", nativeQuery = true)
+    int addRatings(@Param("restaurantId") Long restaurantId,
+                   @Param("scoreDelta") long scoreDelta,
+                   @Param("countDelta") int countDelta);
+
+    // Recalcula los agregados de todos los restaurantes desde Ratings
+    @Modifying
+    @Query(value = "UPDATE Restaurants r LEFT JOIN (" +
+           "SELECT m.restaurant_id, SUM(ra.score) AS total, COUNT(*) AS cnt FROM Ratings ra " +
+           "JOIN menu m ON m.id = ra.menu_id " +
+           "WHERE ra.score IS NOT NULL GROUP BY m.restaurant_id) x ON x.restaurant_id = r.id " +
+           "SET r.rating_sum = COALESCE(x.total, 0), r.rating_count = COALESCE(x.cnt, 0), " +
+           "r.average_rating = IF(x.cnt > 0, x.total / x.cnt, NULL)", nativeQuery = true)
+    int reconcileRatings();
 }
\ No newline at end of file
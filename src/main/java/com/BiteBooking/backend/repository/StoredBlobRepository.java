@@ -0,0 +1,41 @@
+package com.BiteBooking.backend.repository;
+
+import com.BiteBooking.backend.model.StoredBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface StoredBlobRepository extends JpaRepository<StoredBlob, String> {
+
+    // Registrar una referencia: crea el blob con refCount 1 o suma 1 si ya existía
+    @Modifying
+    @Query(value = "INSERT INTO stored_blobs (sha256, file_name, content_type, size, ref_count, created_at) " +
+           "VALUES (:sha256, :fileName, :contentType, :size, 1, :createdAt) " +
+           "ON DUPLICATE KEY UPDATE ref_count = ref_count + 1",
+           nativeQuery = true)
+    void addReference(
+        @Param("sha256") String sha256,
+        @Param("fileName") String fileName,
+        @Param("contentType") String contentType,
+        @Param("size") long size,
+        @Param("createdAt") LocalDateTime createdAt
+    );
+
+    @Modifying
+    @Query("UPDATE StoredBlob b SET b.refCount = b.refCount - 1 WHERE b.fileName = :fileName AND b.refCount > 0")
+    int removeReference(@Param("fileName") String fileName);
+
+    // Borra el blob si ya no tiene referencias (1 = el archivo se puede eliminar)
+    @Modifying
+    @Query("DELETE FROM StoredBlob b WHERE b.fileName = :fileName AND b.refCount = 0")
+    int deleteIfUnreferenced(@Param("fileName") String fileName);
+
+    // Bloquea el nombre hasta el commit (también si no existe: bloqueo de hueco en el índice único)
+    @Query(value = "SELECT COUNT(*) FROM stored_blobs WHERE file_name = :fileName FOR UPDATE", nativeQuery = true)
+    long lockByFileName(@Param("fileName") String fileName);
+}
@@ -1,19 +1,16 @@
 package com.BiteBooking.backend.security;
 
 import com.BiteBooking.backend.model.User;
-import com.BiteBooking.backend.repository.UserRepository;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
@@ -28,13 +25,15 @@ import java.util.Optional;
 @Component
 @Slf4j
 public class RequestJWTFilter extends OncePerRequestFilter {
-    private final UserRepository userRepository;
-    
-    @Value("${jwt.secret}")
-    private String jwtSecret;
-    
-    public RequestJWTFilter(UserRepository userRepository) {
-        this.userRepository = userRepository;
+    private final UserPrincipalCache userPrincipalCache;
+
+    // Parser construido una sola vez con la clave del secreto
+    private final JwtParser jwtParser;
+
+    public RequestJWTFilter(UserPrincipalCache userPrincipalCache, @Value("${jwt.secret}") String jwtSecret) {
+        this.userPrincipalCache = userPrincipalCache;
+        byte[] key = Base64.getDecoder().decode(jwtSecret);
+        this.jwtParser = Jwts.parser().verifyWith(Keys.hmacShaKeyFor(key)).build();
     }
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
@@ -49,16 +48,14 @@ public class RequestJWTFilter extends OncePerRequestFilter {
             return;
         }
 
-        byte[] key = Base64.getDecoder().decode(jwtSecret);
-
-        String userId = Jwts.parser().verifyWith(Keys.hmacShaKeyFor(key)).build().parseSignedClaims(token).getPayload().getSubject();
+        String userId = jwtParser.parseSignedClaims(token).getPayload().getSubject();
 
-        log.info(userId);
+        log.debug("Petición autenticada del usuario {}", userId);
 
-        Optional<User> userOptional = this.userRepository.findById(Long.valueOf(userId));
+        Optional<User> userOptional = this.userPrincipalCache.get(Long.valueOf(userId));
 
         if (userOptional.isEmpty()){
-            log.warn("Usuario con Id no encontrado", userId);
+            log.warn("Usuario con Id {} no encontrado", userId);
             response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
             return;
         }
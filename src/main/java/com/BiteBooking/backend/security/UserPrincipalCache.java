@@ -0,0 +1,76 @@
+package com.BiteBooking.backend.security;
+
+import com.BiteBooking.backend.model.User;
+import com.BiteBooking.backend.repository.UserRepository;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Optional;
+
+/**
+ * Caché de corta duración de los usuarios autenticados, para no consultar
+ * la base de datos en cada petición con JWT.
+ * Debe invalidarse cuando cambian el rol o los datos de la cuenta.
+ *
+ * Guarda una copia desacoplada del usuario y entrega otra copia en cada
+ * petición: los controladores modifican el principal (p. ej. el avatar) y no
+ * deben verlo a medias otras peticiones concurrentes.
+ */
+@Component
+public class UserPrincipalCache {
+
+    private static final int MAX_USERS = 10_000;
+
+    private final UserRepository userRepository;
+    private final Cache<Long, User> users;
+
+    public UserPrincipalCache(UserRepository userRepository,
+                              @Value("${app.security.user-cache-ttl-seconds:60}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.users = CacheBuilder.newBuilder()
+                .maximumSize(MAX_USERS)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    public Optional<User> get(Long userId) {
+        User user = users.getIfPresent(userId);
+        if (user != null) {
+            return Optional.of(copyOf(user));
+        }
+        Optional<User> loaded = userRepository.findById(userId);
+        loaded.ifPresent(u -> users.put(userId, copyOf(u)));
+        return loaded;
+    }
+
+    public void invalidate(Long userId) {
+        if (userId != null) {
+            users.invalidate(userId);
+        }
+    }
+
+    /**
+     * Copia de todos los campos persistentes de User (mantener al añadir campos)
+     */
+    static User copyOf(User user) {
+        return User.builder()
+                .id(user.getId())
+                .firstName(user.getFirstName())
+                .lastName(user.getLastName())
+                .birthdayDate(user.getBirthdayDate())
+                .email(user.getEmail())
+                .password(user.getPassword())
+                .phone(user.getPhone())
+                .role(user.getRole())
+                .imgUser(user.getImgUser())
+                .city(user.getCity())
+                .aboutMe(user.getAboutMe())
+                .authProviders(user.getAuthProviders() != null ? new HashSet<>(user.getAuthProviders()) : new HashSet<>())
+                .googleProviderId(user.getGoogleProviderId())
+                .build();
+    }
+}
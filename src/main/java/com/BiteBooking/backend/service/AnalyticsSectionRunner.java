@@ -0,0 +1,105 @@
+package com.BiteBooking.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Ejecuta en paralelo las secciones independientes del dashboard de analytics
+ * sobre virtual threads. La concurrencia se limita con un semáforo para no
+ * agotar el pool de conexiones (Hikari en producción tiene 5).
+ *
+ * El permiso se obtiene antes de lanzar la sección y se devuelve cuando la
+ * sección termina de verdad. Al superar el timeout la sección se interrumpe y
+ * su consulta se corta con el timeout de la transacción de solo lectura en la
+ * que se ejecuta (Spring lo aplica como timeout de consulta JPA/JDBC).
+ */
+@Component
+@Slf4j
+public class AnalyticsSectionRunner {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService timeouts = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("analytics-timeout").daemon().factory());
+    private final Semaphore permits;
+    private final long sectionTimeoutMs;
+    private final TransactionTemplate transactionTemplate;
+
+    public AnalyticsSectionRunner(
+            PlatformTransactionManager transactionManager,
+            @Value("${app.analytics.parallel.max-concurrency:3}") int maxConcurrency,
+            @Value("${app.analytics.parallel.section-timeout-ms:3000}") long sectionTimeoutMs) {
+        this.permits = new Semaphore(Math.max(1, maxConcurrency));
+        this.sectionTimeoutMs = sectionTimeoutMs;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.transactionTemplate.setTimeout((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(sectionTimeoutMs + 999)));
+    }
+
+    /**
+     * Lanza una sección. Si no hay permiso a tiempo, falla o supera el timeout
+     * se completa con null y el dashboard se devuelve sin esa sección.
+     */
+    public <T> CompletableFuture<T> submit(String section, Supplier<T> task) {
+        try {
+            if (!permits.tryAcquire(sectionTimeoutMs, TimeUnit.MILLISECONDS)) {
+                log.warn("Sección de analytics '{}' sin resultado: sin permiso de concurrencia", section);
+                return CompletableFuture.completedFuture(null);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.completedFuture(null);
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> running;
+        try {
+            running = executor.submit(() -> {
+                try {
+                    result.complete(transactionTemplate.execute(status -> task.get()));
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            return CompletableFuture.completedFuture(null);
+        }
+
+        ScheduledFuture<?> timeout = timeouts.schedule(() -> {
+            if (result.completeExceptionally(new TimeoutException(sectionTimeoutMs + " ms"))) {
+                running.cancel(true);
+            }
+        }, sectionTimeoutMs, TimeUnit.MILLISECONDS);
+
+        return result
+                .whenComplete((value, error) -> timeout.cancel(false))
+                .exceptionally(e -> {
+                    log.warn("Sección de analytics '{}' sin resultado: {}", section, e.toString());
+                    return null;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timeouts.shutdownNow();
+        executor.shutdownNow();
+    }
+}
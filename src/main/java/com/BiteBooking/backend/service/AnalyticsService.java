@@ -2,8 +2,10 @@ package com.BiteBooking.backend.service;
 
 
 import com.BiteBooking.backend.dto.analytics.*;
+import com.BiteBooking.backend.repository.BookingDailyRollupRepository;
 import com.BiteBooking.backend.repository.BookingRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -11,6 +13,7 @@ import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
@@ -22,28 +25,102 @@ import java.util.stream.Collectors;
 public class AnalyticsService {
 
     private final BookingRepository bookingRepository;
+    private final BookingDailyRollupRepository rollupRepository;
+    private final BookingRollupService bookingRollupService;
+    private final AnalyticsSectionRunner sectionRunner;
+
+    // Load the dashboard sections concurrently (see AnalyticsSectionRunner)
+    @Value("${app.analytics.parallel.enabled:false}")
+    private boolean parallelEnabled;
 
     // ==================== DASHBOARD PRINCIPAL ====================
 
     /**
      * Get complete dashboard analytics for a restaurant.
      * This is the main endpoint data for the back-office dashboard.
+     * Scalar metrics come from one aggregation query per period; trends and
+     * insights are derived from the same daily/hourly/weekday result sets.
+     * Reads booking_daily_rollup when it is available.
      */
     public DashboardAnalyticsDTO getDashboardAnalytics(Long restaurantId, LocalDate startDate, LocalDate endDate) {
+        if (parallelEnabled) {
+            return getDashboardAnalyticsParallel(restaurantId, startDate, endDate);
+        }
+
+        // One aggregation query per period (current and previous)
+        PeriodAggregate current = loadAggregate(restaurantId, startDate, endDate, true);
+        PeriodAggregate previous = loadAggregate(restaurantId, previousPeriodStart(startDate, endDate),
+                startDate.minusDays(1), false);
+
+        // Distributions, loaded once and shared by trends and insights
+        List<Object[]> dailyData = loadDailyData(restaurantId, startDate, endDate);
+        List<Object[]> hourlyData = loadHourlyData(restaurantId, startDate, endDate);
+        List<Object[]> weekdayData = loadWeekdayData(restaurantId, startDate, endDate);
+
+        return assembleDashboard(startDate, endDate, current, previous, dailyData, hourlyData, weekdayData);
+    }
+
+    /**
+     * Same dashboard with the five independent sections loaded concurrently.
+     * Latency is roughly that of the slowest section; a section that times out
+     * is left empty and listed in incompleteSections.
+     */
+    public DashboardAnalyticsDTO getDashboardAnalyticsParallel(Long restaurantId, LocalDate startDate, LocalDate endDate) {
+        LocalDate prevStart = previousPeriodStart(startDate, endDate);
+        LocalDate prevEnd = startDate.minusDays(1);
+
+        CompletableFuture<PeriodAggregate> current = sectionRunner.submit("summary",
+                () -> loadAggregate(restaurantId, startDate, endDate, true));
+        CompletableFuture<PeriodAggregate> previous = sectionRunner.submit("comparisons",
+                () -> loadAggregate(restaurantId, prevStart, prevEnd, false));
+        CompletableFuture<List<Object[]>> daily = sectionRunner.submit("dailyTrend",
+                () -> loadDailyData(restaurantId, startDate, endDate));
+        CompletableFuture<List<Object[]>> hourly = sectionRunner.submit("hourlyDistribution",
+                () -> loadHourlyData(restaurantId, startDate, endDate));
+        CompletableFuture<List<Object[]>> weekday = sectionRunner.submit("weekdayDistribution",
+                () -> loadWeekdayData(restaurantId, startDate, endDate));
+
+        CompletableFuture.allOf(current, previous, daily, hourly, weekday).join();
+
+        return assembleDashboard(startDate, endDate, current.join(), previous.join(),
+                daily.join(), hourly.join(), weekday.join());
+    }
+
+    /**
+     * Builds the dashboard from the loaded sections. Any section may be null
+     * (timed out); the metrics derived from it are then left empty.
+     */
+    private DashboardAnalyticsDTO assembleDashboard(LocalDate startDate, LocalDate endDate,
+                                                    PeriodAggregate current, PeriodAggregate previous,
+                                                    List<Object[]> dailyData, List<Object[]> hourlyData,
+                                                    List<Object[]> weekdayData) {
         // Define period
         PeriodDTO period = new PeriodDTO(startDate, endDate, getPeriodName(startDate, endDate));
 
+        List<String> incomplete = new ArrayList<>();
+        if (current == null) incomplete.add("summary");
+        if (previous == null) incomplete.add("comparisons");
+        if (dailyData == null) incomplete.add("dailyTrend");
+        if (hourlyData == null) incomplete.add("hourlyDistribution");
+        if (weekdayData == null) incomplete.add("weekdayDistribution");
+
         // Calculate all metrics
-        SummaryDTO summary = calculateSummary(restaurantId, startDate, endDate);
-        StatusMetricsDTO statusBreakdown = calculateStatusMetrics(restaurantId, startDate, endDate);
-        RatesDTO rates = calculateRates(statusBreakdown, summary.getTotalBookings());
-        TrendsDTO trends = calculateTrends(restaurantId, startDate, endDate);
-        InsightsDTO insights = calculateInsights(restaurantId, startDate, endDate);
+        SummaryDTO summary = current != null ? calculateSummary(current) : null;
+        StatusMetricsDTO statusBreakdown = current != null ? current.toStatusMetrics() : null;
+        RatesDTO rates = current != null ? calculateRates(statusBreakdown, summary.getTotalBookings()) : null;
+        TrendsDTO trends = new TrendsDTO(
+                dailyData != null ? processDailyMetrics(dailyData) : null,
+                hourlyData != null ? processHourlyMetrics(hourlyData) : null,
+                weekdayData != null ? processWeekdayMetrics(weekdayData) : null
+        );
+        InsightsDTO insights = current != null ? calculateInsights(current, hourlyData, weekdayData) : null;
 
         // Calculate comparison with previous period
-        Map<String, ComparisonDTO> comparisons = calculateComparisons(restaurantId, startDate, endDate);
+        Map<String, ComparisonDTO> comparisons = current != null && previous != null
+                ? calculateComparisons(current, previous) : null;
 
-        return new DashboardAnalyticsDTO(period, summary, statusBreakdown, rates, trends, insights, comparisons);
+        return new DashboardAnalyticsDTO(period, summary, statusBreakdown, rates, trends, insights, comparisons,
+                incomplete);
     }
 
     // ==================== QUICK STATS ====================
@@ -93,68 +170,61 @@ public class AnalyticsService {
         );
     }
 
-    // ==================== SUMMARY CALCULATION ====================
+    // ==================== DATA LOADING (ROLLUP OR RAW) ====================
 
-    private SummaryDTO calculateSummary(Long restaurantId, LocalDate startDate, LocalDate endDate) {
+    private PeriodAggregate loadAggregate(Long restaurantId, LocalDate startDate, LocalDate endDate,
+                                          boolean withCustomers) {
         LocalDateTime start = startDate.atStartOfDay();
         LocalDateTime end = endDate.atTime(23, 59, 59);
-
-        Long totalBookings = bookingRepository.countByRestaurantAndPeriod(restaurantId, start, end);
-        Long confirmedBookings = bookingRepository.countByRestaurantAndStatusAndPeriod(
-                restaurantId, "CONFIRMED", start, end
-        );
-        Long cancelledBookings = bookingRepository.countByRestaurantAndStatusAndPeriod(
-                restaurantId, "CANCELLED", start, end
-        );
-        Long noShowBookings = bookingRepository.countByRestaurantAndStatusAndPeriod(
-                restaurantId, "NO_SHOW", start, end
+        if (!bookingRollupService.isReady()) {
+            return PeriodAggregate.fromRows(bookingRepository.getPeriodAggregates(restaurantId, start, end));
+        }
+        // Distinct customers cannot be pre-aggregated: only needed for the current period
+        return PeriodAggregate.fromRollupRows(
+                rollupRepository.getPeriodAggregates(restaurantId, startDate, endDate),
+                withCustomers ? bookingRepository.getCustomerCounts(restaurantId, start, end) : null
         );
-        Long totalGuests = Optional.ofNullable(
-                bookingRepository.sumPeopleByRestaurantAndPeriod(restaurantId, start, end)
-        ).orElse(0L);
+    }
+
+    private List<Object[]> loadDailyData(Long restaurantId, LocalDate startDate, LocalDate endDate) {
+        if (bookingRollupService.isReady()) {
+            return rollupRepository.getDailyMetrics(restaurantId, startDate, endDate);
+        }
+        return bookingRepository.getDailyMetrics(restaurantId, startDate.atStartOfDay(), endDate.atTime(23, 59, 59));
+    }
+
+    private List<Object[]> loadHourlyData(Long restaurantId, LocalDate startDate, LocalDate endDate) {
+        if (bookingRollupService.isReady()) {
+            return rollupRepository.getHourlyDistribution(restaurantId, startDate, endDate);
+        }
+        return bookingRepository.getHourlyDistribution(restaurantId, startDate.atStartOfDay(), endDate.atTime(23, 59, 59));
+    }
+
+    private List<Object[]> loadWeekdayData(Long restaurantId, LocalDate startDate, LocalDate endDate) {
+        if (bookingRollupService.isReady()) {
+            return rollupRepository.getWeekdayDistribution(restaurantId, startDate, endDate);
+        }
+        return bookingRepository.getWeekdayDistribution(restaurantId, startDate.atStartOfDay(), endDate.atTime(23, 59, 59));
+    }
+
+    private SummaryDTO calculateSummary(PeriodAggregate aggregate) {
+        long totalBookings = aggregate.totalBookings();
+        long totalGuests = aggregate.totalGuests();
 
         double avgPartySize = totalBookings > 0 
                 ? roundToTwoDecimals((double) totalGuests / totalBookings) 
                 : 0.0;
 
         return new SummaryDTO(
-                totalBookings.intValue(),
-                confirmedBookings.intValue(),
-                cancelledBookings.intValue(),
-                noShowBookings.intValue(),
-                totalGuests.intValue(),
+                (int) totalBookings,
+                aggregate.confirmed(),
+                aggregate.cancelled(),
+                aggregate.noShow(),
+                (int) totalGuests,
                 avgPartySize
         );
     }
 
-    // ==================== STATUS METRICS ====================
-
-    private StatusMetricsDTO calculateStatusMetrics(Long restaurantId, LocalDate startDate, LocalDate endDate) {
-        LocalDateTime start = startDate.atStartOfDay();
-        LocalDateTime end = endDate.atTime(23, 59, 59);
-
-        int pending = bookingRepository.countByRestaurantAndStatusAndPeriod(
-                restaurantId, "PENDING", start, end
-        ).intValue();
-        int confirmed = bookingRepository.countByRestaurantAndStatusAndPeriod(
-                restaurantId, "CONFIRMED", start, end
-        ).intValue();
-        int completed = bookingRepository.countByRestaurantAndStatusAndPeriod(
-                restaurantId, "COMPLETED", start, end
-        ).intValue();
-        int cancelled = bookingRepository.countByRestaurantAndStatusAndPeriod(
-                restaurantId, "CANCELLED", start, end
-        ).intValue();
-        int noShow = bookingRepository.countByRestaurantAndStatusAndPeriod(
-                restaurantId, "NO_SHOW", start, end
-        ).intValue();
-        int rejected = bookingRepository.countByRestaurantAndStatusAndPeriod(
-                restaurantId, "REJECTED", start, end
-        ).intValue();
-
-        return new StatusMetricsDTO(pending, confirmed, completed, cancelled, noShow, rejected);
-    }
-
     // ==================== RATES CALCULATION ====================
 
     private RatesDTO calculateRates(StatusMetricsDTO status, int totalBookings) {
@@ -178,102 +248,52 @@ public class AnalyticsService {
         return new RatesDTO(confirmationRate, cancellationRate, noShowRate, completionRate);
     }
 
-    // ==================== TRENDS ====================
-
-    private TrendsDTO calculateTrends(Long restaurantId, LocalDate startDate, LocalDate endDate) {
-        LocalDateTime start = startDate.atStartOfDay();
-        LocalDateTime end = endDate.atTime(23, 59, 59);
-
-        // Daily trend
-        List<DailyMetricDTO> dailyTrend = processDailyMetrics(
-                bookingRepository.getDailyMetrics(restaurantId, start, end)
-        );
-
-        // Hourly distribution
-        List<HourlyMetricDTO> hourlyDistribution = processHourlyMetrics(
-                bookingRepository.getHourlyDistribution(restaurantId, start, end)
-        );
-
-        // Weekday distribution
-        List<WeekdayMetricDTO> weekdayDistribution = processWeekdayMetrics(
-                bookingRepository.getWeekdayDistribution(restaurantId, start, end)
-        );
-
-        return new TrendsDTO(dailyTrend, hourlyDistribution, weekdayDistribution);
-    }
-
     // ==================== INSIGHTS ====================
 
-    private InsightsDTO calculateInsights(Long restaurantId, LocalDate startDate, LocalDate endDate) {
-        LocalDateTime start = startDate.atStartOfDay();
-        LocalDateTime end = endDate.atTime(23, 59, 59);
-
-        // Peak hour
-        List<Object[]> hourlyData = bookingRepository.getHourlyDistribution(restaurantId, start, end);
-        Integer peakHour = findPeakHour(hourlyData);
-
-        // Peak day
-        List<Object[]> weekdayData = bookingRepository.getWeekdayDistribution(restaurantId, start, end);
-        String peakDay = findPeakDay(weekdayData);
-
-        // Average lead time
-        Double avgLeadTime = Optional.ofNullable(
-                bookingRepository.getAverageLeadTimeDays(restaurantId, start, end)
-        ).orElse(0.0);
+    private InsightsDTO calculateInsights(PeriodAggregate aggregate, List<Object[]> hourlyData,
+                                          List<Object[]> weekdayData) {
+        // Peak hour / peak day from the already loaded distributions
+        Integer peakHour = hourlyData != null ? findPeakHour(hourlyData) : null;
+        String peakDay = weekdayData != null ? findPeakDay(weekdayData) : null;
 
         // Returning customer rate
-        Long totalCustomers = bookingRepository.countDistinctCustomers(restaurantId, start, end);
-        Long returningCustomers = bookingRepository.countDistinctReturningCustomers(restaurantId, start, end);
+        long totalCustomers = aggregate.distinctCustomers();
         double returningRate = totalCustomers > 0 
-                ? roundToTwoDecimals((double) returningCustomers / totalCustomers * 100)
+                ? roundToTwoDecimals((double) aggregate.returningCustomers() / totalCustomers * 100)
                 : 0.0;
 
-        return new InsightsDTO(peakHour, peakDay, roundToTwoDecimals(avgLeadTime), returningRate);
+        return new InsightsDTO(peakHour, peakDay, roundToTwoDecimals(aggregate.avgLeadTimeDays()), returningRate);
     }
 
     // ==================== COMPARISONS ====================
 
-    private Map<String, ComparisonDTO> calculateComparisons(Long restaurantId, LocalDate startDate, LocalDate endDate) {
+    private Map<String, ComparisonDTO> calculateComparisons(PeriodAggregate current, PeriodAggregate previous) {
         Map<String, ComparisonDTO> comparisons = new HashMap<>();
 
-        // Calculate previous period (same duration, immediately before)
-        long daysBetween = java.time.temporal.ChronoUnit.DAYS.between(startDate, endDate) + 1;
-        LocalDate prevStart = startDate.minusDays(daysBetween);
-        LocalDate prevEnd = startDate.minusDays(1);
-
-        LocalDateTime currentStart = startDate.atStartOfDay();
-        LocalDateTime currentEnd = endDate.atTime(23, 59, 59);
-        LocalDateTime previousStart = prevStart.atStartOfDay();
-        LocalDateTime previousEnd = prevEnd.atTime(23, 59, 59);
-
         // Bookings comparison
-        Long currentBookings = bookingRepository.countByRestaurantAndPeriod(restaurantId, currentStart, currentEnd);
-        Long previousBookings = bookingRepository.countByRestaurantAndPeriod(restaurantId, previousStart, previousEnd);
-        comparisons.put("bookings", createComparison(currentBookings.doubleValue(), previousBookings.doubleValue()));
+        long currentBookings = current.totalBookings();
+        long previousBookings = previous.totalBookings();
+        comparisons.put("bookings", createComparison(currentBookings, previousBookings));
 
         // Guests comparison
-        Long currentGuests = Optional.ofNullable(
-                bookingRepository.sumPeopleByRestaurantAndPeriod(restaurantId, currentStart, currentEnd)
-        ).orElse(0L);
-        Long previousGuests = Optional.ofNullable(
-                bookingRepository.sumPeopleByRestaurantAndPeriod(restaurantId, previousStart, previousEnd)
-        ).orElse(0L);
-        comparisons.put("guests", createComparison(currentGuests.doubleValue(), previousGuests.doubleValue()));
+        comparisons.put("guests", createComparison(current.totalGuests(), previous.totalGuests()));
 
         // Cancellation rate comparison
-        Long currentCancelled = bookingRepository.countByRestaurantAndStatusAndPeriod(
-                restaurantId, "CANCELLED", currentStart, currentEnd
-        );
-        Long previousCancelled = bookingRepository.countByRestaurantAndStatusAndPeriod(
-                restaurantId, "CANCELLED", previousStart, previousEnd
-        );
-        double currentCancelRate = currentBookings > 0 ? (double) currentCancelled / currentBookings * 100 : 0;
-        double previousCancelRate = previousBookings > 0 ? (double) previousCancelled / previousBookings * 100 : 0;
+        double currentCancelRate = currentBookings > 0 ? (double) current.cancelled() / currentBookings * 100 : 0;
+        double previousCancelRate = previousBookings > 0 ? (double) previous.cancelled() / previousBookings * 100 : 0;
         comparisons.put("cancellationRate", createComparison(currentCancelRate, previousCancelRate));
 
         return comparisons;
     }
 
+    /**
+     * Previous period: same duration, immediately before the current one.
+     */
+    private LocalDate previousPeriodStart(LocalDate startDate, LocalDate endDate) {
+        long daysBetween = java.time.temporal.ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        return startDate.minusDays(daysBetween);
+    }
+
     private ComparisonDTO createComparison(double current, double previous) {
         double changePercentage = previous > 0 
                 ? roundToTwoDecimals((current - previous) / previous * 100)
@@ -392,26 +412,20 @@ public class AnalyticsService {
      * Get daily metrics for charts.
      */
     public List<DailyMetricDTO> getDailyMetrics(Long restaurantId, LocalDate startDate, LocalDate endDate) {
-        LocalDateTime start = startDate.atStartOfDay();
-        LocalDateTime end = endDate.atTime(23, 59, 59);
-        return processDailyMetrics(bookingRepository.getDailyMetrics(restaurantId, start, end));
+        return processDailyMetrics(loadDailyData(restaurantId, startDate, endDate));
     }
 
     /**
      * Get hourly distribution for charts.
      */
     public List<HourlyMetricDTO> getHourlyDistribution(Long restaurantId, LocalDate startDate, LocalDate endDate) {
-        LocalDateTime start = startDate.atStartOfDay();
-        LocalDateTime end = endDate.atTime(23, 59, 59);
-        return processHourlyMetrics(bookingRepository.getHourlyDistribution(restaurantId, start, end));
+        return processHourlyMetrics(loadHourlyData(restaurantId, startDate, endDate));
     }
 
     /**
      * Get weekday distribution for charts.
      */
     public List<WeekdayMetricDTO> getWeekdayDistribution(Long restaurantId, LocalDate startDate, LocalDate endDate) {
-        LocalDateTime start = startDate.atStartOfDay();
-        LocalDateTime end = endDate.atTime(23, 59, 59);
-        return processWeekdayMetrics(bookingRepository.getWeekdayDistribution(restaurantId, start, end));
+        return processWeekdayMetrics(loadWeekdayData(restaurantId, startDate, endDate));
     }
 }
@@ -6,6 +6,7 @@ import com.BiteBooking.backend.model.AuthProvider;
 import com.BiteBooking.backend.model.Role;
 import com.BiteBooking.backend.model.User;
 import com.BiteBooking.backend.repository.UserRepository;
+import com.BiteBooking.backend.security.UserPrincipalCache;
 import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -20,6 +21,7 @@ public class AuthenticationService {
     private final UserRepository userRepository;
     private final JwtTokenService jwtTokenService;
     private final GoogleAuthService googleAuthService;
+    private final UserPrincipalCache userPrincipalCache;
 
     public AuthResponse loginWithGoogle(GoogleAuthRequest request){
 
@@ -50,6 +52,7 @@ public class AuthenticationService {
                     user.setImgUser(pictureUrl);
                 }
                 userRepository.save(user);
+                userPrincipalCache.invalidate(user.getId());
             }
         } else {
 
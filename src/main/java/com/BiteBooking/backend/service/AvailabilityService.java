@@ -6,6 +6,7 @@ import com.BiteBooking.backend.model.*;
 import com.BiteBooking.backend.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,7 +15,10 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
@@ -22,11 +26,17 @@ import java.util.Optional;
 @Transactional(readOnly = true)
 public class AvailabilityService {
 
-    private final RestaurantScheduleRepository scheduleRepository;
-    private final ClosedDateRepository closedDateRepository;
+    private final ScheduleSnapshotCache scheduleSnapshotCache;
     private final BookingRepository bookingRepository;
     private final RestaurantRepository restaurantRepository;
 
+    private static final int DEFAULT_MAX_ADVANCE_DAYS = 30;
+    private static final int DEFAULT_BOOKING_DURATION_MINUTES = 90;
+
+    // Modelo de capacidad por solapamiento (duración de reserva + aforo total)
+    @Value("${app.availability.overlap-capacity.enabled:false}")
+    private boolean overlapCapacityEnabled;
+
     /**
      * Obtener disponibilidad completa de un restaurante para una fecha
      */
@@ -35,41 +45,105 @@ public class AvailabilityService {
         Restaurant restaurant = restaurantRepository.findById(restaurantId)
                 .orElseThrow(() -> new IllegalArgumentException("Restaurante no encontrado"));
 
-        AvailabilityResponse.AvailabilityResponseBuilder responseBuilder = AvailabilityResponse.builder()
-                .restaurantId(restaurantId)
-                .date(date);
+        ScheduleSnapshot snapshot = scheduleSnapshotCache.get(restaurantId);
 
         // 1. Verificar si está cerrado ese día
-        Optional<ClosedDate> closedDate = closedDateRepository.findByRestaurantIdAndClosedDate(restaurantId, date);
+        Optional<ClosedDate> closedDate = snapshot.getClosedDate(date);
         if (closedDate.isPresent()) {
+            return buildAvailability(restaurant, date, numPeople, closedDate.get(), null, SlotOccupancy::empty);
+        }
+
+        // 2. Obtener horario del día de la semana
+        RestaurantSchedule schedule = snapshot.getSchedule(date.getDayOfWeek()).orElse(null);
+
+        // 3. Generar slots de tiempo disponibles
+        return buildAvailability(restaurant, date, numPeople, null, schedule,
+                () -> loadOccupancy(restaurantId, date));
+    }
+
+    /**
+     * Obtener disponibilidad de una semana a partir de una fecha
+     */
+    public List<AvailabilityResponse> getWeekAvailability(Long restaurantId, LocalDate startDate, int numPeople) {
+        Restaurant restaurant = restaurantRepository.findById(restaurantId)
+                .orElseThrow(() -> new IllegalArgumentException("Restaurante no encontrado"));
+        return loadAvailabilityRange(restaurant, scheduleSnapshotCache.get(restaurantId), startDate, 7, numPeople);
+    }
+
+    /**
+     * Obtener disponibilidad para un rango de días consecutivos (hasta maxAdvanceDays).
+     * Carga horarios, fechas cerradas y reservas de todo el rango con una consulta cada uno.
+     */
+    public List<AvailabilityResponse> getAvailabilityRange(Long restaurantId, LocalDate startDate,
+                                                           int days, int numPeople) {
+        Restaurant restaurant = restaurantRepository.findById(restaurantId)
+                .orElseThrow(() -> new IllegalArgumentException("Restaurante no encontrado"));
+
+        ScheduleSnapshot snapshot = scheduleSnapshotCache.get(restaurantId);
+
+        int maxDays = snapshot.getSchedules().values().stream()
+                .map(RestaurantSchedule::getMaxAdvanceDays)
+                .filter(Objects::nonNull)
+                .max(Integer::compare)
+                .orElse(DEFAULT_MAX_ADVANCE_DAYS);
+        if (days < 1 || days > maxDays) {
+            throw new IllegalArgumentException("El rango debe estar entre 1 y " + maxDays + " días");
+        }
+
+        return loadAvailabilityRange(restaurant, snapshot, startDate, days, numPeople);
+    }
+
+    private List<AvailabilityResponse> loadAvailabilityRange(Restaurant restaurant, ScheduleSnapshot snapshot,
+                                                             LocalDate startDate, int days, int numPeople) {
+        Long restaurantId = restaurant.getId();
+        LocalDate endDate = startDate.plusDays(days - 1L);
+
+        Map<LocalDate, SlotOccupancy> occupancy = SlotOccupancy.byDate(
+                bookingRepository.sumBookedPeopleByDateAndTime(restaurantId, startDate, endDate));
+
+        List<AvailabilityResponse> responses = new ArrayList<>(days);
+        for (int i = 0; i < days; i++) {
+            LocalDate date = startDate.plusDays(i);
+            SlotOccupancy dayOccupancy = occupancy.getOrDefault(date, SlotOccupancy.empty());
+            responses.add(buildAvailability(restaurant, date, numPeople, snapshot.getClosedDate(date).orElse(null),
+                    snapshot.getSchedule(date.getDayOfWeek()).orElse(null), () -> dayOccupancy));
+        }
+        return responses;
+    }
+
+    /**
+     * Construye la disponibilidad de un día a partir de datos ya cargados.
+     * La ocupación solo se solicita si el restaurante abre ese día.
+     */
+    private AvailabilityResponse buildAvailability(Restaurant restaurant, LocalDate date, int numPeople,
+                                                   ClosedDate closedDate, RestaurantSchedule schedule,
+                                                   Supplier<SlotOccupancy> occupancy) {
+        AvailabilityResponse.AvailabilityResponseBuilder responseBuilder = AvailabilityResponse.builder()
+                .restaurantId(restaurant.getId())
+                .date(date);
+
+        if (closedDate != null) {
             return responseBuilder
                     .isOpen(false)
-                    .closedReason(closedDate.get().getReason())
+                    .closedReason(closedDate.getReason())
                     .availableSlots(new ArrayList<>())
                     .build();
         }
 
-        // 2. Obtener horario del día de la semana
-        DayOfWeek dayOfWeek = date.getDayOfWeek();
-        Optional<RestaurantSchedule> scheduleOpt = scheduleRepository.findByRestaurantIdAndDayOfWeek(restaurantId, dayOfWeek);
-
         // Si no hay configuración, usar horarios del restaurante
-        if (scheduleOpt.isEmpty()) {
-            return getDefaultAvailability(restaurant, date, numPeople);
+        if (schedule == null) {
+            return getDefaultAvailability(restaurant, date, numPeople, occupancy);
         }
 
-        RestaurantSchedule schedule = scheduleOpt.get();
-
         if (!schedule.getIsOpen()) {
             return responseBuilder
                     .isOpen(false)
-                    .closedReason("Cerrado los " + getDayName(dayOfWeek))
+                    .closedReason("Cerrado los " + getDayName(date.getDayOfWeek()))
                     .availableSlots(new ArrayList<>())
                     .build();
         }
 
-        // 3. Generar slots de tiempo disponibles
-        List<TimeSlotDTO> slots = generateTimeSlots(restaurant, schedule, date, numPeople);
+        List<TimeSlotDTO> slots = generateTimeSlots(schedule, numPeople, occupancy.get());
 
         return responseBuilder
                 .isOpen(true)
@@ -80,73 +154,92 @@ public class AvailabilityService {
     /**
      * Genera slots de tiempo con capacidad disponible
      */
-    private List<TimeSlotDTO> generateTimeSlots(Restaurant restaurant, RestaurantSchedule schedule, 
-                                                 LocalDate date, int numPeople) {
+    private List<TimeSlotDTO> generateTimeSlots(RestaurantSchedule schedule, int numPeople,
+                                                 SlotOccupancy occupancy) {
         List<TimeSlotDTO> slots = new ArrayList<>();
         
         int interval = schedule.getSlotIntervalMinutes() != null ? schedule.getSlotIntervalMinutes() : 30;
         int maxPerSlot = schedule.getMaxCapacityPerSlot() != null ? schedule.getMaxCapacityPerSlot() : 20;
+        OverlapCapacity overlap = buildOverlapCapacity(schedule, occupancy);
 
         // Generar slots para almuerzo
         if (schedule.getLunchStart() != null && schedule.getLunchEnd() != null) {
-            LocalTime current = schedule.getLunchStart();
-            while (current.isBefore(schedule.getLunchEnd())) {
-                int booked = getBookedPeopleForSlot(restaurant.getId(), date, current);
-                int available = maxPerSlot - booked;
-                
-                slots.add(TimeSlotDTO.builder()
-                        .time(current)
-                        .maxCapacity(maxPerSlot)
-                        .availableCapacity(Math.max(0, available))
-                        .isAvailable(available >= numPeople)
-                        .period("LUNCH")
-                        .build());
-                
-                current = current.plusMinutes(interval);
-            }
+            addSlots(slots, schedule.getLunchStart(), schedule.getLunchEnd(), interval,
+                    maxPerSlot, numPeople, "LUNCH", occupancy, overlap, schedule.getMaxCapacity());
         }
 
         // Generar slots para cena
         if (schedule.getDinnerStart() != null && schedule.getDinnerEnd() != null) {
-            LocalTime current = schedule.getDinnerStart();
-            while (current.isBefore(schedule.getDinnerEnd())) {
-                int booked = getBookedPeopleForSlot(restaurant.getId(), date, current);
-                int available = maxPerSlot - booked;
-                
-                slots.add(TimeSlotDTO.builder()
-                        .time(current)
-                        .maxCapacity(maxPerSlot)
-                        .availableCapacity(Math.max(0, available))
-                        .isAvailable(available >= numPeople)
-                        .period("DINNER")
-                        .build());
-                
-                current = current.plusMinutes(interval);
-            }
+            addSlots(slots, schedule.getDinnerStart(), schedule.getDinnerEnd(), interval,
+                    maxPerSlot, numPeople, "DINNER", occupancy, overlap, schedule.getMaxCapacity());
         }
 
         // Si no hay almuerzo/cena definidos, usar horario general
         if (slots.isEmpty() && schedule.getOpenTime() != null && schedule.getCloseTime() != null) {
-            LocalTime current = schedule.getOpenTime();
-            while (current.isBefore(schedule.getCloseTime())) {
-                int booked = getBookedPeopleForSlot(restaurant.getId(), date, current);
-                int available = maxPerSlot - booked;
-                
-                slots.add(TimeSlotDTO.builder()
-                        .time(current)
-                        .maxCapacity(maxPerSlot)
-                        .availableCapacity(Math.max(0, available))
-                        .isAvailable(available >= numPeople)
-                        .period("GENERAL")
-                        .build());
-                
-                current = current.plusMinutes(interval);
-            }
+            addSlots(slots, schedule.getOpenTime(), schedule.getCloseTime(), interval,
+                    maxPerSlot, numPeople, "GENERAL", occupancy, overlap, schedule.getMaxCapacity());
         }
 
         return slots;
     }
 
+    /**
+     * Añade los slots de un período calculando la capacidad desde la ocupación en memoria.
+     * Si hay modelo de solapamiento, la capacidad también se limita por el aforo total.
+     */
+    private void addSlots(List<TimeSlotDTO> slots, LocalTime start, LocalTime end, int interval,
+                          int maxPerSlot, int numPeople, String period, SlotOccupancy occupancy,
+                          OverlapCapacity overlap, Integer maxCapacity) {
+        LocalTime current = start;
+        while (current.isBefore(end)) {
+            int available = maxPerSlot - occupancy.bookedAt(current);
+            if (overlap != null) {
+                available = Math.min(available, maxCapacity - overlap.maxSeatedDuring(current));
+            }
+
+            slots.add(TimeSlotDTO.builder()
+                    .time(current)
+                    .maxCapacity(maxPerSlot)
+                    .availableCapacity(Math.max(0, available))
+                    .isAvailable(available >= numPeople)
+                    .period(period)
+                    .build());
+
+            current = current.plusMinutes(interval);
+        }
+    }
+
+    /**
+     * Modelo de solapamiento del día, o null si está deshabilitado o no hay aforo total configurado
+     */
+    private OverlapCapacity buildOverlapCapacity(RestaurantSchedule schedule, SlotOccupancy occupancy) {
+        if (!overlapCapacityEnabled || schedule == null || schedule.getMaxCapacity() == null) {
+            return null;
+        }
+        int duration = schedule.getDefaultBookingDurationMinutes() != null
+                ? schedule.getDefaultBookingDurationMinutes() : DEFAULT_BOOKING_DURATION_MINUTES;
+        return OverlapCapacity.of(occupancy, duration);
+    }
+
+    /**
+     * Plazas libres en el aforo total durante una nueva reserva (sin límite si no aplica)
+     */
+    private int getAvailableSeatsDuring(Long restaurantId, LocalDate date, LocalTime time,
+                                        RestaurantSchedule schedule) {
+        if (!overlapCapacityEnabled || schedule == null || schedule.getMaxCapacity() == null) {
+            return Integer.MAX_VALUE;
+        }
+        OverlapCapacity overlap = buildOverlapCapacity(schedule, loadOccupancy(restaurantId, date));
+        return schedule.getMaxCapacity() - overlap.maxSeatedDuring(time);
+    }
+
+    /**
+     * Carga las personas reservadas de todo el día en una sola consulta agrupada
+     */
+    private SlotOccupancy loadOccupancy(Long restaurantId, LocalDate date) {
+        return SlotOccupancy.fromRows(bookingRepository.sumBookedPeopleByTime(restaurantId, date));
+    }
+
     /**
      * Obtiene personas reservadas para un slot específico
      */
@@ -158,28 +251,16 @@ public class AvailabilityService {
     /**
      * Disponibilidad por defecto usando horarios del restaurante
      */
-    private AvailabilityResponse getDefaultAvailability(Restaurant restaurant, LocalDate date, int numPeople) {
+    private AvailabilityResponse getDefaultAvailability(Restaurant restaurant, LocalDate date, int numPeople,
+                                                        Supplier<SlotOccupancy> occupancy) {
         List<TimeSlotDTO> slots = new ArrayList<>();
         
         if (restaurant.getOpeningTime() != null && restaurant.getClosingTime() != null) {
-            LocalTime current = restaurant.getOpeningTime();
             int interval = 30; // Default 30 min
             int maxPerSlot = 20; // Default
 
-            while (current.isBefore(restaurant.getClosingTime())) {
-                int booked = getBookedPeopleForSlot(restaurant.getId(), date, current);
-                int available = maxPerSlot - booked;
-                
-                slots.add(TimeSlotDTO.builder()
-                        .time(current)
-                        .maxCapacity(maxPerSlot)
-                        .availableCapacity(Math.max(0, available))
-                        .isAvailable(available >= numPeople)
-                        .period("GENERAL")
-                        .build());
-                
-                current = current.plusMinutes(interval);
-            }
+            addSlots(slots, restaurant.getOpeningTime(), restaurant.getClosingTime(), interval,
+                    maxPerSlot, numPeople, "GENERAL", occupancy.get(), null, null);
         }
 
         return AvailabilityResponse.builder()
@@ -194,14 +275,16 @@ public class AvailabilityService {
      * Validar si se puede hacer una reserva
      */
     public boolean canBook(Long restaurantId, LocalDate date, LocalTime time, int numPeople) {
+        ScheduleSnapshot snapshot = scheduleSnapshotCache.get(restaurantId);
+
         // 1. Verificar fecha cerrada
-        if (closedDateRepository.existsByRestaurantIdAndClosedDate(restaurantId, date)) {
+        if (snapshot.isClosed(date)) {
             return false;
         }
 
         // 2. Verificar día de la semana
         DayOfWeek dayOfWeek = date.getDayOfWeek();
-        Optional<RestaurantSchedule> scheduleOpt = scheduleRepository.findByRestaurantIdAndDayOfWeek(restaurantId, dayOfWeek);
+        Optional<RestaurantSchedule> scheduleOpt = snapshot.getSchedule(dayOfWeek);
         
         if (scheduleOpt.isPresent() && !scheduleOpt.get().getIsOpen()) {
             return false;
@@ -218,23 +301,44 @@ public class AvailabilityService {
         // 4. Verificar capacidad
         int maxPerSlot = scheduleOpt.map(s -> s.getMaxCapacityPerSlot() != null ? s.getMaxCapacityPerSlot() : 20).orElse(20);
         int booked = getBookedPeopleForSlot(restaurantId, date, time);
-        
-        return (maxPerSlot - booked) >= numPeople;
+        if ((maxPerSlot - booked) < numPeople) {
+            return false;
+        }
+
+        // 5. Verificar aforo total durante la duración de la reserva
+        return getAvailableSeatsDuring(restaurantId, date, time, scheduleOpt.orElse(null)) >= numPeople;
+    }
+
+    /**
+     * Límites de capacidad del día de la semana de una fecha para CapacityLedger
+     * (aforo total solo si el modelo de solapamiento está habilitado)
+     */
+    public CapacityLedger.Limits getCapacityLimits(Long restaurantId, LocalDate date) {
+        RestaurantSchedule schedule = scheduleSnapshotCache.get(restaurantId).getSchedule(date.getDayOfWeek()).orElse(null);
+        int maxPerSlot = schedule != null && schedule.getMaxCapacityPerSlot() != null ? schedule.getMaxCapacityPerSlot() : 20;
+        if (!overlapCapacityEnabled || schedule == null || schedule.getMaxCapacity() == null) {
+            return CapacityLedger.Limits.perSlot(maxPerSlot);
+        }
+        int duration = schedule.getDefaultBookingDurationMinutes() != null
+                ? schedule.getDefaultBookingDurationMinutes() : DEFAULT_BOOKING_DURATION_MINUTES;
+        return new CapacityLedger.Limits(maxPerSlot, schedule.getMaxCapacity(), duration);
     }
 
     /**
      * Obtener mensaje de error si no se puede reservar
      */
     public String getBookingErrorMessage(Long restaurantId, LocalDate date, LocalTime time, int numPeople) {
+        ScheduleSnapshot snapshot = scheduleSnapshotCache.get(restaurantId);
+
         // Verificar fecha cerrada
-        Optional<ClosedDate> closedDate = closedDateRepository.findByRestaurantIdAndClosedDate(restaurantId, date);
+        Optional<ClosedDate> closedDate = snapshot.getClosedDate(date);
         if (closedDate.isPresent()) {
             return "El restaurante está cerrado: " + closedDate.get().getReason();
         }
 
         // Verificar día de la semana
         DayOfWeek dayOfWeek = date.getDayOfWeek();
-        Optional<RestaurantSchedule> scheduleOpt = scheduleRepository.findByRestaurantIdAndDayOfWeek(restaurantId, dayOfWeek);
+        Optional<RestaurantSchedule> scheduleOpt = snapshot.getSchedule(dayOfWeek);
         
         if (scheduleOpt.isPresent() && !scheduleOpt.get().getIsOpen()) {
             return "El restaurante no abre los " + getDayName(dayOfWeek);
@@ -258,6 +362,13 @@ public class AvailabilityService {
                    ". Disponible: " + available;
         }
 
+        // Verificar aforo total durante la duración de la reserva
+        int seatsDuring = getAvailableSeatsDuring(restaurantId, date, time, scheduleOpt.orElse(null));
+        if (seatsDuring < numPeople) {
+            return "Aforo completo para " + numPeople + " personas a las " + time +
+                   ". Disponible: " + Math.max(0, seatsDuring);
+        }
+
         return null; // No hay error
     }
 
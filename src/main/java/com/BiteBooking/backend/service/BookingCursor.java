@@ -0,0 +1,39 @@
+package com.BiteBooking.backend.service;
+
+import com.BiteBooking.backend.dto.BookingSummaryDTO;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Cursor de paginación por clave (bookingDate, bookingTime, id). Los listados
+ * por cursor solo devuelven reservas con fecha y hora, así que nunca son null.
+ * Se envía al cliente como texto opaco en Base64 URL-safe.
+ */
+record BookingCursor(LocalDate date, LocalTime time, Long id) {
+
+    static BookingCursor of(BookingSummaryDTO booking) {
+        return new BookingCursor(booking.getBookingDate(), booking.getBookingTime(), booking.getId());
+    }
+
+    String encode() {
+        String raw = date + "|" + time + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static BookingCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Cursor de paginación no válido");
+            }
+            return new BookingCursor(LocalDate.parse(parts[0]), LocalTime.parse(parts[1]), Long.valueOf(parts[2]));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor de paginación no válido");
+        }
+    }
+}
@@ -1,85 +1,168 @@
 package com.BiteBooking.backend.service;
 
-import com.BiteBooking.backend.model.Booking;
+import com.BiteBooking.backend.model.ReminderCheckpoint;
 import com.BiteBooking.backend.repository.BookingRepository;
-import lombok.RequiredArgsConstructor;
+import com.BiteBooking.backend.repository.ReminderCheckpointRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Programa los recordatorios del día siguiente en el outbox de notificaciones.
+ *
+ * Las reservas se leen por bloques de chunk-size ids (keyset) y cada bloque se
+ * confirma en su propia transacción junto con el checkpoint, así la memoria no
+ * depende del número de reservas y una ejecución interrumpida continúa donde se
+ * quedó. Con shard-count > 1 cada instancia procesa solo los restaurantes con
+ * restaurant_id % shard-count = shard-index. El outbox admite un solo recordatorio
+ * por reserva, así que un solapamiento entre shards no duplica envíos.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class BookingReminderScheduler {
 
     private final BookingRepository bookingRepository;
-    private final EmailService emailService;
+    private final ReminderCheckpointRepository checkpointRepository;
+    private final NotificationOutboxService notificationOutboxService;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int shardCount;
+    private final int shardIndex;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public BookingReminderScheduler(
+            BookingRepository bookingRepository,
+            ReminderCheckpointRepository checkpointRepository,
+            NotificationOutboxService notificationOutboxService,
+            TransactionTemplate transactionTemplate,
+            @Value("${app.reminders.chunk-size:500}") int chunkSize,
+            @Value("${app.reminders.shard-count:1}") int shardCount,
+            @Value("${app.reminders.shard-index:0}") int shardIndex) {
+        if (shardCount < 1 || shardIndex < 0 || shardIndex >= shardCount) {
+            throw new IllegalArgumentException("Shard de recordatorios no válido: " + shardIndex + "/" + shardCount);
+        }
+        this.bookingRepository = bookingRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.notificationOutboxService = notificationOutboxService;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.shardCount = shardCount;
+        this.shardIndex = shardIndex;
+    }
 
     /**
      * Enviar recordatorios para reservas del día siguiente
      * Se ejecuta todos los días a las 10:00 AM
      */
     @Scheduled(cron = "0 0 10 * * *")  // 10:00 AM todos los días
-    @Transactional
     public void sendDailyReminders() {
         log.info("Iniciando envío de recordatorios diarios...");
-        
-        LocalDate tomorrow = LocalDate.now().plusDays(1);
-        List<Booking> bookingsForReminder = bookingRepository.findBookingsForReminder(tomorrow);
-        
-        log.info("Encontradas {} reservas para recordatorio mañana", bookingsForReminder.size());
-        
-        int sent = 0;
-        int failed = 0;
-        
-        for (Booking booking : bookingsForReminder) {
-            try {
-                emailService.sendBookingReminder(booking);
-                booking.setReminderSent(true);
-                bookingRepository.save(booking);
-                sent++;
-            } catch (Exception e) {
-                log.error("Error enviando recordatorio para reserva {}: {}", 
-                        booking.getId(), e.getMessage());
-                failed++;
-            }
-        }
-        
-        log.info("Recordatorios enviados: {} exitosos, {} fallidos", sent, failed);
+        run(LocalDate.now().plusDays(1));
     }
 
     /**
      * Segundo envío de recordatorios a las 6:00 PM
-     * Para asegurar que todos reciban el recordatorio
+     * Recoge las reservas confirmadas después del envío de la mañana
      */
     @Scheduled(cron = "0 0 18 * * *")  // 6:00 PM todos los días
-    @Transactional
     public void sendEveningReminders() {
         log.info("Iniciando segundo envío de recordatorios...");
-        
-        LocalDate tomorrow = LocalDate.now().plusDays(1);
-        List<Booking> bookingsForReminder = bookingRepository.findBookingsForReminder(tomorrow);
-        
-        // Solo enviar a los que aún no han recibido
-        int sent = 0;
-        for (Booking booking : bookingsForReminder) {
-            if (!booking.getReminderSent()) {
-                try {
-                    emailService.sendBookingReminder(booking);
-                    booking.setReminderSent(true);
-                    bookingRepository.save(booking);
-                    sent++;
-                } catch (Exception e) {
-                    log.error("Error en segundo intento de recordatorio para reserva {}: {}", 
-                            booking.getId(), e.getMessage());
-                }
+        run(LocalDate.now().plusDays(1));
+    }
+
+    /**
+     * Continúa las ejecuciones que quedaron a medias al caer la aplicación
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedRuns() {
+        List<ReminderCheckpoint> interrupted = checkpointRepository
+                .findByShardIndexAndShardCountAndCompletedFalseAndReminderDateGreaterThanEqual(
+                        shardIndex, shardCount, LocalDate.now());
+        for (ReminderCheckpoint checkpoint : interrupted) {
+            log.info("Reanudando recordatorios del {} desde la reserva {}",
+                    checkpoint.getReminderDate(), checkpoint.getLastBookingId());
+            run(checkpoint.getReminderDate());
+        }
+    }
+
+    /**
+     * Procesa los recordatorios de una fecha. Si la ejecución anterior quedó a medias
+     * continúa desde su checkpoint; si terminó, empieza de nuevo desde el principio
+     * (las reservas confirmadas después pueden tener ids menores que el último procesado).
+     */
+    private void run(LocalDate reminderDate) {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Ya hay una ejecución de recordatorios en curso, se omite la del {}", reminderDate);
+            return;
+        }
+        try {
+            ReminderCheckpoint checkpoint = checkpointRepository
+                    .findByReminderDateAndShardIndexAndShardCount(reminderDate, shardIndex, shardCount)
+                    .orElseGet(() -> newCheckpoint(reminderDate));
+            if (checkpoint.getCompleted()) {
+                checkpoint.setLastBookingId(0L);
+                checkpoint.setProcessed(0);
+                checkpoint.setCompleted(false);
             }
+
+            int chunks = 0;
+            Integer found;
+            do {
+                found = transactionTemplate.execute(status -> processChunk(reminderDate, checkpoint));
+                chunks++;
+            } while (found != null && found == chunkSize);
+
+            checkpoint.setCompleted(true);
+            checkpoint.setUpdatedAt(LocalDateTime.now());
+            checkpointRepository.save(checkpoint);
+
+            log.info("Recordatorios para el {} (shard {}/{}): {} registrados en el outbox en {} bloques",
+                    reminderDate, shardIndex, shardCount, checkpoint.getProcessed(), chunks);
+        } catch (RuntimeException e) {
+            log.error("Ejecución de recordatorios del {} interrumpida; se continuará desde el checkpoint",
+                    reminderDate, e);
+        } finally {
+            running.set(false);
         }
-        
-        log.info("Segundo intento de recordatorios: {} enviados", sent);
+    }
+
+    /**
+     * Un bloque: lee los ids siguientes, registra sus recordatorios y avanza el
+     * checkpoint, todo en la misma transacción. El checkpoint se guarda con merge,
+     * así que el mismo objeto sirve para el bloque siguiente.
+     *
+     * @return número de reservas leídas
+     */
+    private int processChunk(LocalDate reminderDate, ReminderCheckpoint checkpoint) {
+        List<Long> ids = bookingRepository.findReminderIdsAfter(
+                reminderDate, checkpoint.getLastBookingId(), shardCount, shardIndex, chunkSize);
+        if (!ids.isEmpty()) {
+            int queued = notificationOutboxService.recordReminders(ids);
+            checkpoint.setLastBookingId(ids.get(ids.size() - 1));
+            checkpoint.setProcessed(checkpoint.getProcessed() + queued);
+        }
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        checkpointRepository.save(checkpoint);
+        return ids.size();
+    }
+
+    private ReminderCheckpoint newCheckpoint(LocalDate reminderDate) {
+        ReminderCheckpoint checkpoint = new ReminderCheckpoint();
+        checkpoint.setReminderDate(reminderDate);
+        checkpoint.setShardIndex(shardIndex);
+        checkpoint.setShardCount(shardCount);
+        return checkpoint;
     }
 }
@@ -0,0 +1,200 @@
+package com.BiteBooking.backend.service;
+
+import com.BiteBooking.backend.model.Booking;
+import com.BiteBooking.backend.model.BookingStatus;
+import com.BiteBooking.backend.repository.BookingDailyRollupRepository;
+import com.BiteBooking.backend.repository.BookingRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mantiene la tabla booking_daily_rollup para que los dashboards de analytics
+ * no tengan que recorrer la tabla booking completa.
+ *
+ * - Incremental: BookingService notifica creaciones y cambios de estado, y
+ *   BookingController las ediciones y borrados directos (resta la aportación
+ *   anterior de la reserva y suma la nueva).
+ * - Backfill: al arrancar, si el agregado no cuadra con la tabla booking.
+ * - Reconciliación: cada noche se reconstruyen los últimos días.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BookingRollupService {
+
+    private static final int RECONCILE_DAYS = 2;
+
+    private final BookingDailyRollupRepository rollupRepository;
+    private final BookingRepository bookingRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.analytics.rollup.enabled:true}")
+    private boolean rollupEnabled;
+
+    // true cuando el agregado está completo y AnalyticsService puede leerlo
+    private volatile boolean ready = false;
+
+    public boolean isReady() {
+        return rollupEnabled && ready;
+    }
+
+    /**
+     * Fila del agregado a la que aporta una reserva (null si no aporta a ninguna,
+     * igual que en insertFromBookings)
+     */
+    public record Contribution(Long restaurantId, LocalDate createdDate, LocalDate bookingDate,
+                               int bookingHour, BookingStatus status, long guests) {
+
+        public static Contribution of(Booking booking) {
+            return of(booking, booking.getStatus());
+        }
+
+        static Contribution of(Booking booking, BookingStatus status) {
+            if (status == null || booking.getCreatedAt() == null || booking.getRestaurant() == null
+                    || booking.getRestaurant().getId() == null || booking.getBookingDate() == null
+                    || booking.getBookingTime() == null) {
+                return null;
+            }
+            return new Contribution(booking.getRestaurant().getId(), booking.getCreatedAt().toLocalDate(),
+                    booking.getBookingDate(), booking.getBookingTime().getHour(), status,
+                    booking.getNumPeople() != null ? booking.getNumPeople() : 0);
+        }
+    }
+
+    /**
+     * Suma una reserva recién creada al agregado
+     */
+    public void recordCreated(Booking booking) {
+        apply(Contribution.of(booking), 1);
+    }
+
+    /**
+     * Mueve una reserva de su estado anterior al actual
+     */
+    public void recordStatusChange(Booking booking, BookingStatus previousStatus) {
+        if (previousStatus == booking.getStatus()) {
+            return;
+        }
+        apply(Contribution.of(booking, previousStatus), -1);
+        apply(Contribution.of(booking), 1);
+    }
+
+    /**
+     * Edición directa de una reserva: resta su aportación anterior (tomada antes
+     * de guardar) y suma la actual
+     */
+    @Transactional
+    public void recordEdited(Contribution previous, Booking updated) {
+        Contribution current = Contribution.of(updated);
+        if (current != null && current.equals(previous)) {
+            return;
+        }
+        apply(previous, -1);
+        apply(current, 1);
+    }
+
+    /**
+     * Borrado directo de una reserva
+     */
+    @Transactional
+    public void recordRemoved(Contribution previous) {
+        apply(previous, -1);
+    }
+
+    private void apply(Contribution contribution, int sign) {
+        if (!rollupEnabled || contribution == null) {
+            return;
+        }
+        rollupRepository.upsert(
+                contribution.restaurantId(),
+                contribution.createdDate(),
+                contribution.bookingDate(),
+                contribution.bookingHour(),
+                contribution.status().name(),
+                sign,
+                sign * contribution.guests()
+        );
+    }
+
+    /**
+     * Reconstruye el agregado de las reservas creadas en un rango de días
+     */
+    @Transactional
+    public int rebuild(LocalDate startDate, LocalDate endDate) {
+        rollupRepository.deleteByCreatedDateBetween(startDate, endDate);
+        return rollupRepository.insertFromBookings(startDate, endDate);
+    }
+
+    /**
+     * Reconstruye el agregado completo desde la tabla booking
+     */
+    @Transactional
+    public int rebuildAll() {
+        rollupRepository.deleteAllRows();
+        int rows = rollupRepository.insertAllFromBookings();
+        ready = true;
+        log.info("Agregado de reservas reconstruido: {} filas", rows);
+        return rows;
+    }
+
+    /**
+     * Backfill inicial si el agregado no cuadra con la tabla booking
+     * (reservas y personas por estado). Solo queda listo tras comprobarlo o reconstruirlo.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (!rollupEnabled) {
+            return;
+        }
+        try {
+            if (!totalsByStatus(rollupRepository.sumRollupByStatus())
+                    .equals(totalsByStatus(rollupRepository.sumBookingsByStatus()))) {
+                log.info("Agregado de reservas desactualizado: reconstruyendo");
+                transactionTemplate.executeWithoutResult(status -> rebuildAll());
+            }
+            ready = true;
+        } catch (Exception e) {
+            log.error("Error en backfill del agregado de reservas: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Filas [status, reservas, personas] a mapa status -> [reservas, personas]
+     */
+    private static Map<String, List<Long>> totalsByStatus(List<Object[]> rows) {
+        Map<String, List<Long>> totals = new HashMap<>();
+        for (Object[] row : rows) {
+            long bookings = ((Number) row[1]).longValue();
+            long guests = ((Number) row[2]).longValue();
+            if (bookings != 0 || guests != 0) {
+                totals.put(String.valueOf(row[0]), List.of(bookings, guests));
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Reconciliación nocturna de los últimos días (ediciones directas, fallos, etc.)
+     */
+    @Scheduled(cron = "0 30 3 * * *")  // 3:30 AM todos los días
+    public void reconcileRecentDays() {
+        if (!rollupEnabled) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        Integer rows = transactionTemplate.execute(status -> rebuild(today.minusDays(RECONCILE_DAYS), today));
+        log.info("Agregado de reservas reconciliado: {} filas de los últimos {} días", rows, RECONCILE_DAYS);
+    }
+}
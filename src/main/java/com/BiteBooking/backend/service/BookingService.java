@@ -1,5 +1,7 @@
 package com.BiteBooking.backend.service;
 
+import com.BiteBooking.backend.dto.BookingPageDTO;
+import com.BiteBooking.backend.dto.BookingSummaryDTO;
 import com.BiteBooking.backend.exception.UnauthorizedException;
 import com.BiteBooking.backend.model.*;
 import com.BiteBooking.backend.repository.BookingRepository;
@@ -7,6 +9,7 @@ import com.BiteBooking.backend.repository.RestaurantRepository;
 import com.BiteBooking.backend.security.SecurityUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,15 +17,22 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.function.BiFunction;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class BookingService {
 
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
     private final BookingRepository bookingRepository;
     private final RestaurantRepository restaurantRepository;
     private final AvailabilityService availabilityService;
+    private final CapacityLedger capacityLedger;
+    private final BookingRollupService bookingRollupService;
+    private final NotificationOutboxService notificationOutboxService;
 
     /**
      * Crear una nueva reserva
@@ -65,6 +75,15 @@ public class BookingService {
         if (capacityError != null) {
             throw new IllegalArgumentException(capacityError);
         }
+
+        // Reservar plazas de forma atómica antes de insertar (evita overbooking concurrente,
+        // también del aforo total entre slots vecinos que se solapan)
+        CapacityLedger.Limits limits = availabilityService.getCapacityLimits(restaurant.getId(), booking.getBookingDate());
+        if (!capacityLedger.tryReserve(restaurant.getId(), booking.getBookingDate(),
+                booking.getBookingTime(), numPeople, limits)) {
+            throw new IllegalArgumentException("No hay suficiente capacidad para " + numPeople +
+                    " personas a las " + booking.getBookingTime());
+        }
         
         // Inicializar campos de notificación
         booking.setReminderSent(false);
@@ -73,7 +92,11 @@ public class BookingService {
         log.info("Nueva reserva creada: {} personas para {} a las {}", 
                 booking.getNumPeople(), booking.getBookingDate(), booking.getBookingTime());
         
-        return bookingRepository.save(booking);
+        Booking saved = bookingRepository.save(booking);
+        bookingRollupService.recordCreated(saved);
+        notificationOutboxService.record(saved, NotificationType.BOOKING_CREATED);
+        notificationOutboxService.record(saved, NotificationType.RESTAURANT_NEW_BOOKING);
+        return saved;
     }
 
     /**
@@ -82,15 +105,18 @@ public class BookingService {
     @Transactional
     public Booking confirmBooking(Long bookingId) {
         Booking booking = getBookingWithPermission(bookingId, true);
+        BookingStatus previousStatus = booking.getStatus();
         
         if (booking.getStatus() != BookingStatus.PENDING) {
             throw new IllegalStateException("Solo se pueden confirmar reservas pendientes");
         }
         
         booking.setStatus(BookingStatus.CONFIRMED);
+        booking.setConfirmationSent(true);
+        notificationOutboxService.record(booking, NotificationType.BOOKING_CONFIRMED);
         log.info("Reserva {} confirmada", bookingId);
         
-        return bookingRepository.save(booking);
+        return saveWithStatusChange(booking, previousStatus);
     }
 
     /**
@@ -99,6 +125,7 @@ public class BookingService {
     @Transactional
     public Booking rejectBooking(Long bookingId, String reason) {
         Booking booking = getBookingWithPermission(bookingId, true);
+        BookingStatus previousStatus = booking.getStatus();
         
         if (booking.getStatus() != BookingStatus.PENDING) {
             throw new IllegalStateException("Solo se pueden rechazar reservas pendientes");
@@ -106,9 +133,11 @@ public class BookingService {
         
         booking.setStatus(BookingStatus.REJECTED);
         booking.setCancellationReason(reason);
+        releaseSeats(booking);
+        notificationOutboxService.record(booking, NotificationType.BOOKING_REJECTED);
         log.info("Reserva {} rechazada: {}", bookingId, reason);
         
-        return bookingRepository.save(booking);
+        return saveWithStatusChange(booking, previousStatus);
     }
 
     /**
@@ -117,17 +146,22 @@ public class BookingService {
     @Transactional
     public Booking cancelBooking(Long bookingId, String reason) {
         Booking booking = getBookingWithPermission(bookingId, false);
+        BookingStatus previousStatus = booking.getStatus();
         
         if (booking.getStatus() == BookingStatus.COMPLETED || 
             booking.getStatus() == BookingStatus.CANCELLED) {
             throw new IllegalStateException("No se puede cancelar esta reserva");
         }
         
+        if (booking.getStatus() == BookingStatus.PENDING || booking.getStatus() == BookingStatus.CONFIRMED) {
+            releaseSeats(booking);
+        }
         booking.setStatus(BookingStatus.CANCELLED);
         booking.setCancellationReason(reason);
+        notificationOutboxService.record(booking, NotificationType.BOOKING_CANCELLED);
         log.info("Reserva {} cancelada: {}", bookingId, reason);
         
-        return bookingRepository.save(booking);
+        return saveWithStatusChange(booking, previousStatus);
     }
 
     /**
@@ -136,15 +170,17 @@ public class BookingService {
     @Transactional
     public Booking completeBooking(Long bookingId) {
         Booking booking = getBookingWithPermission(bookingId, true);
+        BookingStatus previousStatus = booking.getStatus();
         
         if (booking.getStatus() != BookingStatus.CONFIRMED) {
             throw new IllegalStateException("Solo se pueden completar reservas confirmadas");
         }
         
         booking.setStatus(BookingStatus.COMPLETED);
+        releaseSeats(booking);
         log.info("Reserva {} completada", bookingId);
         
-        return bookingRepository.save(booking);
+        return saveWithStatusChange(booking, previousStatus);
     }
 
     /**
@@ -153,15 +189,17 @@ public class BookingService {
     @Transactional
     public Booking markNoShow(Long bookingId) {
         Booking booking = getBookingWithPermission(bookingId, true);
+        BookingStatus previousStatus = booking.getStatus();
         
         if (booking.getStatus() != BookingStatus.CONFIRMED) {
             throw new IllegalStateException("Solo se pueden marcar como no-show reservas confirmadas");
         }
         
         booking.setStatus(BookingStatus.NO_SHOW);
+        releaseSeats(booking);
         log.info("Reserva {} marcada como no-show", bookingId);
         
-        return bookingRepository.save(booking);
+        return saveWithStatusChange(booking, previousStatus);
     }
 
     /**
@@ -215,8 +253,79 @@ public class BookingService {
         return bookingRepository.findUpcomingConfirmed(restaurantId, LocalDate.now());
     }
 
+    // ==================== LISTADOS PAGINADOS ====================
+
+    /**
+     * Página de todas las reservas, ordenadas por fecha, hora e id
+     */
+    public BookingPageDTO getBookingPage(String cursor, int size) {
+        return toPage(size, (after, limit) -> after == null
+                ? bookingRepository.findSummaryPage(limit)
+                : bookingRepository.findSummaryPageAfter(after.date(), after.time(), after.id(), limit),
+                cursor);
+    }
+
+    /**
+     * Página de reservas de un restaurante
+     */
+    public BookingPageDTO getRestaurantBookingPage(Long restaurantId, String cursor, int size) {
+        return toPage(size, (after, limit) -> after == null
+                ? bookingRepository.findSummaryPageByRestaurant(restaurantId, limit)
+                : bookingRepository.findSummaryPageByRestaurantAfter(restaurantId, after.date(), after.time(), after.id(), limit),
+                cursor);
+    }
+
+    /**
+     * Página de reservas de un usuario
+     */
+    public BookingPageDTO getUserBookingPage(Long userId, String cursor, int size) {
+        return toPage(size, (after, limit) -> after == null
+                ? bookingRepository.findSummaryPageByUser(userId, limit)
+                : bookingRepository.findSummaryPageByUserAfter(userId, after.date(), after.time(), after.id(), limit),
+                cursor);
+    }
+
     // ==================== MÉTODOS PRIVADOS ====================
 
+    /**
+     * Pide una fila de más para saber si existe una página siguiente
+     */
+    private BookingPageDTO toPage(int size, BiFunction<BookingCursor, Limit, List<BookingSummaryDTO>> finder,
+                                  String cursor) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("El tamaño de página debe estar entre 1 y " + MAX_PAGE_SIZE);
+        }
+        BookingCursor after = (cursor == null || cursor.isBlank()) ? null : BookingCursor.decode(cursor);
+
+        List<BookingSummaryDTO> rows = finder.apply(after, Limit.of(size + 1));
+        boolean hasMore = rows.size() > size;
+        List<BookingSummaryDTO> items = hasMore ? rows.subList(0, size) : rows;
+
+        return BookingPageDTO.builder()
+                .items(items)
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? BookingCursor.of(items.get(items.size() - 1)).encode() : null)
+                .build();
+    }
+
+    /**
+     * Guarda el cambio de estado y actualiza el agregado diario de analytics
+     */
+    private Booking saveWithStatusChange(Booking booking, BookingStatus previousStatus) {
+        Booking saved = bookingRepository.save(booking);
+        bookingRollupService.recordStatusChange(saved, previousStatus);
+        return saved;
+    }
+
+    /**
+     * Devuelve las plazas al libro de capacidad cuando la reserva deja de ocuparlas
+     */
+    private void releaseSeats(Booking booking) {
+        int numPeople = booking.getNumPeople() != null ? booking.getNumPeople() : 1;
+        capacityLedger.releaseAfterCommit(booking.getRestaurant().getId(), booking.getBookingDate(),
+                booking.getBookingTime(), numPeople);
+    }
+
     private Booking getBookingWithPermission(Long bookingId, boolean restaurantOnly) {
         Booking booking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new NoSuchElementException("Reserva no encontrada"));
@@ -0,0 +1,247 @@
+package com.BiteBooking.backend.service;
+
+import com.BiteBooking.backend.repository.BookingRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.BiteBooking.backend.service.SlotOccupancy.MINUTES_PER_DAY;
+
+/**
+ * Libro de capacidad en memoria por restaurante/fecha/slot.
+ * Reserva plazas de forma atómica antes de insertar la reserva,
+ * evitando que dos peticiones concurrentes vendan las mismas plazas.
+ *
+ * Si hay aforo total (Limits.maxSeats) la comprobación incluye, en el mismo
+ * paso atómico, las personas sentadas durante toda la duración de la reserva,
+ * de modo que dos reservas en slots vecinos que se solapan no lo superan.
+ *
+ * Cada día de un restaurante se carga desde BookingRepository la primera vez
+ * que se usa y separa las plazas confirmadas en BD de las reservadas por
+ * transacciones que aún no han terminado. Así, al recargar el día desde la BD
+ * (ediciones directas) las reservas en curso no se pierden.
+ *
+ * Válido para una sola instancia de la aplicación: con varias instancias cada
+ * una tiene su propio libro y dos reservas simultáneas en instancias distintas
+ * pueden superar la capacidad.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CapacityLedger {
+
+    private final BookingRepository bookingRepository;
+
+    private final Map<DayKey, DayLedger> days = new ConcurrentHashMap<>();
+
+    record DayKey(Long restaurantId, LocalDate date) {
+    }
+
+    /**
+     * Límites de capacidad de un día (ver AvailabilityService.getCapacityLimits)
+     *
+     * @param maxSeats        aforo total simultáneo, o null si no aplica
+     * @param durationMinutes duración de cada reserva para el aforo total
+     */
+    public record Limits(int maxPerSlot, Integer maxSeats, int durationMinutes) {
+
+        public static Limits perSlot(int maxPerSlot) {
+            return new Limits(maxPerSlot, null, 1);
+        }
+    }
+
+    /**
+     * Personas por minuto de un día. Todos los accesos se sincronizan sobre la instancia.
+     */
+    private static final class DayLedger {
+        // Reservas confirmadas en BD
+        private final int[] committed = new int[MINUTES_PER_DAY];
+        // Reservas de transacciones en curso (aún no visibles en BD)
+        private final int[] inFlight = new int[MINUTES_PER_DAY];
+        private int inFlightCount;
+        private boolean loaded;
+        private boolean evicted;
+
+        private int arrivalsAt(int minute) {
+            return committed[minute] + inFlight[minute];
+        }
+
+        /**
+         * Máximo de personas sentadas en [start, start + duración): cada reserva
+         * ocupa mesa desde su llegada durante la duración (igual que OverlapCapacity)
+         */
+        private int maxSeatedDuring(int start, int duration) {
+            int seated = 0;
+            for (int minute = Math.max(0, start - duration + 1); minute <= start; minute++) {
+                seated += arrivalsAt(minute);
+            }
+            int max = seated;
+            int end = Math.min(start + duration, MINUTES_PER_DAY);
+            for (int minute = start + 1; minute < end; minute++) {
+                seated += arrivalsAt(minute);
+                if (minute - duration >= 0) {
+                    seated -= arrivalsAt(minute - duration);
+                }
+                max = Math.max(max, seated);
+            }
+            return max;
+        }
+    }
+
+    /**
+     * Intenta reservar plazas en un slot. Si hay una transacción activa las
+     * plazas quedan en curso hasta que termina: al confirmar pasan a reservadas
+     * y si se revierte se liberan.
+     *
+     * @return true si había capacidad y las plazas quedaron reservadas
+     */
+    public boolean tryReserve(Long restaurantId, LocalDate date, LocalTime time, int numPeople, int maxPerSlot) {
+        return tryReserve(restaurantId, date, time, numPeople, Limits.perSlot(maxPerSlot));
+    }
+
+    /**
+     * Intenta reservar plazas comprobando la capacidad del slot y, si hay
+     * aforo total, las personas sentadas durante toda la reserva.
+     */
+    public boolean tryReserve(Long restaurantId, LocalDate date, LocalTime time, int numPeople, Limits limits) {
+        int duration = Math.max(1, Math.min(limits.durationMinutes(), MINUTES_PER_DAY));
+        int minute = SlotOccupancy.minuteOfDay(time);
+        boolean transactional = TransactionSynchronizationManager.isSynchronizationActive();
+        DayLedger day;
+        while (true) {
+            day = day(restaurantId, date);
+            synchronized (day) {
+                if (day.evicted) {
+                    continue;
+                }
+                load(day, restaurantId, date);
+                if (day.arrivalsAt(minute) + numPeople > limits.maxPerSlot()) {
+                    return false;
+                }
+                if (limits.maxSeats() != null && day.maxSeatedDuring(minute, duration) + numPeople > limits.maxSeats()) {
+                    return false;
+                }
+                if (transactional) {
+                    day.inFlight[minute] += numPeople;
+                    day.inFlightCount++;
+                } else {
+                    day.committed[minute] += numPeople;
+                }
+                break;
+            }
+        }
+
+        if (transactional) {
+            DayLedger reserved = day;
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    synchronized (reserved) {
+                        reserved.inFlight[minute] -= numPeople;
+                        reserved.inFlightCount--;
+                        if (status == STATUS_COMMITTED) {
+                            reserved.committed[minute] += numPeople;
+                        }
+                    }
+                }
+            });
+        }
+        return true;
+    }
+
+    /**
+     * Libera plazas de un slot (cancelación, rechazo, etc.)
+     */
+    public void release(Long restaurantId, LocalDate date, LocalTime time, int numPeople) {
+        DayLedger day = days.get(new DayKey(restaurantId, date));
+        if (day == null) {
+            return;
+        }
+        int minute = SlotOccupancy.minuteOfDay(time);
+        synchronized (day) {
+            if (day.loaded) {
+                day.committed[minute] = Math.max(0, day.committed[minute] - numPeople);
+            }
+        }
+    }
+
+    /**
+     * Libera plazas cuando la transacción actual confirma (o de inmediato si no hay transacción)
+     */
+    public void releaseAfterCommit(Long restaurantId, LocalDate date, LocalTime time, int numPeople) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            release(restaurantId, date, time, numPeople);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                release(restaurantId, date, time, numPeople);
+            }
+        });
+    }
+
+    /**
+     * Vuelve a cargar desde la BD las plazas confirmadas de un día
+     * (ediciones o borrados de reservas fuera de BookingService).
+     * Las reservas en curso se conservan; si una confirma mientras se recarga
+     * puede contarse dos veces hasta la siguiente recarga (por exceso, nunca por defecto).
+     */
+    public void invalidate(Long restaurantId, LocalDate date) {
+        DayLedger day = days.get(new DayKey(restaurantId, date));
+        if (day == null) {
+            return;
+        }
+        synchronized (day) {
+            if (day.loaded) {
+                day.loaded = false;
+                load(day, restaurantId, date);
+            }
+        }
+    }
+
+    /**
+     * Limpieza diaria de fechas pasadas (sin reservas en curso)
+     */
+    @Scheduled(cron = "0 0 3 * * *")  // 3:00 AM todos los días
+    public void evictPastDates() {
+        LocalDate today = LocalDate.now();
+        int before = days.size();
+        days.entrySet().removeIf(entry -> {
+            if (!entry.getKey().date().isBefore(today)) {
+                return false;
+            }
+            DayLedger day = entry.getValue();
+            synchronized (day) {
+                day.evicted = day.inFlightCount == 0;
+                return day.evicted;
+            }
+        });
+        log.info("Libro de capacidad: {} días pasados eliminados", before - days.size());
+    }
+
+    private DayLedger day(Long restaurantId, LocalDate date) {
+        return days.computeIfAbsent(new DayKey(restaurantId, date), key -> new DayLedger());
+    }
+
+    /**
+     * Carga las plazas confirmadas del día en una consulta agrupada (con el monitor del día tomado)
+     */
+    private void load(DayLedger day, Long restaurantId, LocalDate date) {
+        if (day.loaded) {
+            return;
+        }
+        int[] arrivals = SlotOccupancy.fromRows(bookingRepository.sumBookedPeopleByTime(restaurantId, date))
+                .arrivalsByMinute();
+        System.arraycopy(arrivals, 0, day.committed, 0, MINUTES_PER_DAY);
+        day.loaded = true;
+    }
+}
@@ -1,28 +1,27 @@
 package com.BiteBooking.backend.service;
 
 import com.BiteBooking.backend.model.Booking;
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
+import com.BiteBooking.backend.service.MailDispatcher.OutboundMail;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.time.format.DateTimeFormatter;
 import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
 
+/**
+ * Construye los emails de reservas y los encola en MailDispatcher.
+ * Los métodos no bloquean: devuelven un future que se completa cuando el
+ * servidor SMTP acepta el mensaje.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EmailService {
 
-    private final JavaMailSender mailSender;
-
-    @Value("${app.email.from:noreply@bitebooking.com}")
-    private String fromEmail;
+    private final MailDispatcher mailDispatcher;
 
     @Value("${app.email.enabled:false}")
     private boolean emailEnabled;
@@ -31,169 +30,189 @@ public class EmailService {
     private String frontendUrl;
 
     private static final DateTimeFormatter DATE_FORMATTER = 
-        DateTimeFormatter.ofPattern("EEEE, d 'de' MMMM 'de' yyyy", new Locale("es", "ES"));
+        DateTimeFormatter.ofPattern("EEEE, d 'de' MMMM 'de' yyyy", Locale.of("es", "ES"));
     private static final DateTimeFormatter TIME_FORMATTER = 
         DateTimeFormatter.ofPattern("HH:mm");
 
-    @Async
-    public void sendBookingConfirmation(Booking booking) {
+    // Plantillas precompiladas (src/main/resources/templates/email) y sus huecos
+    private static final EmailTemplate BOOKING_TEMPLATE = EmailTemplate.fromClasspath("templates/email/booking.html");
+    private static final int B_TITLE = BOOKING_TEMPLATE.slot("title");
+    private static final int B_MESSAGE = BOOKING_TEMPLATE.slot("message");
+    private static final int B_RESTAURANT = BOOKING_TEMPLATE.slot("restaurant");
+    private static final int B_DATE = BOOKING_TEMPLATE.slot("date");
+    private static final int B_TIME = BOOKING_TEMPLATE.slot("time");
+    private static final int B_PEOPLE = BOOKING_TEMPLATE.slot("people");
+    private static final int B_ADDRESS = BOOKING_TEMPLATE.slot("address");
+    private static final int B_ACTION_URL = BOOKING_TEMPLATE.slot("actionUrl");
+    private static final int B_ACTION_TEXT = BOOKING_TEMPLATE.slot("actionText");
+
+    private static final EmailTemplate RESTAURANT_TEMPLATE =
+        EmailTemplate.fromClasspath("templates/email/restaurant-booking.html");
+    private static final int R_CUSTOMER_NAME = RESTAURANT_TEMPLATE.slot("customerName");
+    private static final int R_CUSTOMER_EMAIL = RESTAURANT_TEMPLATE.slot("customerEmail");
+    private static final int R_PHONE = RESTAURANT_TEMPLATE.slot("phone");
+    private static final int R_DATE = RESTAURANT_TEMPLATE.slot("date");
+    private static final int R_TIME = RESTAURANT_TEMPLATE.slot("time");
+    private static final int R_PEOPLE = RESTAURANT_TEMPLATE.slot("people");
+    private static final int R_OBSERVATIONS = RESTAURANT_TEMPLATE.slot("observations");
+    private static final int R_DASHBOARD_URL = RESTAURANT_TEMPLATE.slot("dashboardUrl");
+
+    public CompletableFuture<Void> sendBookingConfirmation(Booking booking) {
         if (!emailEnabled) {
             log.info("Email deshabilitado - saltando confirmacion para reserva {}", booking.getId());
-            return;
+            return CompletableFuture.completedFuture(null);
         }
         try {
             String subject = "Reserva confirmada en " + booking.getRestaurant().getName();
             String html = buildConfirmationEmail(booking);
-            sendHtmlEmail(booking.getUser().getEmail(), subject, html);
-            log.info("Email de confirmacion enviado para reserva {}", booking.getId());
+            return enqueue(booking.getUser().getEmail(), subject, html,
+                    "email de confirmacion de la reserva " + booking.getId());
         } catch (Exception e) {
-            log.error("Error enviando email de confirmacion: {}", e.getMessage());
+            log.error("Error preparando email de confirmacion: {}", e.getMessage());
+            return CompletableFuture.failedFuture(e);
         }
     }
 
-    @Async
-    public void sendNewBookingNotification(Booking booking) {
-        if (!emailEnabled) return;
+    public CompletableFuture<Void> sendNewBookingNotification(Booking booking) {
+        if (!emailEnabled) return CompletableFuture.completedFuture(null);
         try {
             String subject = "Reserva recibida - " + booking.getRestaurant().getName();
             String html = buildNewBookingEmail(booking);
-            sendHtmlEmail(booking.getUser().getEmail(), subject, html);
-            log.info("Email de nueva reserva enviado para reserva {}", booking.getId());
+            return enqueue(booking.getUser().getEmail(), subject, html,
+                    "email de nueva reserva " + booking.getId());
         } catch (Exception e) {
-            log.error("Error enviando email de nueva reserva: {}", e.getMessage());
+            log.error("Error preparando email de nueva reserva: {}", e.getMessage());
+            return CompletableFuture.failedFuture(e);
         }
     }
 
-    @Async
-    public void sendBookingReminder(Booking booking) {
-        if (!emailEnabled) return;
+    public CompletableFuture<Void> sendBookingReminder(Booking booking) {
+        if (!emailEnabled) return CompletableFuture.completedFuture(null);
         try {
             String subject = "Recordatorio: Reserva manana en " + booking.getRestaurant().getName();
             String html = buildReminderEmail(booking);
-            sendHtmlEmail(booking.getUser().getEmail(), subject, html);
-            log.info("Recordatorio enviado para reserva {}", booking.getId());
+            return enqueue(booking.getUser().getEmail(), subject, html,
+                    "recordatorio de la reserva " + booking.getId());
         } catch (Exception e) {
-            log.error("Error enviando recordatorio: {}", e.getMessage());
+            log.error("Error preparando recordatorio: {}", e.getMessage());
+            return CompletableFuture.failedFuture(e);
         }
     }
 
-    @Async
-    public void sendCancellationNotification(Booking booking) {
-        if (!emailEnabled) return;
+    public CompletableFuture<Void> sendCancellationNotification(Booking booking) {
+        if (!emailEnabled) return CompletableFuture.completedFuture(null);
         try {
             String subject = "Reserva cancelada - " + booking.getRestaurant().getName();
             String html = buildCancellationEmail(booking);
-            sendHtmlEmail(booking.getUser().getEmail(), subject, html);
-            log.info("Email de cancelacion enviado para reserva {}", booking.getId());
+            return enqueue(booking.getUser().getEmail(), subject, html,
+                    "email de cancelacion de la reserva " + booking.getId());
+        } catch (Exception e) {
+            log.error("Error preparando email de cancelacion: {}", e.getMessage());
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    public CompletableFuture<Void> sendRejectionNotification(Booking booking) {
+        if (!emailEnabled) return CompletableFuture.completedFuture(null);
+        try {
+            String subject = "Reserva no aceptada - " + booking.getRestaurant().getName();
+            String html = buildRejectionEmail(booking);
+            return enqueue(booking.getUser().getEmail(), subject, html,
+                    "email de rechazo de la reserva " + booking.getId());
         } catch (Exception e) {
-            log.error("Error enviando email de cancelacion: {}", e.getMessage());
+            log.error("Error preparando email de rechazo: {}", e.getMessage());
+            return CompletableFuture.failedFuture(e);
         }
     }
 
-    @Async
-    public void sendRestaurantNotification(Booking booking) {
-        if (!emailEnabled) return;
+    public CompletableFuture<Void> sendRestaurantNotification(Booking booking) {
+        if (!emailEnabled) return CompletableFuture.completedFuture(null);
         String restaurantEmail = booking.getRestaurant().getOwner() != null ? 
                 booking.getRestaurant().getOwner().getEmail() : null;
         if (restaurantEmail == null) {
             log.warn("Restaurante {} no tiene email de propietario", booking.getRestaurant().getId());
-            return;
+            return CompletableFuture.completedFuture(null);
         }
         try {
             String subject = "Nueva reserva para " + booking.getRestaurant().getName();
             String html = buildRestaurantNotificationEmail(booking);
-            sendHtmlEmail(restaurantEmail, subject, html);
-            log.info("Notificacion enviada al restaurante para reserva {}", booking.getId());
+            return enqueue(restaurantEmail, subject, html,
+                    "notificacion al restaurante de la reserva " + booking.getId());
         } catch (Exception e) {
-            log.error("Error enviando notificacion al restaurante: {}", e.getMessage());
+            log.error("Error preparando notificacion al restaurante: {}", e.getMessage());
+            return CompletableFuture.failedFuture(e);
         }
     }
 
-    private String buildConfirmationEmail(Booking booking) {
+    String buildConfirmationEmail(Booking booking) {
         return buildEmailTemplate("Reserva Confirmada", "Tu reserva ha sido confirmada.", booking,
             frontendUrl + "/mis-reservas", "Ver mis reservas");
     }
 
-    private String buildNewBookingEmail(Booking booking) {
+    String buildNewBookingEmail(Booking booking) {
         return buildEmailTemplate("Reserva Recibida", "Hemos recibido tu reserva. Te confirmaremos pronto.", booking,
             frontendUrl + "/mis-reservas", "Ver mis reservas");
     }
 
-    private String buildReminderEmail(Booking booking) {
+    String buildReminderEmail(Booking booking) {
         return buildEmailTemplate("Recordatorio", "Te recordamos que manana tienes una reserva.", booking,
             frontendUrl + "/mis-reservas", "Ver detalles");
     }
 
-    private String buildCancellationEmail(Booking booking) {
+    String buildCancellationEmail(Booking booking) {
         String reason = booking.getCancellationReason() != null ? 
             " Motivo: " + booking.getCancellationReason() : "";
         return buildEmailTemplate("Reserva Cancelada", "Tu reserva ha sido cancelada." + reason, booking,
             frontendUrl + "/restaurantes/" + booking.getRestaurant().getId(), "Reservar de nuevo");
     }
 
-    private String buildRestaurantNotificationEmail(Booking booking) {
+    String buildRejectionEmail(Booking booking) {
+        String reason = booking.getCancellationReason() != null ?
+            " Motivo: " + booking.getCancellationReason() : "";
+        return buildEmailTemplate("Reserva No Aceptada",
+            "Lo sentimos, el restaurante no ha podido aceptar tu reserva." + reason, booking,
+            frontendUrl + "/restaurantes/" + booking.getRestaurant().getId(), "Buscar otra hora");
+    }
+
+    String buildRestaurantNotificationEmail(Booking booking) {
         String customerName = booking.getUser().getFirstName() + " " + 
             (booking.getUser().getLastName() != null ? booking.getUser().getLastName() : "");
-        String phoneHtml = booking.getContactPhone() != null ? 
-            "<p><strong>Telefono:</strong> " + booking.getContactPhone() + "</p>" : "";
-        String obsHtml = booking.getObservations() != null ? 
-            "<p><strong>Observaciones:</strong> " + booking.getObservations() + "</p>" : "";
-
-        StringBuilder sb = new StringBuilder();
-        sb.append("<!DOCTYPE html><html><head><meta charset='UTF-8'></head>");
-        sb.append("<body style='font-family: Arial, sans-serif; max-width: 600px; margin: 0 auto; padding: 20px;'>");
-        sb.append("<div style='background: linear-gradient(135deg, #11998e 0%, #38ef7d 100%); color: white; padding: 20px; border-radius: 10px 10px 0 0; text-align: center;'>");
-        sb.append("<h1>Nueva Reserva</h1></div>");
-        sb.append("<div style='background: #f8f9fa; padding: 20px; border-radius: 0 0 10px 10px;'>");
-        sb.append("<h3>Cliente</h3>");
-        sb.append("<p><strong>Nombre:</strong> ").append(customerName).append("</p>");
-        sb.append("<p><strong>Email:</strong> ").append(booking.getUser().getEmail()).append("</p>");
-        sb.append(phoneHtml);
-        sb.append("<h3>Detalles</h3>");
-        sb.append("<p><strong>Fecha:</strong> ").append(booking.getBookingDate().format(DATE_FORMATTER)).append("</p>");
-        sb.append("<p><strong>Hora:</strong> ").append(booking.getBookingTime().format(TIME_FORMATTER)).append("</p>");
-        sb.append("<p><strong>Personas:</strong> ").append(booking.getNumPeople()).append("</p>");
-        sb.append(obsHtml);
-        sb.append("<div style='text-align: center; margin-top: 20px;'>");
-        sb.append("<a href='").append(frontendUrl).append("/dashboard/reservas' style='background: #11998e; color: white; padding: 12px 30px; text-decoration: none; border-radius: 25px; display: inline-block;'>Gestionar reservas</a>");
-        sb.append("</div></div></body></html>");
-        return sb.toString();
+
+        String[] values = new String[RESTAURANT_TEMPLATE.slotCount()];
+        values[R_CUSTOMER_NAME] = customerName;
+        values[R_CUSTOMER_EMAIL] = booking.getUser().getEmail();
+        values[R_PHONE] = booking.getContactPhone();
+        values[R_DATE] = booking.getBookingDate().format(DATE_FORMATTER);
+        values[R_TIME] = booking.getBookingTime().format(TIME_FORMATTER);
+        values[R_PEOPLE] = String.valueOf(booking.getNumPeople());
+        values[R_OBSERVATIONS] = booking.getObservations();
+        values[R_DASHBOARD_URL] = frontendUrl + "/dashboard/reservas";
+        return RESTAURANT_TEMPLATE.render(values);
     }
 
     private String buildEmailTemplate(String title, String message, Booking booking, String actionUrl, String actionText) {
         String address = booking.getRestaurant().getAddress() != null ? 
             booking.getRestaurant().getAddress() : "No especificada";
 
-        StringBuilder sb = new StringBuilder();
-        sb.append("<!DOCTYPE html><html><head><meta charset='UTF-8'></head>");
-        sb.append("<body style='font-family: Arial, sans-serif; max-width: 600px; margin: 0 auto; padding: 20px;'>");
-        sb.append("<div style='background: linear-gradient(135deg, #667eea 0%, #764ba2 100%); color: white; padding: 20px; border-radius: 10px 10px 0 0; text-align: center;'>");
-        sb.append("<h1>BiteBooking</h1>");
-        sb.append("<p style='font-size: 18px;'>").append(title).append("</p></div>");
-        sb.append("<div style='background: #f8f9fa; padding: 20px; border-radius: 0 0 10px 10px;'>");
-        sb.append("<p>").append(message).append("</p>");
-        sb.append("<div style='background: white; padding: 15px; border-radius: 8px; margin: 20px 0;'>");
-        sb.append("<p><strong>Restaurante:</strong> ").append(booking.getRestaurant().getName()).append("</p>");
-        sb.append("<p><strong>Fecha:</strong> ").append(booking.getBookingDate().format(DATE_FORMATTER)).append("</p>");
-        sb.append("<p><strong>Hora:</strong> ").append(booking.getBookingTime().format(TIME_FORMATTER)).append("</p>");
-        sb.append("<p><strong>Personas:</strong> ").append(booking.getNumPeople()).append("</p>");
-        sb.append("<p><strong>Direccion:</strong> ").append(address).append("</p>");
-        sb.append("</div>");
-        sb.append("<div style='text-align: center; margin-top: 20px;'>");
-        sb.append("<a href='").append(actionUrl).append("' style='background: linear-gradient(135deg, #667eea 0%, #764ba2 100%); color: white; padding: 12px 30px; text-decoration: none; border-radius: 25px; display: inline-block;'>").append(actionText).append("</a>");
-        sb.append("</div></div>");
-        sb.append("<p style='text-align: center; color: #666; font-size: 12px; margin-top: 20px;'>2025 BiteBooking. Todos los derechos reservados.</p>");
-        sb.append("</body></html>");
-        return sb.toString();
+        String[] values = new String[BOOKING_TEMPLATE.slotCount()];
+        values[B_TITLE] = title;
+        values[B_MESSAGE] = message;
+        values[B_RESTAURANT] = booking.getRestaurant().getName();
+        values[B_DATE] = booking.getBookingDate().format(DATE_FORMATTER);
+        values[B_TIME] = booking.getBookingTime().format(TIME_FORMATTER);
+        values[B_PEOPLE] = String.valueOf(booking.getNumPeople());
+        values[B_ADDRESS] = address;
+        values[B_ACTION_URL] = actionUrl;
+        values[B_ACTION_TEXT] = actionText;
+        return BOOKING_TEMPLATE.render(values);
     }
 
-    private void sendHtmlEmail(String to, String subject, String htmlContent) throws MessagingException {
-        MimeMessage message = mailSender.createMimeMessage();
-        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-        helper.setFrom(fromEmail);
-        helper.setTo(to);
-        helper.setSubject(subject);
-        helper.setText(htmlContent, true);
-        mailSender.send(message);
+    private CompletableFuture<Void> enqueue(String to, String subject, String html, String description) {
+        return mailDispatcher.enqueue(new OutboundMail(to, subject, html, description))
+                .whenComplete((ignored, error) -> {
+                    if (error == null) {
+                        log.debug("Enviado {}", description);
+                    }
+                });
     }
 }
@@ -0,0 +1,196 @@
+package com.BiteBooking.backend.service;
+
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plantilla HTML precompilada para los emails.
+ *
+ * Se analiza una sola vez en tramos de texto estático y huecos:
+ * <ul>
+ *   <li>{{nombre}}: valor escapado para HTML (también en atributos)</li>
+ *   <li>{{#nombre}}...{{/nombre}}: bloque que solo se pinta si el valor no está vacío</li>
+ * </ul>
+ * Los saltos de línea del archivo y la indentación que los sigue se eliminan al
+ * compilar, de modo que la plantilla se puede escribir legible.
+ *
+ * Los huecos se resuelven a índices al compilar (slot) y render recibe los valores
+ * en un array, sin mapas por mensaje. El HTML se escribe en un StringBuilder por
+ * hilo que se reutiliza entre mensajes, dimensionado con el tamaño del texto estático.
+ */
+public final class EmailTemplate {
+
+    // Buffers mayores no se conservan entre mensajes
+    private static final int MAX_RETAINED_BUFFER = 64 * 1024;
+    private static final int VALUES_SIZE_HINT = 512;
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(8 * 1024));
+
+    private sealed interface Node permits Text, Value, Section {
+    }
+
+    private record Text(String text) implements Node {
+    }
+
+    private record Value(int slot) implements Node {
+    }
+
+    private record Section(int slot, Node[] body) implements Node {
+    }
+
+    private final Node[] nodes;
+    private final Map<String, Integer> slots;
+    private final int sizeHint;
+
+    private EmailTemplate(Node[] nodes, Map<String, Integer> slots, int staticLength) {
+        this.nodes = nodes;
+        this.slots = slots;
+        this.sizeHint = staticLength + VALUES_SIZE_HINT;
+    }
+
+    public static EmailTemplate compile(String source) {
+        Map<String, Integer> slots = new LinkedHashMap<>();
+        int[] position = {0};
+        int[] staticLength = {0};
+        Node[] nodes = parse(stripLineBreaks(source), position, null, slots, staticLength);
+        return new EmailTemplate(nodes, Map.copyOf(slots), staticLength[0]);
+    }
+
+    public static EmailTemplate fromClasspath(String location) {
+        try (InputStream in = new ClassPathResource(location).getInputStream()) {
+            return compile(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo cargar la plantilla " + location, e);
+        }
+    }
+
+    /**
+     * Índice del hueco con ese nombre (para el array de render)
+     */
+    public int slot(String name) {
+        Integer slot = slots.get(name);
+        if (slot == null) {
+            throw new IllegalArgumentException("La plantilla no tiene el hueco " + name);
+        }
+        return slot;
+    }
+
+    public int slotCount() {
+        return slots.size();
+    }
+
+    /**
+     * Pinta la plantilla. values[slot(nombre)] es el valor de cada hueco; null o
+     * vacío oculta los bloques {{#nombre}}.
+     */
+    public String render(String[] values) {
+        if (values.length != slots.size()) {
+            throw new IllegalArgumentException("Se esperaban " + slots.size() + " valores y hay " + values.length);
+        }
+        StringBuilder out = BUFFER.get();
+        out.setLength(0);
+        out.ensureCapacity(sizeHint);
+        write(nodes, values, out);
+        String html = out.toString();
+        if (out.capacity() > MAX_RETAINED_BUFFER) {
+            BUFFER.remove();
+        }
+        return html;
+    }
+
+    private static void write(Node[] nodes, String[] values, StringBuilder out) {
+        for (Node node : nodes) {
+            switch (node) {
+                case Text text -> out.append(text.text());
+                case Value value -> escape(values[value.slot()], out);
+                case Section section -> {
+                    String value = values[section.slot()];
+                    if (value != null && !value.isEmpty()) {
+                        write(section.body(), values, out);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Escapa &, <, >, " y ' (los atributos de las plantillas usan comillas simples)
+     */
+    static void escape(String value, StringBuilder out) {
+        if (value == null) {
+            return;
+        }
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            String entity = switch (value.charAt(i)) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> "&quot;";
+                case '\'' -> "&#39;";
+                default -> null;
+            };
+            if (entity != null) {
+                out.append(value, start, i).append(entity);
+                start = i + 1;
+            }
+        }
+        out.append(value, start, value.length());
+    }
+
+    private static Node[] parse(String source, int[] position, String closing,
+                                Map<String, Integer> slots, int[] staticLength) {
+        List<Node> nodes = new ArrayList<>();
+        while (position[0] < source.length()) {
+            int open = source.indexOf("{{", position[0]);
+            if (open < 0) {
+                addText(nodes, source.substring(position[0]), staticLength);
+                position[0] = source.length();
+                break;
+            }
+            addText(nodes, source.substring(position[0], open), staticLength);
+            int close = source.indexOf("}}", open + 2);
+            if (close < 0) {
+                throw new IllegalArgumentException("Hueco sin cerrar en la posición " + open);
+            }
+            String tag = source.substring(open + 2, close).trim();
+            position[0] = close + 2;
+
+            if (tag.startsWith("/")) {
+                if (!tag.substring(1).equals(closing)) {
+                    throw new IllegalArgumentException("Cierre inesperado {{" + tag + "}}");
+                }
+                return nodes.toArray(new Node[0]);
+            }
+            if (tag.startsWith("#")) {
+                String name = tag.substring(1);
+                int slot = slots.computeIfAbsent(name, key -> slots.size());
+                nodes.add(new Section(slot, parse(source, position, name, slots, staticLength)));
+            } else {
+                nodes.add(new Value(slots.computeIfAbsent(tag, key -> slots.size())));
+            }
+        }
+        if (closing != null) {
+            throw new IllegalArgumentException("Falta {{/" + closing + "}}");
+        }
+        return nodes.toArray(new Node[0]);
+    }
+
+    private static void addText(List<Node> nodes, String text, int[] staticLength) {
+        if (!text.isEmpty()) {
+            nodes.add(new Text(text));
+            staticLength[0] += text.length();
+        }
+    }
+
+    private static String stripLineBreaks(String source) {
+        return source.replaceAll("\\r?\\n[ \\t]*", "");
+    }
+}
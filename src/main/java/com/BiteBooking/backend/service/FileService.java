@@ -1,50 +1,262 @@
 package com.BiteBooking.backend.service;
 
 import com.BiteBooking.backend.exception.FileException;
+import com.BiteBooking.backend.repository.StoredBlobRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StringUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.MalformedURLException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
 import java.util.Arrays;
-import java.util.List;
-import java.util.UUID;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.regex.Pattern;
 
+/**
+ * Almacén de archivos subidos.
+ *
+ * Las subidas se guardan direccionadas por contenido: el nombre es el SHA-256
+ * del archivo y cada referencia suma 1 al refCount de su StoredBlob, así que la
+ * misma imagen subida varias veces ocupa un solo archivo. El hash se calcula
+ * mientras se copia el stream con un buffer fijo, sin cargar el archivo en memoria.
+ *
+ * Los archivos antiguos (nombre-UUID.ext) no tienen StoredBlob y se borran directamente.
+ */
 @Service
 @Slf4j
 public class FileService {
 
-    private static final List<String> ALLOWED_IMAGE_EXTENSIONS = Arrays.asList("jpg", "jpeg", "png", "gif", "webp");
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAGIC_LENGTH = 12;
+    private static final Pattern CONTENT_ADDRESSED_NAME = Pattern.compile("^[0-9a-f]{64}\\.[a-z0-9]+$");
 
+    private final ImageVariantService imageVariantService;
+    private final StoredBlobRepository storedBlobRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Path uploadPath;
+
+    public FileService(
+            ImageVariantService imageVariantService,
+            StoredBlobRepository storedBlobRepository,
+            TransactionTemplate transactionTemplate,
+            @Value("${file.upload-dir:uploads}") String uploadDir) {
+        this.imageVariantService = imageVariantService;
+        this.storedBlobRepository = storedBlobRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.uploadPath = Paths.get(uploadDir);
+    }
+
+    /**
+     * Formatos de imagen admitidos, reconocidos por sus primeros bytes
+     */
+    private enum ImageType {
+        JPEG("jpg", "image/jpeg"),
+        PNG("png", "image/png"),
+        GIF("gif", "image/gif"),
+        WEBP("webp", "image/webp");
+
+        private final String extension;
+        private final String contentType;
+
+        ImageType(String extension, String contentType) {
+            this.extension = extension;
+            this.contentType = contentType;
+        }
+
+        static ImageType sniff(byte[] header, int length) {
+            if (length >= 3 && (header[0] & 0xFF) == 0xFF && (header[1] & 0xFF) == 0xD8 && (header[2] & 0xFF) == 0xFF) {
+                return JPEG;
+            }
+            if (length >= 8 && startsWith(header, new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'})) {
+                return PNG;
+            }
+            if (length >= 6 && (startsWith(header, ascii("GIF87a")) || startsWith(header, ascii("GIF89a")))) {
+                return GIF;
+            }
+            if (length >= 12 && startsWith(header, ascii("RIFF"))
+                    && Arrays.equals(header, 8, 12, ascii("WEBP"), 0, 4)) {
+                return WEBP;
+            }
+            return null;
+        }
+
+        private static boolean startsWith(byte[] header, byte[] prefix) {
+            return Arrays.equals(header, 0, prefix.length, prefix, 0, prefix.length);
+        }
+
+        private static byte[] ascii(String value) {
+            return value.getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    /**
+     * Guarda el archivo y devuelve su nombre (sha256.ext). Si el contenido ya
+     * existía solo se añade una referencia.
+     */
     public String store(MultipartFile file) {
-        String newFileName = generateUniqueName(file);
+        if (file.isEmpty())
+            throw new FileException("Error al leer archivo");
+
+        Path temp = null;
         try {
-            Path uploadPath = Paths.get("uploads");
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
+            Files.createDirectories(uploadPath);
+            temp = Files.createTempFile(uploadPath, ".upload-", ".tmp");
+
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[BUFFER_SIZE];
+            byte[] header = new byte[MAGIC_LENGTH];
+            int headerLength = 0;
+            long size = 0;
+            try (InputStream in = file.getInputStream(); OutputStream out = Files.newOutputStream(temp)) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    if (headerLength < MAGIC_LENGTH) {
+                        int copied = Math.min(read, MAGIC_LENGTH - headerLength);
+                        System.arraycopy(buffer, 0, header, headerLength, copied);
+                        headerLength += copied;
+                    }
+                    digest.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                    size += read;
+                }
             }
-            Path filePath = uploadPath.resolve(newFileName);
-            try (InputStream inputStream = file.getInputStream()) {
-                Files.copy(inputStream, filePath, StandardCopyOption.REPLACE_EXISTING);
+
+            ImageType type = ImageType.sniff(header, headerLength);
+            String sha256 = HexFormat.of().formatHex(digest.digest());
+            String fileName = sha256 + "." + (type != null ? type.extension : "bin");
+            String contentType = type != null ? type.contentType : "application/octet-stream";
+            Path source = temp;
+            Path target = uploadPath.resolve(fileName);
+            long length = size;
+
+            // La fila de stored_blobs queda bloqueada hasta el commit: un release
+            // concurrente del mismo contenido no puede borrar el archivo a la vez
+            Boolean created = transactionTemplate.execute(status -> {
+                storedBlobRepository.addReference(sha256, fileName, contentType, length, LocalDateTime.now());
+                if (Files.exists(target)) {
+                    return false;
+                }
+                try {
+                    Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return true;
+            });
+
+            if (Boolean.TRUE.equals(created) && type != null) {
+                imageVariantService.submit(fileName);
             }
-            return newFileName;
-        } catch (IOException e) {
+            log.debug("Archivo {} guardado ({} bytes, nuevo: {})", fileName, length, created);
+            return fileName;
+        } catch (IOException | UncheckedIOException | NoSuchAlgorithmException e) {
             log.error("Error al leer/guardar archivo", e);
             throw new FileException("Error al guardar archivo");
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+
+    /**
+     * Quita una referencia a un archivo subido. Solo se borra del disco (con sus
+     * variantes) cuando ninguna entidad lo referencia ya, y siempre después del
+     * commit: si la transacción se revierte el archivo sigue en su sitio.
+     */
+    public void release(String fileName) {
+        if (!isContentAddressed(fileName)) {
+            delete(fileName);
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            storedBlobRepository.removeReference(fileName);
+            if (storedBlobRepository.deleteIfUnreferenced(fileName) > 0) {
+                deleteAfterCommit(fileName);
+            }
+        });
+    }
+
+    /**
+     * Quita la referencia de la imagen que una entidad deja de usar (sustituida o
+     * borrada). Los nombres antiguos o por defecto (avatar.png) no se tocan porque
+     * pueden estar compartidos sin recuento. Los errores solo se registran.
+     */
+    public void releaseStored(String fileName) {
+        if (fileName == null || !isContentAddressed(fileName)) {
+            return;
+        }
+        try {
+            release(fileName);
+        } catch (RuntimeException e) {
+            log.error("Error al liberar archivo: {}", fileName, e);
+        }
+    }
+
+    private void deleteAfterCommit(String fileName) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                deleteUnreferenced(fileName);
+            }
+        });
+    }
+
+    /**
+     * Borra el archivo si sigue sin blob. La consulta bloquea el nombre en
+     * stored_blobs: un store concurrente del mismo contenido o ya ha vuelto a
+     * crear el blob (y el archivo se conserva) o espera a que termine el borrado.
+     */
+    private void deleteUnreferenced(String fileName) {
+        TransactionTemplate requiresNew = new TransactionTemplate(
+                Objects.requireNonNull(transactionTemplate.getTransactionManager()));
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            requiresNew.executeWithoutResult(status -> {
+                if (storedBlobRepository.lockByFileName(fileName) > 0) {
+                    return;
+                }
+                try {
+                    Files.deleteIfExists(uploadPath.resolve(fileName));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                imageVariantService.delete(fileName);
+                log.info("Archivo eliminado: {}", fileName);
+            });
+        } catch (RuntimeException e) {
+            // El blob ya no existe: el archivo queda huérfano en disco pero nada lo referencia
+            log.error("Error al eliminar archivo: {}", fileName, e);
         }
     }
 
+    /**
+     * Nombre generado a partir del hash del contenido (nunca cambia de contenido)
+     */
+    public boolean isContentAddressed(String name) {
+        return CONTENT_ADDRESSED_NAME.matcher(name).matches();
+    }
+
     public Resource load(String name) {
-        Path file = Paths.get("uploads").resolve(name);
+        Path file = uploadPath.resolve(name);
         try {
             Resource resource = new UrlResource(file.toUri());
             if (!resource.exists() || !resource.isReadable())
@@ -56,10 +268,46 @@ public class FileService {
         }
     }
 
+    /**
+     * Ruta de un archivo subido, validando que no sale del directorio de subidas
+     */
+    public Path loadPath(String name) {
+        return resolveReadable(name)
+                .orElseThrow(() -> new FileException("Error al intentar cargar el archivo"));
+    }
+
+    /**
+     * Pide en segundo plano las variantes de un archivo que aún no las tiene
+     * (p. ej. subidas nombre-UUID.ext anteriores a las variantes)
+     */
+    public void requestMissingVariants(String name) {
+        imageVariantService.submitMissing(name);
+    }
+
+    /**
+     * Ruta de una variante de imagen, vacío si todavía no se ha generado
+     */
+    public Optional<Path> findVariantPath(String name, ImageVariant variant) {
+        return resolveReadable(variant.fileName(name));
+    }
+
+    private Optional<Path> resolveReadable(String name) {
+        Path root = uploadPath.toAbsolutePath().normalize();
+        Path file = root.resolve(name).normalize();
+        if (!file.startsWith(root) || !Files.isRegularFile(file) || !Files.isReadable(file))
+            return Optional.empty();
+
+        return Optional.of(file);
+    }
+
+    /**
+     * Borra un archivo sin tener en cuenta referencias (archivos nombre-UUID.ext)
+     */
     public void delete(String fileName) {
         try {
-            Path file = Paths.get("uploads").resolve(fileName);
+            Path file = uploadPath.resolve(fileName);
             Files.deleteIfExists(file);
+            imageVariantService.delete(fileName);
             log.info("Archivo eliminado: {}", fileName);
         } catch (IOException e) {
             log.error("Error al eliminar archivo: {}", fileName, e);
@@ -67,24 +315,32 @@ public class FileService {
         }
     }
 
+    /**
+     * Comprueba por los primeros bytes (no por la extensión) que el archivo
+     * es una imagen jpg, png, gif o webp
+     */
     public boolean isImage(MultipartFile file) {
-        String originalFileName = file.getOriginalFilename();
-        if (!StringUtils.hasLength(originalFileName)) {
+        if (file.isEmpty()) {
+            return false;
+        }
+        try (InputStream in = file.getInputStream()) {
+            byte[] header = in.readNBytes(MAGIC_LENGTH);
+            return ImageType.sniff(header, header.length) != null;
+        } catch (IOException e) {
+            log.warn("No se pudo leer la cabecera de {}", file.getOriginalFilename(), e);
             return false;
         }
-        String extension = StringUtils.getFilenameExtension(originalFileName);
-        return extension != null && ALLOWED_IMAGE_EXTENSIONS.contains(extension.toLowerCase());
     }
 
-    private String generateUniqueName(MultipartFile file) {
-        String originalFileName = file.getOriginalFilename();
-        if (!StringUtils.hasLength(originalFileName) || file.isEmpty())
-            throw new FileException("Error al leer archivo");
-
-        String fileName = StringUtils.cleanPath(originalFileName);
-        String extension = StringUtils.getFilenameExtension(fileName);
-        String fileNameWithoutExt = fileName.replace("." + extension, "");
-        return fileNameWithoutExt + "-" + UUID.randomUUID() + "." + extension;
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("No se pudo borrar el temporal {}", path, e);
+        }
     }
 
 }
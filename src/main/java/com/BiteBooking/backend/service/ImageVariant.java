@@ -0,0 +1,54 @@
+package com.BiteBooking.backend.service;
+
+import com.BiteBooking.backend.exception.FileException;
+
+import java.util.Locale;
+
+/**
+ * Variantes de imagen que se generan para cada subida.
+ * El lado mayor se reduce hasta maxSide píxeles conservando la proporción.
+ */
+public enum ImageVariant {
+
+    THUMB(240, 0.78f),
+    MEDIUM(800, 0.82f),
+    FULL(1600, 0.85f);
+
+    static final String DIRECTORY = "variants";
+
+    private final int maxSide;
+    private final float quality;
+
+    ImageVariant(int maxSide, float quality) {
+        this.maxSide = maxSide;
+        this.quality = quality;
+    }
+
+    public int getMaxSide() {
+        return maxSide;
+    }
+
+    public float getQuality() {
+        return quality;
+    }
+
+    /**
+     * Ruta relativa a uploads de la variante de un archivo subido
+     */
+    public String fileName(String original) {
+        int dot = original.lastIndexOf('.');
+        String base = dot > 0 ? original.substring(0, dot) : original;
+        return DIRECTORY + "/" + base + "-" + name().toLowerCase(Locale.ROOT) + ".jpg";
+    }
+
+    /**
+     * Convierte el parámetro size de la petición (thumb, medium, full)
+     */
+    public static ImageVariant fromParam(String size) {
+        try {
+            return valueOf(size.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new FileException("Tamaño de imagen no válido: " + size);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.BiteBooking.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Genera en segundo plano las variantes THUMB, MEDIUM y FULL de cada imagen subida
+ * (JPEG, solo JDK/ImageIO) en el subdirectorio variants de file.upload-dir.
+ *
+ * El pool de workers y su cola están acotados: si la cola se llena, la tarea se
+ * ejecuta en el hilo que sube la imagen, frenando las subidas en lugar de
+ * acumular trabajo (y memoria) sin límite.
+ *
+ * Los archivos subidos antes de existir las variantes se procesan bajo demanda
+ * (submitMissing) la primera vez que se pide una variante que no existe.
+ */
+@Service
+@Slf4j
+public class ImageVariantService {
+
+    private final Path uploadPath;
+    private final ThreadPoolExecutor executor;
+    // Archivos con variantes pedidas bajo demanda (en cola, o que no son imágenes)
+    private final Set<String> requested = ConcurrentHashMap.newKeySet();
+
+    public ImageVariantService(
+            @Value("${file.upload-dir:uploads}") String uploadDir,
+            @Value("${app.images.variants.workers:2}") int workers,
+            @Value("${app.images.variants.queue-capacity:32}") int queueCapacity) {
+        this.uploadPath = Paths.get(uploadDir);
+        AtomicInteger threadCount = new AtomicInteger();
+        int poolSize = Math.max(1, workers);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> new Thread(runnable, "image-variants-" + threadCount.incrementAndGet()),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.prestartAllCoreThreads();
+    }
+
+    /**
+     * Encola la generación de variantes de un archivo ya guardado en el directorio de subidas
+     */
+    public void submit(String fileName) {
+        executor.execute(() -> generate(fileName));
+    }
+
+    /**
+     * Genera las variantes de un archivo existente al que le faltan (subidas
+     * anteriores). Nunca bloquea ni trabaja en el hilo de la petición: si la cola
+     * está llena no hace nada y se volverá a pedir en la siguiente petición.
+     * Cada archivo se encola una sola vez; si no es una imagen no se reintenta.
+     */
+    public void submitMissing(String fileName) {
+        if (!requested.add(fileName)) {
+            return;
+        }
+        Runnable task = () -> {
+            if (generate(fileName)) {
+                requested.remove(fileName);
+            }
+        };
+        if (!executor.getQueue().offer(task)) {
+            requested.remove(fileName);
+        }
+    }
+
+    /**
+     * Elimina las variantes de un archivo
+     */
+    public void delete(String fileName) {
+        for (ImageVariant variant : ImageVariant.values()) {
+            try {
+                Files.deleteIfExists(uploadPath.resolve(variant.fileName(fileName)));
+            } catch (IOException e) {
+                log.warn("No se pudo eliminar la variante {} de {}", variant, fileName, e);
+            }
+        }
+    }
+
+    /**
+     * @return false si el archivo no es una imagen legible
+     */
+    boolean generate(String fileName) {
+        Path source = uploadPath.resolve(fileName);
+        try {
+            BufferedImage image = read(source);
+            if (image == null) {
+                log.debug("{} no es una imagen legible, no se generan variantes", fileName);
+                return false;
+            }
+            Files.createDirectories(uploadPath.resolve(ImageVariant.DIRECTORY));
+
+            // De mayor a menor: cada variante se reduce a partir de la anterior
+            ImageVariant[] variants = ImageVariant.values();
+            for (int i = variants.length - 1; i >= 0; i--) {
+                image = scale(image, variants[i].getMaxSide());
+                write(image, variants[i], uploadPath.resolve(variants[i].fileName(fileName)));
+            }
+
+            // El original se borró mientras se procesaba
+            if (!Files.exists(source)) {
+                delete(fileName);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Error generando variantes de {}", fileName, e);
+        }
+        return true;
+    }
+
+    /**
+     * Decodifica la imagen submuestreando las muy grandes para no cargar
+     * en memoria más píxeles de los que necesita la variante FULL
+     */
+    private static BufferedImage read(Path source) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            if (in == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, longest / (ImageVariant.FULL.getMaxSide() * 2));
+                if (subsampling > 1) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Reduce la imagen hasta que su lado mayor sea maxSide, dividiendo a la mitad
+     * en cada paso para que el bilineal no pierda detalle. Siempre devuelve RGB
+     * (JPEG no admite transparencia).
+     */
+    static BufferedImage scale(BufferedImage source, int maxSide) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double ratio = Math.min(1.0, (double) maxSide / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(height * ratio));
+
+        if (ratio == 1.0 && source.getType() == BufferedImage.TYPE_INT_RGB) {
+            return source;
+        }
+        BufferedImage current = source;
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            current = draw(current, width, height);
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    /**
+     * Escribe en un temporal y lo mueve de forma atómica: el endpoint de archivos
+     * nunca sirve una variante a medio escribir
+     */
+    private static void write(BufferedImage image, ImageVariant variant, Path target) throws IOException {
+        Path temp = Files.createTempFile(target.getParent(), ".variant-", ".tmp");
+        try {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(temp.toFile())) {
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(variant.getQuality());
+                writer.setOutput(out);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+}
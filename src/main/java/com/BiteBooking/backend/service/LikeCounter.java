@@ -0,0 +1,118 @@
+package com.BiteBooking.backend.service;
+
+import com.BiteBooking.backend.repository.RatingRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contador de likes en memoria por rating.
+ * Los likes se acumulan en un LongAdder (sin bloqueos entre hilos) y se
+ * vuelcan periódicamente a Ratings.likes_count agrupando los ratings que
+ * comparten el mismo delta en un único UPDATE.
+ *
+ * Válido para una sola instancia de la aplicación.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LikeCounter {
+
+    private final RatingRepository ratingRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Delta acumulado de un rating. Solo el volcado modifica 'flushed',
+     * de modo que los likes que lleguen durante el volcado no se pierden.
+     * Es volatile porque las peticiones leen pending() desde otros hilos.
+     */
+    private static final class Counter {
+        final LongAdder total = new LongAdder();
+        volatile long flushed;
+
+        long pending() {
+            return total.sum() - flushed;
+        }
+    }
+
+    /**
+     * Suma dentro de compute() para que el volcado no pueda retirar el contador
+     * entre que se obtiene y se incrementa
+     */
+    public void add(Long ratingId, int delta) {
+        counters.compute(ratingId, (id, counter) -> {
+            Counter target = counter != null ? counter : new Counter();
+            target.total.add(delta);
+            return target;
+        });
+    }
+
+    /**
+     * Likes aún no volcados a la base de datos
+     */
+    public long pendingDelta(Long ratingId) {
+        Counter counter = counters.get(ratingId);
+        return counter != null ? counter.pending() : 0;
+    }
+
+    /**
+     * Valor actual del contador: el persistido más lo pendiente de volcar
+     */
+    public int currentCount(Long ratingId, Integer persistedCount) {
+        long count = (persistedCount != null ? persistedCount : 0) + pendingDelta(ratingId);
+        return (int) Math.max(0, count);
+    }
+
+    /**
+     * Descarta el contador de un rating borrado
+     */
+    public void forget(Long ratingId) {
+        counters.remove(ratingId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.ratings.likes.flush-interval-ms:2000}")
+    @PreDestroy
+    public synchronized void flush() {
+        Map<Long, Long> totals = new HashMap<>();
+        Map<Long, List<Long>> idsByDelta = new HashMap<>();
+        counters.forEach((ratingId, counter) -> {
+            long total = counter.total.sum();
+            long delta = total - counter.flushed;
+            if (delta != 0) {
+                totals.put(ratingId, total);
+                idsByDelta.computeIfAbsent(delta, d -> new ArrayList<>()).add(ratingId);
+            }
+        });
+        if (totals.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    idsByDelta.forEach((delta, ids) -> ratingRepository.addLikes(ids, delta)));
+        } catch (Exception e) {
+            // Los deltas se mantienen y se reintentan en el siguiente volcado
+            log.error("Error al volcar contadores de likes: {}", e.getMessage());
+            return;
+        }
+
+        // Los contadores sin nada pendiente se retiran para que el mapa no crezca sin límite
+        totals.forEach((ratingId, total) -> counters.computeIfPresent(ratingId, (id, counter) -> {
+            counter.flushed = total;
+            return counter.pending() == 0 ? null : counter;
+        }));
+        log.debug("Likes volcados para {} ratings en {} sentencias", totals.size(), idsByDelta.size());
+    }
+}
@@ -0,0 +1,77 @@
+package com.BiteBooking.backend.service;
+
+import com.BiteBooking.backend.repository.RatingLikeRepository;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Caché opcional (app.ratings.liked-cache.enabled) con los ids de ratings
+ * a los que ha dado like cada usuario. Se carga con una consulta por usuario
+ * y se descarta al dar o quitar likes (el like ya está confirmado en BD), de
+ * modo que la siguiente lectura lo vuelve a cargar. La caducidad tras escritura
+ * limita además cualquier entrada desactualizada (p. ej. una carga en curso
+ * mientras el usuario daba like).
+ */
+@Component
+public class LikedRatingsCache {
+
+    private static final int MAX_USERS = 10_000;
+
+    private final RatingLikeRepository ratingLikeRepository;
+    private final boolean enabled;
+    private final Cache<Long, Set<Long>> likedByUser;
+
+    public LikedRatingsCache(RatingLikeRepository ratingLikeRepository,
+                             @Value("${app.ratings.liked-cache.enabled:false}") boolean enabled) {
+        this.ratingLikeRepository = ratingLikeRepository;
+        this.enabled = enabled;
+        this.likedByUser = CacheBuilder.newBuilder()
+                .maximumSize(MAX_USERS)
+                .expireAfterWrite(Duration.ofMinutes(10))
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Ratings con like del usuario (se cargan desde la BD si no están en caché)
+     */
+    public Set<Long> get(Long userId) {
+        try {
+            return likedByUser.get(userId, () -> {
+                return Set.copyOf(ratingLikeRepository.findRatingIdsByUserId(userId));
+            });
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error al cargar los likes del usuario " + userId, e.getCause());
+        }
+    }
+
+    public void liked(Long userId, Long ratingId) {
+        invalidate(userId);
+    }
+
+    public void unliked(Long userId, Long ratingId) {
+        invalidate(userId);
+    }
+
+    private void invalidate(Long userId) {
+        if (enabled && userId != null) {
+            likedByUser.invalidate(userId);
+        }
+    }
+
+    /**
+     * Al borrar un rating se descartan todas las entradas (poco frecuente)
+     */
+    public void ratingDeleted() {
+        likedByUser.invalidateAll();
+    }
+}
@@ -0,0 +1,221 @@
+package com.BiteBooking.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cola de salida de correo con workers propios.
+ *
+ * Cada worker toma un lote de la cola y lo envía con JavaMailSender.send(MimeMessage...),
+ * que abre una sola conexión SMTP para todo el lote. Un envío fallido completa su
+ * future con el error y no se reintenta aquí: los reintentos (con backoff y
+ * persistidos) son del outbox de notificaciones, para no tener dos capas.
+ *
+ * La cola está acotada y enqueue nunca bloquea al llamante: si está llena el
+ * mensaje se rechaza al momento (se registra y se cuenta) y quien lo encoló
+ * decide si lo reintenta. El tamaño de la cola y los rechazos se publican como
+ * métricas mail.* en Micrometer.
+ */
+@Component
+@Slf4j
+public class MailDispatcher {
+
+    /**
+     * Mensaje HTML pendiente de envío. description solo se usa en los logs.
+     */
+    public record OutboundMail(String to, String subject, String html, String description) {
+    }
+
+    private static final class Pending {
+        private final OutboundMail mail;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        private Pending(OutboundMail mail) {
+            this.mail = mail;
+        }
+    }
+
+    private final JavaMailSender mailSender;
+    private final String fromEmail;
+    private final int batchSize;
+
+    private final BlockingQueue<Pending> queue;
+    private final ExecutorService workers;
+    private volatile boolean running = true;
+
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final Counter rejectedCounter;
+    private final Timer batchTimer;
+
+    public MailDispatcher(
+            JavaMailSender mailSender,
+            MeterRegistry meterRegistry,
+            @Value("${app.email.from:noreply@bitebooking.com}") String fromEmail,
+            @Value("${app.email.pipeline.workers:2}") int workerCount,
+            @Value("${app.email.pipeline.queue-capacity:2000}") int queueCapacity,
+            @Value("${app.email.pipeline.batch-size:50}") int batchSize) {
+        this.mailSender = mailSender;
+        this.fromEmail = fromEmail;
+        this.batchSize = Math.max(1, batchSize);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+
+        Gauge.builder("mail.queue.size", queue, BlockingQueue::size).register(meterRegistry);
+        Gauge.builder("mail.queue.remaining", queue, BlockingQueue::remainingCapacity).register(meterRegistry);
+        this.sentCounter = meterRegistry.counter("mail.sent");
+        this.failedCounter = meterRegistry.counter("mail.failed");
+        this.rejectedCounter = meterRegistry.counter("mail.rejected");
+        this.batchTimer = meterRegistry.timer("mail.batch");
+
+        int workerThreads = Math.max(1, workerCount);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerThreads,
+                runnable -> new Thread(runnable, "mail-worker-" + threadCount.incrementAndGet()));
+        for (int i = 0; i < workerThreads; i++) {
+            workers.execute(this::runWorker);
+        }
+    }
+
+    /**
+     * Encola un mensaje sin esperar. El future se completa cuando el servidor SMTP
+     * lo acepta y falla al momento si la cola está llena o detenida, o cuando el
+     * envío falla.
+     */
+    public CompletableFuture<Void> enqueue(OutboundMail mail) {
+        Pending pending = new Pending(mail);
+        if (!running || !queue.offer(pending)) {
+            rejectedCounter.increment();
+            log.warn("Cola de correo llena o detenida, descartado: {}", mail.description());
+            pending.result.completeExceptionally(
+                    new IllegalStateException("Cola de correo llena, descartado: " + mail.description()));
+        }
+        return pending.result;
+    }
+
+    /**
+     * Mensajes esperando en la cola
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * Huecos libres en la cola (para no reclamar más trabajo del que cabe)
+     */
+    public int getRemainingCapacity() {
+        return queue.remainingCapacity();
+    }
+
+    private void runWorker() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                batchTimer.record(() -> sendBatch(batch));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Error inesperado en el worker de correo", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void sendBatch(List<Pending> batch) {
+        List<Pending> ready = new ArrayList<>(batch.size());
+        List<MimeMessage> messages = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            try {
+                messages.add(toMimeMessage(pending.mail));
+                ready.add(pending);
+            } catch (MessagingException e) {
+                // Dirección o contenido inválido
+                fail(pending, e);
+            }
+        }
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        Map<Object, Exception> failedMessages = Map.of();
+        MailException batchError = null;
+        try {
+            mailSender.send(messages.toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            failedMessages = e.getFailedMessages();
+            batchError = e;
+        } catch (MailException e) {
+            batchError = e;
+        }
+
+        for (int i = 0; i < ready.size(); i++) {
+            Pending pending = ready.get(i);
+            Exception error = failedMessages.isEmpty() ? batchError : failedMessages.get(messages.get(i));
+            if (error == null) {
+                sentCounter.increment();
+                pending.result.complete(null);
+            } else {
+                fail(pending, error);
+            }
+        }
+    }
+
+    private MimeMessage toMimeMessage(OutboundMail mail) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        helper.setFrom(fromEmail);
+        helper.setTo(mail.to());
+        helper.setSubject(mail.subject());
+        helper.setText(mail.html(), true);
+        return message;
+    }
+
+    private void fail(Pending pending, Exception error) {
+        failedCounter.increment();
+        log.error("No se pudo enviar {}: {}", pending.mail.description(), error.getMessage());
+        pending.result.completeExceptionally(error);
+    }
+
+    /**
+     * Deja de aceptar mensajes y espera a que los workers vacíen la cola
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        workers.shutdown();
+        if (!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+            log.warn("Cola de correo detenida con {} mensajes sin enviar", queue.size());
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.BiteBooking.backend.service;
+
+import com.BiteBooking.backend.model.Booking;
+import com.BiteBooking.backend.model.BookingStatus;
+import com.BiteBooking.backend.model.NotificationOutbox;
+import com.BiteBooking.backend.model.NotificationType;
+import com.BiteBooking.backend.model.OutboxStatus;
+import com.BiteBooking.backend.repository.BookingRepository;
+import com.BiteBooking.backend.repository.NotificationOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Outbox de notificaciones de reservas.
+ *
+ * BookingService registra la notificación en la misma transacción que el cambio
+ * de estado (una fila por reserva y tipo), así que la reserva nunca espera al
+ * SMTP y la notificación no se pierde si la aplicación se reinicia.
+ *
+ * El poller reclama lotes con SELECT ... FOR UPDATE SKIP LOCKED (varias instancias
+ * no se pisan), los marca como SENDING con un plazo y los entrega a MailDispatcher.
+ * Espera el resultado del lote antes de reclamar otro y, mientras espera, renueva
+ * el plazo de las filas aún sin confirmar: una fila nunca vence mientras su
+ * mensaje sigue en la cola de correo, así que no se envía dos veces.
+ * El resultado de cada envío queda en la fila (SENT, reintento con backoff o FAILED);
+ * es la única capa de reintentos. Si la instancia cae con filas en SENDING, se
+ * vuelven a reclamar al vencer el plazo.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationOutboxService {
+
+    private static final long MAX_RETRY_BACKOFF_SECONDS = 3600;
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final NotificationOutboxRepository outboxRepository;
+    private final BookingRepository bookingRepository;
+    private final EmailService emailService;
+    private final MailDispatcher mailDispatcher;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.email.enabled:false}")
+    private boolean emailEnabled;
+
+    @Value("${app.notifications.outbox.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.notifications.outbox.lease-seconds:300}")
+    private long leaseSeconds;
+
+    @Value("${app.notifications.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.notifications.outbox.retry-backoff-seconds:30}")
+    private long retryBackoffSeconds;
+
+    @Value("${app.notifications.outbox.retention-days:30}")
+    private int retentionDays;
+
+    /**
+     * Registra una notificación dentro de la transacción del cambio de estado
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Booking booking, NotificationType type) {
+        if (!emailEnabled) {
+            return;
+        }
+        outboxRepository.enqueue(booking.getId(), type.name(), LocalDateTime.now());
+    }
+
+    /**
+     * Registra los recordatorios de un bloque de reservas dentro de la transacción
+     * del bloque y marca reminderSent en esas reservas
+     *
+     * @return recordatorios nuevos en el outbox
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int recordReminders(List<Long> bookingIds) {
+        if (!emailEnabled || bookingIds.isEmpty()) {
+            return 0;
+        }
+        int queued = outboxRepository.enqueueReminders(bookingIds, LocalDateTime.now());
+        bookingRepository.markRemindersScheduled(bookingIds);
+        return queued;
+    }
+
+    /**
+     * Reclama y envía notificaciones mientras haya pendientes y sitio en la cola de correo
+     */
+    @Scheduled(fixedDelayString = "${app.notifications.outbox.poll-ms:1000}")
+    public void dispatch() {
+        if (!emailEnabled) {
+            return;
+        }
+        int limit;
+        do {
+            limit = Math.min(batchSize, mailDispatcher.getRemainingCapacity());
+        } while (limit > 0 && dispatchBatch(limit) == limit);
+    }
+
+    private int dispatchBatch(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<NotificationOutbox> claimed = transactionTemplate.execute(status -> {
+            List<NotificationOutbox> rows = outboxRepository.lockReady(now, limit);
+            if (!rows.isEmpty()) {
+                outboxRepository.claim(rows.stream().map(NotificationOutbox::getId).toList(),
+                        now.plusSeconds(leaseSeconds));
+            }
+            return rows;
+        });
+        if (claimed == null || claimed.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, Booking> bookings = bookingRepository
+                .findAllById(claimed.stream().map(NotificationOutbox::getBookingId).distinct().toList())
+                .stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+
+        Map<Long, CompletableFuture<Void>> sending = new HashMap<>();
+        for (NotificationOutbox notification : claimed) {
+            Booking booking = bookings.get(notification.getBookingId());
+            if (booking == null) {
+                outboxRepository.markClosed(notification.getId(), OutboxStatus.SKIPPED, "Reserva eliminada");
+                continue;
+            }
+            if (notification.getType() == NotificationType.BOOKING_REMINDER
+                    && booking.getStatus() != BookingStatus.CONFIRMED) {
+                outboxRepository.markClosed(notification.getId(), OutboxStatus.SKIPPED,
+                        "La reserva ya no está confirmada");
+                continue;
+            }
+            sending.put(notification.getId(), send(notification.getType(), booking)
+                    .whenComplete((ignored, error) -> complete(notification, error)));
+        }
+        log.debug("Outbox: {} notificaciones reclamadas", claimed.size());
+        awaitRenewingLease(sending);
+        return claimed.size();
+    }
+
+    /**
+     * Espera a que MailDispatcher confirme (o rechace) cada mensaje del lote,
+     * renovando cada tercio del plazo el de las filas que siguen pendientes
+     */
+    private void awaitRenewingLease(Map<Long, CompletableFuture<Void>> sending) {
+        long renewEveryMs = TimeUnit.SECONDS.toMillis(Math.max(1, leaseSeconds / 3));
+        while (true) {
+            sending.values().removeIf(CompletableFuture::isDone);
+            if (sending.isEmpty()) {
+                return;
+            }
+            try {
+                CompletableFuture.allOf(sending.values().toArray(new CompletableFuture[0]))
+                        .get(renewEveryMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                outboxRepository.extendLease(List.copyOf(sending.keySet()), LocalDateTime.now().plusSeconds(leaseSeconds));
+            } catch (ExecutionException e) {
+                // Cada fallo ya queda registrado en su fila (complete)
+            } catch (InterruptedException e) {
+                // Las filas sin confirmar se reclamarán al vencer el plazo
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private CompletableFuture<Void> send(NotificationType type, Booking booking) {
+        return switch (type) {
+            case BOOKING_CREATED -> emailService.sendNewBookingNotification(booking);
+            case RESTAURANT_NEW_BOOKING -> emailService.sendRestaurantNotification(booking);
+            case BOOKING_CONFIRMED -> emailService.sendBookingConfirmation(booking);
+            case BOOKING_REJECTED -> emailService.sendRejectionNotification(booking);
+            case BOOKING_CANCELLED -> emailService.sendCancellationNotification(booking);
+            case BOOKING_REMINDER -> emailService.sendBookingReminder(booking);
+        };
+    }
+
+    private void complete(NotificationOutbox notification, Throwable error) {
+        try {
+            if (error == null) {
+                outboxRepository.markSent(notification.getId(), LocalDateTime.now());
+                return;
+            }
+            String message = errorMessage(error);
+            int attempts = notification.getAttempts() + 1;
+            if (attempts >= maxAttempts) {
+                outboxRepository.markClosed(notification.getId(), OutboxStatus.FAILED, message);
+                log.error("Notificación {} {} de la reserva {} descartada tras {} intentos: {}",
+                        notification.getId(), notification.getType(), notification.getBookingId(), attempts, message);
+                return;
+            }
+            long backoff = Math.min(MAX_RETRY_BACKOFF_SECONDS, retryBackoffSeconds << Math.min(attempts - 1, 16));
+            outboxRepository.markRetry(notification.getId(), LocalDateTime.now().plusSeconds(backoff), message);
+        } catch (RuntimeException e) {
+            // La fila sigue en SENDING y se reclamará al vencer el plazo
+            log.error("No se pudo actualizar la notificación {} del outbox", notification.getId(), e);
+        }
+    }
+
+    private static String errorMessage(Throwable error) {
+        Throwable cause = error.getCause() != null ? error.getCause() : error;
+        String message = String.valueOf(cause.getMessage());
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+
+    /**
+     * Limpieza diaria de notificaciones enviadas
+     */
+    @Scheduled(cron = "0 30 4 * * *")  // 4:30 AM todos los días
+    public void purgeSent() {
+        int deleted = outboxRepository.deleteSentBefore(LocalDateTime.now().minusDays(retentionDays));
+        log.info("Outbox: {} notificaciones enviadas eliminadas", deleted);
+    }
+}
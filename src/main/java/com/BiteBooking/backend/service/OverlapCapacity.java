@@ -0,0 +1,83 @@
+package com.BiteBooking.backend.service;
+
+import java.time.LocalTime;
+
+import static com.BiteBooking.backend.service.SlotOccupancy.MINUTES_PER_DAY;
+
+/**
+ * Ocupación concurrente de un día teniendo en cuenta la duración de las reservas.
+ * Una reserva de las 20:00 con duración de 90 min ocupa mesa hasta las 21:30,
+ * por lo que también reduce la capacidad de los slots de 20:30 y 21:00.
+ *
+ * Se calcula en un único barrido O(reservas + minutos del día):
+ * array de diferencias sobre las llegadas, suma prefija para las personas sentadas
+ * y máximo en ventana deslizante para la duración de una nueva reserva.
+ */
+public final class OverlapCapacity {
+
+    private final int[] seatedByMinute;
+    private final int[] maxSeatedFrom;
+
+    private OverlapCapacity(int[] seatedByMinute, int[] maxSeatedFrom) {
+        this.seatedByMinute = seatedByMinute;
+        this.maxSeatedFrom = maxSeatedFrom;
+    }
+
+    /**
+     * @param arrivals        personas que llegan en cada minuto (ver SlotOccupancy)
+     * @param durationMinutes duración de cada reserva
+     */
+    public static OverlapCapacity of(SlotOccupancy arrivals, int durationMinutes) {
+        int duration = Math.max(1, Math.min(durationMinutes, MINUTES_PER_DAY));
+        int[] arrivalsByMinute = arrivals.arrivalsByMinute();
+
+        // Array de diferencias: +personas al llegar, -personas al terminar la reserva
+        int[] diff = new int[MINUTES_PER_DAY + 1];
+        for (int minute = 0; minute < MINUTES_PER_DAY; minute++) {
+            int people = arrivalsByMinute[minute];
+            if (people != 0) {
+                diff[minute] += people;
+                diff[Math.min(minute + duration, MINUTES_PER_DAY)] -= people;
+            }
+        }
+
+        int[] seated = new int[MINUTES_PER_DAY];
+        int running = 0;
+        for (int minute = 0; minute < MINUTES_PER_DAY; minute++) {
+            running += diff[minute];
+            seated[minute] = running;
+        }
+
+        // Máximo de personas sentadas en [m, m + duración) con una cola monótona
+        int[] maxFrom = new int[MINUTES_PER_DAY];
+        int[] deque = new int[MINUTES_PER_DAY];
+        int head = 0;
+        int tail = 0;
+        for (int minute = MINUTES_PER_DAY - 1; minute >= 0; minute--) {
+            while (tail > head && seated[deque[tail - 1]] <= seated[minute]) {
+                tail--;
+            }
+            deque[tail++] = minute;
+            while (deque[head] >= minute + duration) {
+                head++;
+            }
+            maxFrom[minute] = seated[deque[head]];
+        }
+
+        return new OverlapCapacity(seated, maxFrom);
+    }
+
+    /**
+     * Personas sentadas en un instante
+     */
+    public int seatedAt(LocalTime time) {
+        return seatedByMinute[SlotOccupancy.minuteOfDay(time)];
+    }
+
+    /**
+     * Máximo de personas sentadas durante una reserva que empieza a esa hora
+     */
+    public int maxSeatedDuring(LocalTime start) {
+        return maxSeatedFrom[SlotOccupancy.minuteOfDay(start)];
+    }
+}
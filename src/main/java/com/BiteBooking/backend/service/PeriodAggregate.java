@@ -0,0 +1,60 @@
+package com.BiteBooking.backend.service;
+
+import com.BiteBooking.backend.dto.analytics.StatusMetricsDTO;
+
+import java.util.List;
+
+/**
+ * Resultado de BookingRepository.getPeriodAggregates: todas las métricas
+ * escalares de un período obtenidas con una sola consulta de agregación condicional.
+ */
+record PeriodAggregate(long totalBookings, long totalGuests,
+                       int pending, int confirmed, int completed,
+                       int cancelled, int noShow, int rejected,
+                       long distinctCustomers, long returningCustomers,
+                       double avgLeadTimeDays) {
+
+    static final PeriodAggregate EMPTY = new PeriodAggregate(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0.0);
+
+    static PeriodAggregate fromRows(List<Object[]> rows) {
+        if (rows == null || rows.isEmpty()) {
+            return EMPTY;
+        }
+        Object[] row = rows.get(0);
+        return new PeriodAggregate(
+                asLong(row[0]), asLong(row[1]),
+                (int) asLong(row[2]), (int) asLong(row[3]), (int) asLong(row[4]),
+                (int) asLong(row[5]), (int) asLong(row[6]), (int) asLong(row[7]),
+                asLong(row[8]), asLong(row[9]),
+                row[10] != null ? ((Number) row[10]).doubleValue() : 0.0
+        );
+    }
+
+    /**
+     * Crea el agregado desde booking_daily_rollup más el conteo de clientes
+     * (ver BookingDailyRollupRepository.getPeriodAggregates y BookingRepository.getCustomerCounts)
+     */
+    static PeriodAggregate fromRollupRows(List<Object[]> rollupRows, List<Object[]> customerRows) {
+        if (rollupRows == null || rollupRows.isEmpty()) {
+            return EMPTY;
+        }
+        Object[] row = rollupRows.get(0);
+        Object[] customers = customerRows != null && !customerRows.isEmpty()
+                ? customerRows.get(0) : new Object[]{0L, 0L};
+        return new PeriodAggregate(
+                asLong(row[0]), asLong(row[1]),
+                (int) asLong(row[2]), (int) asLong(row[3]), (int) asLong(row[4]),
+                (int) asLong(row[5]), (int) asLong(row[6]), (int) asLong(row[7]),
+                asLong(customers[0]), asLong(customers[1]),
+                row[8] != null ? ((Number) row[8]).doubleValue() : 0.0
+        );
+    }
+
+    StatusMetricsDTO toStatusMetrics() {
+        return new StatusMetricsDTO(pending, confirmed, completed, cancelled, noShow, rejected);
+    }
+
+    private static long asLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+}
@@ -0,0 +1,256 @@
+package com.BiteBooking.backend.service;
+
+import com.BiteBooking.backend.model.Promotion;
+import com.BiteBooking.backend.repository.PromotionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Índice en memoria de promociones activas para home, ciudad y restaurante.
+ *
+ * Se cargan de la BD las promociones activas que no han terminado (vigentes y
+ * futuras) y se particionan por fecha: cada minuto se comprueba si ha cambiado
+ * el día y, si es así, se vuelven a particionar en memoria, de modo que las
+ * promociones entran y salen en su startDate/endDate sin consultar MySQL.
+ *
+ * También mantiene un índice de códigos promocionales (sin distinguir
+ * mayúsculas) con sus reglas compiladas (PromotionRule) para validar códigos
+ * en el checkout sin ir a la BD.
+ *
+ * PromotionService recarga el índice tras cada alta, edición, borrado o toggle,
+ * y refresca solo la promoción afectada tras cada canje (currentUses).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PromotionIndex {
+
+    // Mismo orden que PromotionRepository.findAllActivePromotions
+    private static final Comparator<Promotion> ORDER = Comparator
+            .comparing((Promotion p) -> Boolean.TRUE.equals(p.getFeatured())).reversed()
+            .thenComparing(Promotion::getCreatedAt, Comparator.nullsLast(Comparator.<LocalDateTime>reverseOrder()));
+
+    private final PromotionRepository promotionRepository;
+
+    // Promociones activas no terminadas a la fecha de la última carga
+    private volatile List<Promotion> candidates;
+    private volatile Snapshot snapshot;
+
+    /**
+     * Particiones de las promociones vigentes en una fecha (inmutables)
+     */
+    private record Snapshot(LocalDate date,
+                            List<Promotion> all,
+                            List<Promotion> featured,
+                            Map<String, List<Promotion>> byCity,
+                            Map<Long, List<Promotion>> byRestaurant,
+                            Map<String, List<PromotionRule>> byPromoCode,
+                            Map<Long, PromotionRule> rulesById) {
+    }
+
+    public boolean isLoaded() {
+        return snapshot != null;
+    }
+
+    public List<Promotion> getAllActive() {
+        return current().all();
+    }
+
+    public List<Promotion> getFeatured() {
+        return current().featured();
+    }
+
+    public List<Promotion> getByCity(String city) {
+        return current().byCity().getOrDefault(cityKey(city), List.of());
+    }
+
+    public List<Promotion> getByRestaurant(Long restaurantId) {
+        return current().byRestaurant().getOrDefault(restaurantId, List.of());
+    }
+
+    /**
+     * Reglas compiladas de las promociones (vigentes o futuras) con ese código,
+     * sin distinguir mayúsculas
+     */
+    public List<PromotionRule> getRulesByPromoCode(String code) {
+        return current().byPromoCode().getOrDefault(codeKey(code), List.of());
+    }
+
+    /**
+     * Regla compilada de una promoción activa no terminada (vacío si no está en el índice)
+     */
+    public Optional<PromotionRule> getRule(Long promotionId) {
+        return Optional.ofNullable(current().rulesById().get(promotionId));
+    }
+
+    /**
+     * Recarga desde la BD (al arrancar y como red de seguridad periódica,
+     * p. ej. si cambia la ciudad de un restaurante)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.promotions.index.refresh-ms:600000}",
+            initialDelayString = "${app.promotions.index.refresh-ms:600000}")
+    public void reload() {
+        LocalDate today = LocalDate.now();
+        List<Promotion> loaded = promotionRepository.findActiveNotEnded(today);
+        synchronized (this) {
+            candidates = loaded;
+            snapshot = partition(loaded, today);
+        }
+        log.debug("Índice de promociones cargado: {} activas de {} candidatas",
+                snapshot.all().size(), loaded.size());
+    }
+
+    /**
+     * Recarga cuando la transacción actual confirma (o de inmediato si no hay transacción)
+     */
+    public void reloadAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            reload();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                reload();
+            }
+        });
+    }
+
+    /**
+     * Vuelve a cargar una sola promoción (p. ej. tras un canje) y reparticiona en memoria
+     */
+    public void refresh(Long promotionId) {
+        LocalDate today = LocalDate.now();
+        Optional<Promotion> loaded = promotionRepository.findActiveNotEndedById(promotionId, today);
+        synchronized (this) {
+            if (candidates == null) {
+                return;
+            }
+            List<Promotion> updated = new ArrayList<>(candidates.size() + 1);
+            for (Promotion promotion : candidates) {
+                if (!promotionId.equals(promotion.getId())) {
+                    updated.add(promotion);
+                }
+            }
+            loaded.ifPresent(updated::add);
+            candidates = updated;
+            snapshot = partition(updated, today);
+        }
+    }
+
+    /**
+     * Refresca una promoción cuando la transacción actual confirma (o de inmediato si no hay transacción)
+     */
+    public void refreshAfterCommit(Long promotionId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refresh(promotionId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                refresh(promotionId);
+            }
+        });
+    }
+
+    /**
+     * Activa y expira promociones al cambiar el día, sin ir a la BD
+     */
+    @Scheduled(fixedRate = 60_000)
+    public void rollDate() {
+        Snapshot current = snapshot;
+        LocalDate today = LocalDate.now();
+        if (current == null || current.date().equals(today)) {
+            return;
+        }
+        synchronized (this) {
+            List<Promotion> remaining = candidates.stream()
+                    .filter(p -> !p.getEndDate().isBefore(today))
+                    .toList();
+            candidates = remaining;
+            snapshot = partition(remaining, today);
+        }
+        log.info("Índice de promociones actualizado para {}: {} activas", today, snapshot.all().size());
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null && !current.date().equals(LocalDate.now())) {
+            rollDate();
+            current = snapshot;
+        }
+        return current;
+    }
+
+    private static Snapshot partition(List<Promotion> promotions, LocalDate date) {
+        List<Promotion> all = new ArrayList<>();
+        for (Promotion promotion : promotions) {
+            if (!promotion.getStartDate().isAfter(date) && !promotion.getEndDate().isBefore(date)) {
+                all.add(promotion);
+            }
+        }
+        all.sort(ORDER);
+
+        List<Promotion> featured = new ArrayList<>();
+        Map<String, List<Promotion>> byCity = new HashMap<>();
+        Map<Long, List<Promotion>> byRestaurant = new HashMap<>();
+        for (Promotion promotion : all) {
+            if (Boolean.TRUE.equals(promotion.getFeatured())) {
+                featured.add(promotion);
+            }
+            if (promotion.getRestaurant() != null) {
+                if (promotion.getRestaurant().getCity() != null) {
+                    byCity.computeIfAbsent(cityKey(promotion.getRestaurant().getCity()), c -> new ArrayList<>())
+                            .add(promotion);
+                }
+                byRestaurant.computeIfAbsent(promotion.getRestaurant().getId(), r -> new ArrayList<>())
+                        .add(promotion);
+            }
+        }
+
+        // El código se valida para la fecha de la reserva: se indexan también las futuras
+        Map<String, List<PromotionRule>> byPromoCode = new HashMap<>();
+        Map<Long, PromotionRule> rulesById = new HashMap<>();
+        for (Promotion promotion : promotions) {
+            PromotionRule rule = PromotionRule.compile(promotion);
+            rulesById.put(promotion.getId(), rule);
+            if (promotion.getPromoCode() != null && !promotion.getPromoCode().isBlank()) {
+                byPromoCode.computeIfAbsent(codeKey(promotion.getPromoCode()), c -> new ArrayList<>())
+                        .add(rule);
+            }
+        }
+
+        byCity.replaceAll((city, list) -> List.copyOf(list));
+        byRestaurant.replaceAll((id, list) -> List.copyOf(list));
+        byPromoCode.replaceAll((code, list) -> List.copyOf(list));
+        return new Snapshot(date, List.copyOf(all), List.copyOf(featured), Map.copyOf(byCity),
+                Map.copyOf(byRestaurant), Map.copyOf(byPromoCode), Map.copyOf(rulesById));
+    }
+
+    // MySQL compara la ciudad sin distinguir mayúsculas
+    private static String cityKey(String city) {
+        return city == null ? "" : city.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String codeKey(String code) {
+        return code == null ? "" : code.trim().toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,120 @@
+package com.BiteBooking.backend.service;
+
+import com.BiteBooking.backend.model.Promotion;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Reglas de validez de una promoción precompiladas a primitivos:
+ * fechas como epochDay, días válidos como máscara de bits (bit 1 = lunes ...
+ * bit 7 = domingo, igual que Promotion.validDays) y franja horaria en minutos.
+ * La evaluación no reserva memoria.
+ *
+ * Es la única regla de vigencia: la validación de códigos y el canje
+ * (PromotionService.applyPromotion) la evalúan para la misma fecha y hora.
+ * El límite de usos no forma parte de la regla porque cambia con cada canje:
+ * se comprueba en la BD (PromotionRepository.hasUsesLeft / redeem).
+ */
+public final class PromotionRule {
+
+    private static final int ALL_DAYS = 0b1111_1110;
+    private static final int NO_LIMIT = -1;
+
+    private final Promotion promotion;
+    private final Long restaurantId;
+    private final boolean active;
+    private final long startEpochDay;
+    private final long endEpochDay;
+    private final int validDaysMask;
+    private final int startMinute;
+    private final int endMinute;
+    private final int minPeople;
+    private final boolean limitedUses;
+
+    private PromotionRule(Promotion promotion) {
+        this.promotion = promotion;
+        this.restaurantId = promotion.getRestaurant() != null ? promotion.getRestaurant().getId() : null;
+        this.active = Boolean.TRUE.equals(promotion.getActive());
+        this.startEpochDay = promotion.getStartDate() != null ? promotion.getStartDate().toEpochDay() : Long.MIN_VALUE;
+        this.endEpochDay = promotion.getEndDate() != null ? promotion.getEndDate().toEpochDay() : Long.MAX_VALUE;
+        this.validDaysMask = parseValidDays(promotion.getValidDays());
+        boolean hasWindow = promotion.getStartTime() != null && promotion.getEndTime() != null;
+        this.startMinute = hasWindow ? SlotOccupancy.minuteOfDay(promotion.getStartTime()) : NO_LIMIT;
+        this.endMinute = hasWindow ? SlotOccupancy.minuteOfDay(promotion.getEndTime()) : NO_LIMIT;
+        this.minPeople = promotion.getMinPeople() != null ? promotion.getMinPeople() : 0;
+        this.limitedUses = promotion.getMaxUses() != null;
+    }
+
+    public static PromotionRule compile(Promotion promotion) {
+        return new PromotionRule(promotion);
+    }
+
+    public Promotion getPromotion() {
+        return promotion;
+    }
+
+    public Long getRestaurantId() {
+        return restaurantId;
+    }
+
+    /**
+     * Tiene maxUses: hay que comprobar los usos restantes en la BD
+     */
+    public boolean hasLimitedUses() {
+        return limitedUses;
+    }
+
+    /**
+     * Válida para una reserva en esa fecha, hora y número de personas
+     * (numPeople <= 0 omite la comprobación de mínimo de personas)
+     */
+    public boolean isValidFor(LocalDate date, LocalTime time, int numPeople) {
+        return isValidFor(date.toEpochDay(), date.getDayOfWeek().getValue(), SlotOccupancy.minuteOfDay(time), numPeople);
+    }
+
+    /**
+     * @param dayOfWeek 1 = lunes ... 7 = domingo
+     */
+    public boolean isValidFor(long epochDay, int dayOfWeek, int minuteOfDay, int numPeople) {
+        if (!active || epochDay < startEpochDay || epochDay > endEpochDay) {
+            return false;
+        }
+        if ((validDaysMask & (1 << dayOfWeek)) == 0) {
+            return false;
+        }
+        if (numPeople > 0 && numPeople < minPeople) {
+            return false;
+        }
+        return startMinute == NO_LIMIT || inWindow(minuteOfDay);
+    }
+
+    // Franja inclusiva; si termina antes de empezar, cruza la medianoche
+    private boolean inWindow(int minuteOfDay) {
+        if (startMinute <= endMinute) {
+            return minuteOfDay >= startMinute && minuteOfDay <= endMinute;
+        }
+        return minuteOfDay >= startMinute || minuteOfDay <= endMinute;
+    }
+
+    /**
+     * "1,2,3,4,5" -> máscara de lunes a viernes. Vacío o sin días válidos = todos los días
+     */
+    static int parseValidDays(String validDays) {
+        if (validDays == null || validDays.isBlank()) {
+            return ALL_DAYS;
+        }
+        int mask = 0;
+        for (String part : validDays.split(",")) {
+            try {
+                int day = Integer.parseInt(part.trim());
+                if (day >= 1 && day <= 7) {
+                    mask |= 1 << day;
+                }
+            } catch (NumberFormatException ignored) {
+                // Se ignoran valores no numéricos
+            }
+        }
+        return mask != 0 ? mask : ALL_DAYS;
+    }
+}
@@ -11,6 +11,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,6 +24,7 @@ public class PromotionService {
 
     private final PromotionRepository promotionRepository;
     private final RestaurantRepository restaurantRepository;
+    private final PromotionIndex promotionIndex;
 
     // ==================== CRUD ====================
 
@@ -47,7 +50,9 @@ public class PromotionService {
         }
 
         log.info("Creando promoción '{}' para restaurante {}", promotion.getTitle(), restaurantId);
-        return promotionRepository.save(promotion);
+        Promotion saved = promotionRepository.save(promotion);
+        promotionIndex.reloadAfterCommit();
+        return saved;
     }
 
     public Promotion updatePromotion(Long promotionId, Promotion promotionData) {
@@ -79,7 +84,9 @@ public class PromotionService {
         existing.setFeatured(promotionData.getFeatured());
 
         log.info("Actualizando promoción {}", promotionId);
-        return promotionRepository.save(existing);
+        Promotion saved = promotionRepository.save(existing);
+        promotionIndex.reloadAfterCommit();
+        return saved;
     }
 
     public void deletePromotion(Long promotionId) {
@@ -95,6 +102,7 @@ public class PromotionService {
 
         log.info("Eliminando promoción {}", promotionId);
         promotionRepository.delete(promotion);
+        promotionIndex.reloadAfterCommit();
     }
 
     public Optional<Promotion> findById(Long id) {
@@ -108,6 +116,9 @@ public class PromotionService {
      */
     @Transactional(readOnly = true)
     public List<Promotion> getActivePromotionsByRestaurant(Long restaurantId) {
+        if (promotionIndex.isLoaded()) {
+            return promotionIndex.getByRestaurant(restaurantId);
+        }
         return promotionRepository.findActivePromotionsByRestaurant(restaurantId, LocalDate.now());
     }
 
@@ -124,6 +135,9 @@ public class PromotionService {
      */
     @Transactional(readOnly = true)
     public List<Promotion> getFeaturedPromotions() {
+        if (promotionIndex.isLoaded()) {
+            return promotionIndex.getFeatured();
+        }
         return promotionRepository.findFeaturedPromotions(LocalDate.now());
     }
 
@@ -132,6 +146,9 @@ public class PromotionService {
      */
     @Transactional(readOnly = true)
     public List<Promotion> getAllActivePromotions() {
+        if (promotionIndex.isLoaded()) {
+            return promotionIndex.getAllActive();
+        }
         return promotionRepository.findAllActivePromotions(LocalDate.now());
     }
 
@@ -148,6 +165,9 @@ public class PromotionService {
      */
     @Transactional(readOnly = true)
     public List<Promotion> getPromotionsByCity(String city) {
+        if (promotionIndex.isLoaded()) {
+            return promotionIndex.getByCity(city);
+        }
         return promotionRepository.findActivePromotionsByCity(city, LocalDate.now());
     }
 
@@ -169,7 +189,9 @@ public class PromotionService {
 
         promotion.setActive(!promotion.getActive());
         log.info("Promoción {} ahora está {}", promotionId, promotion.getActive() ? "activa" : "inactiva");
-        return promotionRepository.save(promotion);
+        Promotion saved = promotionRepository.save(promotion);
+        promotionIndex.reloadAfterCommit();
+        return saved;
     }
 
     /**
@@ -188,32 +210,67 @@ public class PromotionService {
 
         promotion.setFeatured(!promotion.getFeatured());
         log.info("Promoción {} ahora está {}", promotionId, promotion.getFeatured() ? "destacada" : "no destacada");
-        return promotionRepository.save(promotion);
+        Promotion saved = promotionRepository.save(promotion);
+        promotionIndex.reloadAfterCommit();
+        return saved;
     }
 
     /**
-     * Aplicar promoción (incrementar uso)
+     * Aplicar promoción en este momento (incrementar uso)
      */
     public boolean applyPromotion(Long promotionId) {
-        Promotion promotion = promotionRepository.findById(promotionId)
-                .orElseThrow(() -> new IllegalArgumentException("Promoción no encontrada"));
+        LocalDateTime now = LocalDateTime.now();
+        return applyPromotion(promotionId, now.toLocalDate(), now.toLocalTime(), 0);
+    }
 
-        if (!promotion.isCurrentlyValid()) {
-            log.warn("Intento de aplicar promoción inválida: {}", promotionId);
+    /**
+     * Aplicar promoción para una reserva (fecha, hora y personas), con la misma
+     * regla que validatePromoCode. El canje es un UPDATE condicional sobre
+     * maxUses, así que peticiones concurrentes nunca superan el límite de usos.
+     */
+    public boolean applyPromotion(Long promotionId, LocalDate date, LocalTime time, int numPeople) {
+        Optional<PromotionRule> rule = promotionIndex.isLoaded()
+                ? promotionIndex.getRule(promotionId)
+                : promotionRepository.findById(promotionId).map(PromotionRule::compile);
+
+        if (rule.isEmpty() || !rule.get().isValidFor(date, time, numPeople)
+                || promotionRepository.redeem(promotionId, LocalDateTime.now()) == 0) {
+            if (!promotionRepository.existsById(promotionId)) {
+                throw new IllegalArgumentException("Promoción no encontrada");
+            }
+            log.warn("Intento de aplicar promoción inválida o agotada: {}", promotionId);
             return false;
         }
 
-        promotion.incrementUses();
-        promotionRepository.save(promotion);
-        log.info("Promoción {} aplicada. Usos: {}/{}", 
-                promotionId, promotion.getCurrentUses(), promotion.getMaxUses());
+        log.debug("Promoción {} aplicada", promotionId);
+        promotionIndex.refreshAfterCommit(promotionId);
         return true;
     }
 
     /**
-     * Validar código promocional
+     * Validar código promocional para este momento
      */
     public Optional<Promotion> validatePromoCode(String code, Long restaurantId) {
+        LocalDateTime now = LocalDateTime.now();
+        return validatePromoCode(code, restaurantId, now.toLocalDate(), now.toLocalTime(), 0);
+    }
+
+    /**
+     * Validar código promocional para una reserva (fecha, hora y personas).
+     * numPeople <= 0 omite la comprobación de mínimo de personas.
+     */
+    public Optional<Promotion> validatePromoCode(String code, Long restaurantId,
+                                                 LocalDate date, LocalTime time, int numPeople) {
+        if (promotionIndex.isLoaded()) {
+            for (PromotionRule rule : promotionIndex.getRulesByPromoCode(code)) {
+                if (restaurantId.equals(rule.getRestaurantId()) && rule.isValidFor(date, time, numPeople)
+                        && hasUsesLeft(rule)) {
+                    return Optional.of(rule.getPromotion());
+                }
+            }
+            return Optional.empty();
+        }
+
         Optional<Promotion> optPromotion = promotionRepository.findByPromoCodeIgnoreCase(code);
         
         if (optPromotion.isEmpty()) {
@@ -228,10 +285,18 @@ public class PromotionService {
         }
 
         // Verificar que está válida
-        if (!promotion.isCurrentlyValid()) {
+        PromotionRule rule = PromotionRule.compile(promotion);
+        if (!rule.isValidFor(date, time, numPeople) || !hasUsesLeft(rule)) {
             return Optional.empty();
         }
 
         return Optional.of(promotion);
     }
+
+    /**
+     * Los usos cambian con cada canje: se consultan en la BD, no en la regla compilada
+     */
+    private boolean hasUsesLeft(PromotionRule rule) {
+        return !rule.hasLimitedUses() || promotionRepository.hasUsesLeft(rule.getPromotion().getId());
+    }
 }
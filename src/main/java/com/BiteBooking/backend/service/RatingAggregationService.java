@@ -0,0 +1,122 @@
+package com.BiteBooking.backend.service;
+
+import com.BiteBooking.backend.model.Menu;
+import com.BiteBooking.backend.model.Rating;
+import com.BiteBooking.backend.model.Restaurant;
+import com.BiteBooking.backend.repository.MenuRepository;
+import com.BiteBooking.backend.repository.RestaurantRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Mantiene la suma, el número y la media de valoraciones por menú y por
+ * restaurante (Menu/Restaurant.averageRating), para poder ordenar y filtrar
+ * sin agrupar la tabla Ratings en cada consulta.
+ *
+ * - Incremental: RatingController notifica altas, cambios y bajas (un UPDATE por fila).
+ * - Reconciliación: al arrancar y cada noche se recalcula todo desde Ratings.
+ * - Los cambios en restaurantes se reflejan también en RestaurantSearchIndex al confirmar.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RatingAggregationService {
+
+    private final MenuRepository menuRepository;
+    private final RestaurantRepository restaurantRepository;
+    private final RestaurantSearchIndex restaurantSearchIndex;
+
+    @Transactional
+    public void onRatingCreated(Rating rating) {
+        apply(rating.getMenu(), rating.getScore(), 1);
+    }
+
+    @Transactional
+    public void onRatingDeleted(Rating rating) {
+        apply(rating.getMenu(), rating.getScore(), -1);
+    }
+
+    /**
+     * Mueve la valoración de su menú/puntuación anterior a la actual
+     */
+    @Transactional
+    public void onRatingUpdated(Menu previousMenu, Integer previousScore, Rating updated) {
+        apply(previousMenu, previousScore, -1);
+        apply(updated.getMenu(), updated.getScore(), 1);
+    }
+
+    /**
+     * Al borrar un menú (y sus valoraciones) se descuentan del restaurante
+     */
+    @Transactional
+    public void onMenuDeleted(Menu menu) {
+        if (menu.getRestaurant() != null && menu.getRatingCount() != null && menu.getRatingCount() > 0) {
+            long sum = menu.getRatingSum() != null ? menu.getRatingSum() : 0;
+            addRestaurantRatings(menu.getRestaurant().getId(), -sum, -menu.getRatingCount());
+        }
+    }
+
+    /**
+     * Al cambiar un menú de restaurante sus valoraciones pasan al nuevo
+     */
+    @Transactional
+    public void onMenuMoved(Menu menu, Long previousRestaurantId) {
+        Long restaurantId = menu.getRestaurant() != null ? menu.getRestaurant().getId() : null;
+        if (restaurantId == null || restaurantId.equals(previousRestaurantId)
+                || menu.getRatingCount() == null || menu.getRatingCount() == 0) {
+            return;
+        }
+        long sum = menu.getRatingSum() != null ? menu.getRatingSum() : 0;
+        if (previousRestaurantId != null) {
+            addRestaurantRatings(previousRestaurantId, -sum, -menu.getRatingCount());
+        }
+        addRestaurantRatings(restaurantId, sum, menu.getRatingCount());
+    }
+
+    /**
+     * Recalcula los agregados de todos los menús y restaurantes
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 45 3 * * *")  // 3:45 AM todos los días
+    @Transactional
+    public void reconcile() {
+        int menus = menuRepository.reconcileRatings();
+        int restaurants = restaurantRepository.reconcileRatings();
+        log.info("Agregados de valoraciones recalculados: {} menús, {} restaurantes", menus, restaurants);
+        restaurantSearchIndex.rebuildAfterCommit();
+    }
+
+    private void addRestaurantRatings(Long restaurantId, long scoreDelta, int countDelta) {
+        restaurantRepository.addRatings(restaurantId, scoreDelta, countDelta);
+        restaurantSearchIndex.addRatingsAfterCommit(restaurantId, scoreDelta, countDelta);
+    }
+
+    private void apply(Menu menu, Integer score, int sign) {
+        if (menu == null || menu.getId() == null || score == null) {
+            return;
+        }
+        menuRepository.addRatings(menu.getId(), (long) sign * score, sign);
+        Long restaurantId = restaurantIdOf(menu);
+        if (restaurantId != null) {
+            addRestaurantRatings(restaurantId, (long) sign * score, sign);
+        }
+    }
+
+    /**
+     * El menú puede llegar solo con el id (p. ej. desde un PUT de Rating)
+     */
+    private Long restaurantIdOf(Menu menu) {
+        if (menu.getRestaurant() != null && menu.getRestaurant().getId() != null) {
+            return menu.getRestaurant().getId();
+        }
+        return menuRepository.findById(menu.getId())
+                .map(Menu::getRestaurant)
+                .map(Restaurant::getId)
+                .orElse(null);
+    }
+}
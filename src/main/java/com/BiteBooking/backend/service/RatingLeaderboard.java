@@ -0,0 +1,202 @@
+package com.BiteBooking.backend.service;
+
+import com.BiteBooking.backend.model.Rating;
+import com.BiteBooking.backend.repository.RatingRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Ranking en memoria de los K ratings con más likes para /ratings/top y
+ * /ratings/popular, ordenado por likes y después por id (más reciente primero).
+ *
+ * Se actualiza con cada cambio de likes y con altas/bajas de ratings.
+ * 'ceiling' es una cota superior de los likes de cualquier rating que no esté
+ * en el ranking: las entradas por encima de ella tienen el orden exacto. Si una
+ * página llega por debajo de esa cota se sirve desde la BD. El ranking se
+ * reconstruye periódicamente.
+ */
+@Component
+@Slf4j
+public class RatingLeaderboard {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private static final Comparator<Entry> ORDER = Comparator
+            .comparingInt(Entry::likes).reversed()
+            .thenComparing(Entry::ratingId, Comparator.reverseOrder());
+
+    private final RatingRepository ratingRepository;
+    private final LikeCounter likeCounter;
+    private final int capacity;
+
+    private final TreeSet<Entry> ranking = new TreeSet<>(ORDER);
+    private final Map<Long, Entry> entries = new HashMap<>();
+    // Máximo de likes de un rating fuera del ranking (-1 si no hay ninguno)
+    private int ceiling = -1;
+    private boolean loaded = false;
+
+    record Entry(Long ratingId, int likes) {
+    }
+
+    public RatingLeaderboard(RatingRepository ratingRepository, LikeCounter likeCounter,
+                             @Value("${app.ratings.leaderboard.size:500}") int capacity) {
+        this.ratingRepository = ratingRepository;
+        this.likeCounter = likeCounter;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Ratings ordenados por likes (mayor a menor), paginados
+     */
+    public List<Rating> getTop(int page, int size) {
+        validatePage(page, size);
+        return idsPage(-1, page, size)
+                .map(this::loadInOrder)
+                .orElseGet(() -> ratingRepository.findAllByOrderByLikesCountDescIdDesc(PageRequest.of(page, size)));
+    }
+
+    /**
+     * Ratings con más de minLikes likes, paginados
+     */
+    public List<Rating> getPopular(int minLikes, int page, int size) {
+        validatePage(page, size);
+        return idsPage(minLikes, page, size)
+                .map(this::loadInOrder)
+                .orElseGet(() -> ratingRepository.findByLikesCountGreaterThanOrderByLikesCountDescIdDesc(
+                        minLikes, PageRequest.of(page, size)));
+    }
+
+    public synchronized void onLikesChanged(Long ratingId, int likes) {
+        if (!loaded) {
+            return;
+        }
+        Entry previous = entries.remove(ratingId);
+        if (previous != null) {
+            ranking.remove(previous);
+        }
+        if (previous != null || ranking.size() < capacity || likes > ranking.last().likes()) {
+            add(new Entry(ratingId, likes));
+        } else {
+            ceiling = Math.max(ceiling, likes);
+        }
+    }
+
+    public void onRatingCreated(Long ratingId) {
+        onLikesChanged(ratingId, 0);
+    }
+
+    public synchronized void onRatingDeleted(Long ratingId) {
+        Entry previous = entries.remove(ratingId);
+        if (previous != null) {
+            ranking.remove(previous);
+        }
+    }
+
+    /**
+     * Recarga el ranking desde la BD (al arrancar y periódicamente)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.ratings.leaderboard.refresh-ms:300000}",
+            initialDelayString = "${app.ratings.leaderboard.refresh-ms:300000}")
+    public void rebuild() {
+        List<Object[]> rows = ratingRepository.findTopLikes(Limit.of(capacity + 1));
+
+        List<Entry> top = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Long ratingId = (Long) row[0];
+            top.add(new Entry(ratingId, likeCounter.currentCount(ratingId, (Integer) row[1])));
+        }
+        top.sort(ORDER);
+
+        synchronized (this) {
+            ranking.clear();
+            entries.clear();
+            ceiling = -1;
+            for (Entry entry : top) {
+                add(entry);
+            }
+            loaded = true;
+        }
+        log.debug("Ranking de ratings reconstruido con {} entradas", ranking.size());
+    }
+
+    /**
+     * Ids de la página pedida si el ranking la cubre con orden exacto
+     */
+    private synchronized Optional<List<Long>> idsPage(int minLikes, int page, int size) {
+        if (!loaded) {
+            return Optional.empty();
+        }
+        int from = page * size;
+        List<Long> ids = new ArrayList<>(size);
+        int index = 0;
+        for (Entry entry : ranking) {
+            if (entry.likes() <= minLikes) {
+                // Fin de la lista: exacto solo si ningún rating fuera del ranking supera el umbral
+                return ceiling <= minLikes ? Optional.of(ids) : Optional.empty();
+            }
+            if (entry.likes() <= ceiling) {
+                return Optional.empty();
+            }
+            if (index++ >= from) {
+                ids.add(entry.ratingId());
+                if (ids.size() == size) {
+                    return Optional.of(ids);
+                }
+            }
+        }
+        return ceiling <= minLikes ? Optional.of(ids) : Optional.empty();
+    }
+
+    private void add(Entry entry) {
+        ranking.add(entry);
+        entries.put(entry.ratingId(), entry);
+        if (ranking.size() > capacity) {
+            Entry evicted = ranking.pollLast();
+            entries.remove(evicted.ratingId());
+            ceiling = Math.max(ceiling, evicted.likes());
+        }
+    }
+
+    private List<Rating> loadInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Rating> byId = ratingRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Rating::getId, Function.identity()));
+        List<Rating> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Rating rating = byId.get(id);
+            if (rating != null) {
+                result.add(rating);
+            }
+        }
+        return result;
+    }
+
+    private static void validatePage(int page, int size) {
+        if (page < 0) {
+            throw new IllegalArgumentException("La página no puede ser negativa");
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("El tamaño de página debe estar entre 1 y " + MAX_PAGE_SIZE);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.BiteBooking.backend.service;
+
+import com.BiteBooking.backend.repository.RatingLikeRepository;
+import com.BiteBooking.backend.repository.RatingRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Likes de ratings. La fila de rating_likes (con clave única rating/usuario)
+ * es la fuente de verdad de quién dio like; el contador se actualiza en
+ * LikeCounter solo cuando la fila se inserta o se borra de verdad, por lo que
+ * repetir una petición no altera el contador.
+ */
+@Service
+@RequiredArgsConstructor
+public class RatingLikeService {
+
+    private final RatingRepository ratingRepository;
+    private final RatingLikeRepository ratingLikeRepository;
+    private final LikeCounter likeCounter;
+    private final LikedRatingsCache likedRatingsCache;
+    private final RatingLeaderboard ratingLeaderboard;
+
+    public static final int MAX_BULK_IDS = 200;
+
+    public record LikeState(boolean liked, int likesCount) {
+    }
+
+    public record RatingLikeStatus(Long ratingId, boolean liked, int likesCount) {
+    }
+
+    /**
+     * Dar like (idempotente)
+     */
+    public LikeState like(Long ratingId, Long userId) {
+        Integer persisted = findLikesCount(ratingId);
+        if (ratingLikeRepository.insertIfAbsent(ratingId, userId) > 0) {
+            likeCounter.add(ratingId, 1);
+        }
+        likedRatingsCache.liked(userId, ratingId);
+        return changed(ratingId, true, persisted);
+    }
+
+    /**
+     * Quitar like (idempotente)
+     */
+    public LikeState unlike(Long ratingId, Long userId) {
+        Integer persisted = findLikesCount(ratingId);
+        if (ratingLikeRepository.removeLike(ratingId, userId) > 0) {
+            likeCounter.add(ratingId, -1);
+        }
+        likedRatingsCache.unliked(userId, ratingId);
+        return changed(ratingId, false, persisted);
+    }
+
+    /**
+     * Quita el like si existe y, si no, lo da
+     */
+    public LikeState toggle(Long ratingId, Long userId) {
+        Integer persisted = findLikesCount(ratingId);
+        if (ratingLikeRepository.removeLike(ratingId, userId) > 0) {
+            likeCounter.add(ratingId, -1);
+            likedRatingsCache.unliked(userId, ratingId);
+            return changed(ratingId, false, persisted);
+        }
+        if (ratingLikeRepository.insertIfAbsent(ratingId, userId) > 0) {
+            likeCounter.add(ratingId, 1);
+        }
+        likedRatingsCache.liked(userId, ratingId);
+        return changed(ratingId, true, persisted);
+    }
+
+    /**
+     * Contador actual de un rating (persistido + pendiente de volcar)
+     */
+    public int getLikesCount(Long ratingId) {
+        return likeCounter.currentCount(ratingId, findLikesCount(ratingId));
+    }
+
+    /**
+     * Estado de like y contador de varios ratings con una sola consulta.
+     * userId puede ser null (usuario anónimo). Los ids inexistentes se omiten.
+     */
+    public List<RatingLikeStatus> getLikeStatus(Collection<Long> ratingIds, Long userId) {
+        Set<Long> ids = new LinkedHashSet<>(ratingIds);
+        if (ids.size() > MAX_BULK_IDS) {
+            throw new IllegalArgumentException("Se pueden consultar como máximo " + MAX_BULK_IDS + " ratings");
+        }
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Set<Long> likedIds = (userId != null && likedRatingsCache.isEnabled())
+                ? likedRatingsCache.get(userId) : null;
+        // Con la caché activa no hace falta el join contra rating_likes
+        Long joinUserId = likedIds != null ? null : userId;
+
+        List<RatingLikeStatus> result = new ArrayList<>(ids.size());
+        for (Object[] row : ratingLikeRepository.findLikeStatus(ids, joinUserId)) {
+            Long ratingId = (Long) row[0];
+            boolean liked = likedIds != null ? likedIds.contains(ratingId) : row[2] != null;
+            result.add(new RatingLikeStatus(ratingId, liked,
+                    likeCounter.currentCount(ratingId, (Integer) row[1])));
+        }
+        return result;
+    }
+
+    /**
+     * Limpia el estado en memoria de un rating borrado
+     */
+    public void ratingDeleted(Long ratingId) {
+        likeCounter.forget(ratingId);
+        likedRatingsCache.ratingDeleted();
+        ratingLeaderboard.onRatingDeleted(ratingId);
+    }
+
+    private LikeState changed(Long ratingId, boolean liked, Integer persisted) {
+        int likesCount = likeCounter.currentCount(ratingId, persisted);
+        ratingLeaderboard.onLikesChanged(ratingId, likesCount);
+        return new LikeState(liked, likesCount);
+    }
+
+    private Integer findLikesCount(Long ratingId) {
+        return ratingRepository.findLikesCountById(ratingId)
+                .orElseThrow(() -> new NoSuchElementException("Rating no encontrado"));
+    }
+}
@@ -0,0 +1,526 @@
+package com.BiteBooking.backend.service;
+
+import com.BiteBooking.backend.model.Restaurant;
+import com.BiteBooking.backend.model.RestaurantType;
+import com.BiteBooking.backend.repository.RestaurantRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice de búsqueda en memoria de restaurantes (nombre, descripción, ciudad,
+ * tipo y valoración media).
+ *
+ * - Índice invertido token -> restaurantes, con los campos en los que aparece.
+ *   Los tokens se normalizan sin acentos ni mayúsculas ("España" = "espana").
+ * - Índice de trigramas token -> tokens para buscar por fragmentos ("sush" en
+ *   "sushiya"); las consultas de 1-2 letras se resuelven por prefijo.
+ * - Filtros por tipo, ciudad y valoración mínima; todos los términos deben aparecer.
+ * - Ranking: coincidencia exacta > prefijo > fragmento, ponderada por campo
+ *   (nombre > ciudad > tipo > descripción), y después por valoración media.
+ *
+ * RestaurantController lo actualiza en cada alta, edición y borrado, y
+ * RatingAggregationService al cambiar las valoraciones. Se reconstruye al
+ * arrancar y periódicamente como red de seguridad; los cambios que llegan
+ * mientras se lee la BD se vuelven a cargar después, para no perderlos.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RestaurantSearchIndex {
+
+    private static final int NAME = 1;
+    private static final int CITY = 2;
+    private static final int TYPE = 4;
+    private static final int DESCRIPTION = 8;
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Set<String> STOPWORDS = Set.of(
+            "de", "del", "la", "las", "el", "los", "y", "e", "en", "con", "un", "una", "al", "por", "food");
+
+    private final RestaurantRepository restaurantRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Doc> docs = new HashMap<>();
+    // token -> (restaurante -> campos en los que aparece)
+    private final TreeMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    // trigrama -> tokens que lo contienen
+    private final Map<String, Set<String>> trigrams = new HashMap<>();
+    private final Map<RestaurantType, Set<Long>> byType = new EnumMap<>(RestaurantType.class);
+    private final Map<String, Set<Long>> byCity = new HashMap<>();
+    private volatile boolean loaded;
+    // Restaurantes modificados durante una reconstrucción (null si no hay ninguna en curso)
+    private Set<Long> changedDuringRebuild;
+
+    /**
+     * Datos indexados de un restaurante
+     */
+    private static final class Doc {
+        private final long id;
+        private final RestaurantType type;
+        private final String city;
+        private final Map<String, Integer> tokens;
+        private long ratingSum;
+        private int ratingCount;
+        private Double averageRating;
+
+        private Doc(long id, RestaurantType type, String city, Map<String, Integer> tokens) {
+            this.id = id;
+            this.type = type;
+            this.city = city;
+            this.tokens = tokens;
+        }
+    }
+
+    /**
+     * Ids de una página de resultados y total de coincidencias
+     */
+    public record SearchResult(List<Long> ids, int total) {
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Busca restaurantes. Todos los parámetros son opcionales.
+     *
+     * @param text texto libre (todos los términos deben aparecer). Si solo tiene
+     *             palabras vacías o signos ("de", "-") no hay resultados.
+     */
+    public SearchResult search(String text, RestaurantType type, String city, Double minRating, int page, int size) {
+        List<String> terms = tokenize(text);
+        if (terms.isEmpty() && text != null && !text.isBlank()) {
+            return new SearchResult(List.of(), 0);
+        }
+        String cityKey = city == null || city.isBlank() ? null : fold(city.trim());
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = terms.isEmpty() ? null : matchAll(terms);
+            Collection<Long> candidates = scores != null ? scores.keySet() : filterCandidates(type, cityKey);
+
+            List<Doc> matches = new ArrayList<>();
+            for (Long id : candidates) {
+                Doc doc = docs.get(id);
+                if (doc != null && matchesFilters(doc, type, cityKey, minRating)) {
+                    matches.add(doc);
+                }
+            }
+
+            Comparator<Doc> byRating = Comparator
+                    .comparing((Doc doc) -> doc.averageRating, Comparator.nullsLast(Comparator.reverseOrder()))
+                    .thenComparing(doc -> doc.ratingCount, Comparator.reverseOrder());
+            Comparator<Doc> order = scores == null ? byRating
+                    : Comparator.comparing((Doc doc) -> scores.get(doc.id), Comparator.reverseOrder()).thenComparing(byRating);
+            matches.sort(order.thenComparingLong(doc -> doc.id));
+
+            int from = (int) Math.min((long) page * size, matches.size());
+            int to = (int) Math.min((long) from + size, matches.size());
+            List<Long> ids = new ArrayList<>(to - from);
+            for (Doc doc : matches.subList(from, to)) {
+                ids.add(doc.id);
+            }
+            return new SearchResult(ids, matches.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Añade o actualiza un restaurante (tras guardarlo)
+     */
+    public void upsert(Restaurant restaurant) {
+        if (restaurant == null || restaurant.getId() == null) {
+            return;
+        }
+        Doc doc = toDoc(restaurant);
+        lock.writeLock().lock();
+        try {
+            removeDoc(restaurant.getId());
+            addDoc(doc);
+            trackChange(restaurant.getId());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long restaurantId) {
+        lock.writeLock().lock();
+        try {
+            removeDoc(restaurantId);
+            trackChange(restaurantId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Aplica un cambio en las valoraciones cuando la transacción actual confirma
+     * (mismo delta que RestaurantRepository.addRatings)
+     */
+    public void addRatingsAfterCommit(Long restaurantId, long scoreDelta, int countDelta) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            addRatings(restaurantId, scoreDelta, countDelta);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                addRatings(restaurantId, scoreDelta, countDelta);
+            }
+        });
+    }
+
+    private void addRatings(Long restaurantId, long scoreDelta, int countDelta) {
+        lock.writeLock().lock();
+        try {
+            trackChange(restaurantId);
+            Doc doc = docs.get(restaurantId);
+            if (doc == null) {
+                return;
+            }
+            doc.ratingSum = Math.max(0, doc.ratingSum + scoreDelta);
+            doc.ratingCount = Math.max(0, doc.ratingCount + countDelta);
+            doc.averageRating = doc.ratingCount > 0 ? (double) doc.ratingSum / doc.ratingCount : null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reconstruye el índice desde la BD (al arrancar y como red de seguridad periódica).
+     *
+     * findAll() se lee sin bloquear las búsquedas, así que un alta, edición, borrado
+     * o valoración aplicado mientras tanto puede no estar en la foto leída. Esos
+     * restaurantes se anotan y se vuelven a leer de la BD tras el cambio de índice,
+     * hasta que no quede ninguno pendiente.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.restaurants.search.refresh-ms:900000}",
+            initialDelayString = "${app.restaurants.search.refresh-ms:900000}")
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Set<Long> changed;
+        try {
+            List<Doc> loadedDocs = restaurantRepository.findAll().stream().map(RestaurantSearchIndex::toDoc).toList();
+            lock.writeLock().lock();
+            try {
+                docs.clear();
+                postings.clear();
+                trigrams.clear();
+                byType.clear();
+                byCity.clear();
+                loadedDocs.forEach(this::addDoc);
+                loaded = true;
+                changed = takeChanges();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            while (!changed.isEmpty()) {
+                Map<Long, Doc> fresh = new HashMap<>();
+                for (Restaurant restaurant : restaurantRepository.findAllById(changed)) {
+                    fresh.put(restaurant.getId(), toDoc(restaurant));
+                }
+                lock.writeLock().lock();
+                try {
+                    for (Long id : changed) {
+                        removeDoc(id);
+                        Doc doc = fresh.get(id);
+                        if (doc != null) {
+                            addDoc(doc);
+                        }
+                    }
+                    changed = takeChanges();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                changedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.debug("Índice de búsqueda de restaurantes: {} restaurantes, {} tokens", docs.size(), postings.size());
+    }
+
+    /**
+     * Reconstruye cuando la transacción actual confirma (o de inmediato si no hay transacción)
+     */
+    public void rebuildAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            rebuild();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                rebuild();
+            }
+        });
+    }
+
+    /**
+     * Anota un cambio si hay una reconstrucción en curso (con el write lock tomado)
+     */
+    private void trackChange(Long restaurantId) {
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.add(restaurantId);
+        }
+    }
+
+    /**
+     * Cambios anotados desde la última llamada (con el write lock tomado)
+     */
+    private Set<Long> takeChanges() {
+        Set<Long> changed = changedDuringRebuild;
+        changedDuringRebuild = new HashSet<>();
+        return changed;
+    }
+
+    // ==================== CONSULTA ====================
+
+    /**
+     * Restaurantes que contienen todos los términos, con su puntuación
+     */
+    private Map<Long, Double> matchAll(List<String> terms) {
+        Map<Long, Double> scores = null;
+        for (String term : terms) {
+            Map<Long, Double> termScores = match(term);
+            if (scores == null) {
+                scores = termScores;
+            } else {
+                Map<Long, Double> merged = new HashMap<>();
+                for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                    Double termScore = termScores.get(entry.getKey());
+                    if (termScore != null) {
+                        merged.put(entry.getKey(), entry.getValue() + termScore);
+                    }
+                }
+                scores = merged;
+            }
+            if (scores.isEmpty()) {
+                break;
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Mejor puntuación de cada restaurante para un término
+     */
+    private Map<Long, Double> match(String term) {
+        Map<Long, Double> scores = new HashMap<>();
+        for (String token : matchingTokens(term)) {
+            int quality = token.equals(term) ? 3 : token.startsWith(term) ? 2 : 1;
+            for (Map.Entry<Long, Integer> posting : postings.get(token).entrySet()) {
+                double score = quality * fieldWeight(posting.getValue());
+                scores.merge(posting.getKey(), score, Math::max);
+            }
+        }
+        return scores;
+    }
+
+    private Collection<String> matchingTokens(String term) {
+        if (term.length() < 3) {
+            return postings.subMap(term, true, term + Character.MAX_VALUE, true).keySet();
+        }
+        // Tokens que contienen todos los trigramas del término, empezando por el más selectivo
+        List<Set<String>> sets = new ArrayList<>();
+        for (String gram : trigramsOf(term)) {
+            Set<String> tokens = trigrams.get(gram);
+            if (tokens == null) {
+                return List.of();
+            }
+            sets.add(tokens);
+        }
+        sets.sort(Comparator.comparingInt(Set::size));
+        List<String> result = new ArrayList<>();
+        for (String token : sets.get(0)) {
+            if (token.contains(term)) {
+                result.add(token);
+            }
+        }
+        return result;
+    }
+
+    private Collection<Long> filterCandidates(RestaurantType type, String cityKey) {
+        Collection<Long> candidates = docs.keySet();
+        if (type != null) {
+            candidates = smaller(candidates, byType.getOrDefault(type, Set.of()));
+        }
+        if (cityKey != null) {
+            candidates = smaller(candidates, byCity.getOrDefault(cityKey, Set.of()));
+        }
+        return candidates;
+    }
+
+    private static Collection<Long> smaller(Collection<Long> a, Collection<Long> b) {
+        return a.size() <= b.size() ? a : b;
+    }
+
+    private static boolean matchesFilters(Doc doc, RestaurantType type, String cityKey, Double minRating) {
+        if (type != null && doc.type != type) {
+            return false;
+        }
+        if (cityKey != null && !cityKey.equals(doc.city)) {
+            return false;
+        }
+        return minRating == null || (doc.averageRating != null && doc.averageRating >= minRating);
+    }
+
+    private static double fieldWeight(int fields) {
+        if ((fields & NAME) != 0) return 8;
+        if ((fields & CITY) != 0) return 4;
+        if ((fields & TYPE) != 0) return 3;
+        return 1;
+    }
+
+    // ==================== MANTENIMIENTO ====================
+
+    private static Doc toDoc(Restaurant restaurant) {
+        Map<String, Integer> tokens = new HashMap<>();
+        addTokens(tokens, restaurant.getName(), NAME);
+        addTokens(tokens, restaurant.getCity(), CITY);
+        if (restaurant.getRestaurantType() != null) {
+            addTokens(tokens, restaurant.getRestaurantType().name().replace('_', ' '), TYPE);
+        }
+        addTokens(tokens, restaurant.getDescription(), DESCRIPTION);
+
+        String city = restaurant.getCity() == null || restaurant.getCity().isBlank()
+                ? null : fold(restaurant.getCity().trim());
+        Doc doc = new Doc(restaurant.getId(), restaurant.getRestaurantType(), city, tokens);
+        doc.ratingSum = restaurant.getRatingSum() != null ? restaurant.getRatingSum() : 0;
+        doc.ratingCount = restaurant.getRatingCount() != null ? restaurant.getRatingCount() : 0;
+        doc.averageRating = restaurant.getAverageRating();
+        return doc;
+    }
+
+    private static void addTokens(Map<String, Integer> tokens, String text, int field) {
+        for (String token : tokenize(text)) {
+            tokens.merge(token, field, (a, b) -> a | b);
+        }
+    }
+
+    private void addDoc(Doc doc) {
+        docs.put(doc.id, doc);
+        doc.tokens.forEach((token, fields) -> {
+            Map<Long, Integer> posting = postings.get(token);
+            if (posting == null) {
+                posting = new HashMap<>();
+                postings.put(token, posting);
+                for (String gram : trigramsOf(token)) {
+                    trigrams.computeIfAbsent(gram, g -> new HashSet<>()).add(token);
+                }
+            }
+            posting.put(doc.id, fields);
+        });
+        if (doc.type != null) {
+            byType.computeIfAbsent(doc.type, t -> new HashSet<>()).add(doc.id);
+        }
+        if (doc.city != null) {
+            byCity.computeIfAbsent(doc.city, c -> new HashSet<>()).add(doc.id);
+        }
+    }
+
+    private void removeDoc(Long id) {
+        Doc doc = docs.remove(id);
+        if (doc == null) {
+            return;
+        }
+        for (String token : doc.tokens.keySet()) {
+            Map<Long, Integer> posting = postings.get(token);
+            if (posting == null) {
+                continue;
+            }
+            posting.remove(id);
+            if (posting.isEmpty()) {
+                postings.remove(token);
+                for (String gram : trigramsOf(token)) {
+                    Set<String> tokens = trigrams.get(gram);
+                    if (tokens != null && tokens.remove(token) && tokens.isEmpty()) {
+                        trigrams.remove(gram);
+                    }
+                }
+            }
+        }
+        if (doc.type != null) {
+            removeFrom(byType.get(doc.type), id);
+        }
+        if (doc.city != null) {
+            Set<Long> ids = byCity.get(doc.city);
+            if (removeFrom(ids, id)) {
+                byCity.remove(doc.city);
+            }
+        }
+    }
+
+    private static boolean removeFrom(Set<Long> ids, Long id) {
+        return ids != null && ids.remove(id) && ids.isEmpty();
+    }
+
+    // ==================== NORMALIZACIÓN ====================
+
+    /**
+     * Minúsculas y sin acentos ("Café Ñoño" -> "cafe nono")
+     */
+    static String fold(String text) {
+        return MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : NON_WORD.split(fold(text))) {
+            if (!token.isEmpty() && !STOPWORDS.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static List<String> trigramsOf(String token) {
+        if (token.length() < 3) {
+            return List.of();
+        }
+        List<String> grams = new ArrayList<>(token.length() - 2);
+        for (int i = 0; i + 3 <= token.length(); i++) {
+            grams.add(token.substring(i, i + 3));
+        }
+        return grams;
+    }
+}
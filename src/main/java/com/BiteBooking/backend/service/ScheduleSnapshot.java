@@ -0,0 +1,85 @@
+package com.BiteBooking.backend.service;
+
+import com.BiteBooking.backend.model.ClosedDate;
+import com.BiteBooking.backend.model.RestaurantSchedule;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Foto inmutable de los horarios y fechas cerradas de un restaurante.
+ * Incluye los 7 días de la semana, las fechas cerradas ordenadas y las
+ * fechas recurrentes anuales (isRecurringYearly) expandidas por día/mes.
+ */
+public final class ScheduleSnapshot {
+
+    private final long version;
+    private final RestaurantSchedule[] schedulesByDay = new RestaurantSchedule[7];
+    private final NavigableMap<LocalDate, ClosedDate> closedDates = new TreeMap<>();
+    private final Map<MonthDay, ClosedDate> recurringClosedDates = new HashMap<>();
+
+    ScheduleSnapshot(long version, List<RestaurantSchedule> schedules, List<ClosedDate> closedDates) {
+        this.version = version;
+        for (RestaurantSchedule schedule : schedules) {
+            if (schedule.getDayOfWeek() != null) {
+                schedulesByDay[schedule.getDayOfWeek().ordinal()] = schedule;
+            }
+        }
+        for (ClosedDate closedDate : closedDates) {
+            if (closedDate.getClosedDate() == null) {
+                continue;
+            }
+            this.closedDates.putIfAbsent(closedDate.getClosedDate(), closedDate);
+            if (Boolean.TRUE.equals(closedDate.getIsRecurringYearly())) {
+                recurringClosedDates.putIfAbsent(MonthDay.from(closedDate.getClosedDate()), closedDate);
+            }
+        }
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    /**
+     * Horario configurado para un día de la semana
+     */
+    public Optional<RestaurantSchedule> getSchedule(DayOfWeek dayOfWeek) {
+        return Optional.ofNullable(schedulesByDay[dayOfWeek.ordinal()]);
+    }
+
+    /**
+     * Horarios configurados indexados por día de la semana
+     */
+    public Map<DayOfWeek, RestaurantSchedule> getSchedules() {
+        Map<DayOfWeek, RestaurantSchedule> schedules = new EnumMap<>(DayOfWeek.class);
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if (schedulesByDay[day.ordinal()] != null) {
+                schedules.put(day, schedulesByDay[day.ordinal()]);
+            }
+        }
+        return schedules;
+    }
+
+    /**
+     * Cierre aplicable a una fecha (exacto o recurrente anual)
+     */
+    public Optional<ClosedDate> getClosedDate(LocalDate date) {
+        ClosedDate closedDate = closedDates.get(date);
+        if (closedDate == null && !recurringClosedDates.isEmpty()) {
+            closedDate = recurringClosedDates.get(MonthDay.from(date));
+        }
+        return Optional.ofNullable(closedDate);
+    }
+
+    public boolean isClosed(LocalDate date) {
+        return getClosedDate(date).isPresent();
+    }
+}
@@ -0,0 +1,68 @@
+package com.BiteBooking.backend.service;
+
+import com.BiteBooking.backend.repository.ClosedDateRepository;
+import com.BiteBooking.backend.repository.RestaurantScheduleRepository;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caché de ScheduleSnapshot por restaurante.
+ * Cada restaurante tiene un número de versión que se incrementa al invalidar;
+ * una foto cargada con una versión anterior se descarta y se vuelve a cargar.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ScheduleSnapshotCache {
+
+    private static final int MAX_RESTAURANTS = 2_000;
+    private static final Duration EXPIRE_AFTER_WRITE = Duration.ofMinutes(30);
+
+    private final RestaurantScheduleRepository scheduleRepository;
+    private final ClosedDateRepository closedDateRepository;
+
+    private final Cache<Long, ScheduleSnapshot> snapshots = CacheBuilder.newBuilder()
+            .maximumSize(MAX_RESTAURANTS)
+            .expireAfterWrite(EXPIRE_AFTER_WRITE)
+            .build();
+
+    private final Map<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    /**
+     * Foto actual de horarios y cierres de un restaurante
+     */
+    public ScheduleSnapshot get(Long restaurantId) {
+        long version = version(restaurantId).get();
+        ScheduleSnapshot snapshot = snapshots.getIfPresent(restaurantId);
+        if (snapshot != null && snapshot.getVersion() == version) {
+            return snapshot;
+        }
+
+        snapshot = new ScheduleSnapshot(version,
+                scheduleRepository.findByRestaurantId(restaurantId),
+                closedDateRepository.findByRestaurantId(restaurantId));
+        snapshots.put(restaurantId, snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Invalida la foto tras modificar horarios o fechas cerradas
+     */
+    public void invalidate(Long restaurantId) {
+        version(restaurantId).incrementAndGet();
+        snapshots.invalidate(restaurantId);
+        log.debug("Horarios en caché invalidados para restaurante {}", restaurantId);
+    }
+
+    private AtomicLong version(Long restaurantId) {
+        return versions.computeIfAbsent(restaurantId, id -> new AtomicLong());
+    }
+}
@@ -0,0 +1,83 @@
+package com.BiteBooking.backend.service;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ocupación de un restaurante para un día, indexada por minuto del día.
+ * Se construye a partir de una única consulta agrupada y permite calcular
+ * la capacidad de todos los slots en memoria.
+ */
+public final class SlotOccupancy {
+
+    static final int MINUTES_PER_DAY = 24 * 60;
+
+    private static final SlotOccupancy EMPTY = new SlotOccupancy(new int[MINUTES_PER_DAY]);
+
+    private final int[] peopleByMinute;
+
+    private SlotOccupancy(int[] peopleByMinute) {
+        this.peopleByMinute = peopleByMinute;
+    }
+
+    /**
+     * Crea la ocupación a partir de filas [bookingTime, personas]
+     * (ver BookingRepository.sumBookedPeopleByTime)
+     */
+    public static SlotOccupancy fromRows(List<Object[]> rows) {
+        if (rows == null || rows.isEmpty()) {
+            return EMPTY;
+        }
+        int[] buckets = new int[MINUTES_PER_DAY];
+        for (Object[] row : rows) {
+            if (row[0] == null || row[1] == null) {
+                continue;
+            }
+            buckets[minuteOfDay((LocalTime) row[0])] += ((Number) row[1]).intValue();
+        }
+        return new SlotOccupancy(buckets);
+    }
+
+    /**
+     * Crea la ocupación de varios días a partir de filas [bookingDate, bookingTime, personas]
+     * (ver BookingRepository.sumBookedPeopleByDateAndTime)
+     */
+    public static Map<LocalDate, SlotOccupancy> byDate(List<Object[]> rows) {
+        Map<LocalDate, int[]> buckets = new HashMap<>();
+        for (Object[] row : rows) {
+            if (row[0] == null || row[1] == null || row[2] == null) {
+                continue;
+            }
+            int[] day = buckets.computeIfAbsent((LocalDate) row[0], d -> new int[MINUTES_PER_DAY]);
+            day[minuteOfDay((LocalTime) row[1])] += ((Number) row[2]).intValue();
+        }
+        Map<LocalDate, SlotOccupancy> result = new HashMap<>(buckets.size() * 2);
+        buckets.forEach((date, day) -> result.put(date, new SlotOccupancy(day)));
+        return result;
+    }
+
+    public static SlotOccupancy empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Personas reservadas exactamente a esa hora
+     */
+    public int bookedAt(LocalTime time) {
+        return peopleByMinute[minuteOfDay(time)];
+    }
+
+    /**
+     * Personas que llegan en cada minuto del día (solo lectura)
+     */
+    int[] arrivalsByMinute() {
+        return peopleByMinute;
+    }
+
+    static int minuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+}
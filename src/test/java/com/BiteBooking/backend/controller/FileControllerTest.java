@@ -0,0 +1,124 @@
+package com.BiteBooking.backend.controller;
+
+import com.BiteBooking.backend.service.FileService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class FileControllerTest {
+
+    private static final String NAME = "carta.txt";
+    private static final String CONTENT = "0123456789";
+
+    @TempDir
+    Path uploads;
+
+    private FileService fileService;
+    private MockMvc mockMvc;
+    private String etag;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Path file = Files.writeString(uploads.resolve(NAME), CONTENT, StandardCharsets.UTF_8);
+        fileService = mock(FileService.class);
+        when(fileService.loadPath(NAME)).thenReturn(file);
+        mockMvc = MockMvcBuilders.standaloneSetup(new FileController(fileService)).build();
+        etag = mockMvc.perform(get("/files/" + NAME)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    @Test
+    void servesWholeFileWithValidators() throws Exception {
+        mockMvc.perform(get("/files/" + NAME))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, CONTENT.length()))
+                .andExpect(content().string(CONTENT));
+    }
+
+    @Test
+    void servesOriginalAndRequestsVariantWhenMissing() throws Exception {
+        mockMvc.perform(get("/files/" + NAME).param("size", "thumb"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, max-age=60"))
+                .andExpect(content().string(CONTENT));
+
+        verify(fileService).requestMissingVariants(NAME);
+    }
+
+    @Test
+    void servesSingleRange() throws Exception {
+        mockMvc.perform(get("/files/" + NAME).header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 4))
+                .andExpect(content().string("2345"));
+
+        mockMvc.perform(get("/files/" + NAME).header(HttpHeaders.RANGE, "bytes=-3"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 7-9/10"))
+                .andExpect(content().string("789"));
+
+        mockMvc.perform(get("/files/" + NAME).header(HttpHeaders.RANGE, "bytes=8-"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 8-9/10"))
+                .andExpect(content().string("89"));
+    }
+
+    @Test
+    void rejectsUnsatisfiableRange() throws Exception {
+        mockMvc.perform(get("/files/" + NAME).header(HttpHeaders.RANGE, "bytes=10-20"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */10"));
+    }
+
+    @Test
+    void ignoresMultipleRanges() throws Exception {
+        mockMvc.perform(get("/files/" + NAME).header(HttpHeaders.RANGE, "bytes=0-1,4-5"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(CONTENT));
+    }
+
+    @Test
+    void answersNotModifiedForMatchingETag() throws Exception {
+        mockMvc.perform(get("/files/" + NAME).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+
+        mockMvc.perform(get("/files/" + NAME).header(HttpHeaders.IF_NONE_MATCH, "\"otro\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void appliesRangeOnlyWhenIfRangeMatches() throws Exception {
+        mockMvc.perform(get("/files/" + NAME)
+                        .header(HttpHeaders.RANGE, "bytes=0-1")
+                        .header(HttpHeaders.IF_RANGE, etag))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().string("01"));
+
+        // El archivo ha cambiado desde que el cliente guardó el tramo: se envía completo
+        mockMvc.perform(get("/files/" + NAME)
+                        .header(HttpHeaders.RANGE, "bytes=0-1")
+                        .header(HttpHeaders.IF_RANGE, "\"antiguo\""))
+                .andExpect(status().isOk())
+                .andExpect(content().string(CONTENT));
+    }
+}
@@ -0,0 +1,72 @@
+package com.BiteBooking.backend.controller;
+
+import com.BiteBooking.backend.model.Restaurant;
+import com.BiteBooking.backend.repository.RestaurantRepository;
+import com.BiteBooking.backend.service.FileService;
+import com.BiteBooking.backend.service.RestaurantSearchIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class RestaurantControllerTest {
+
+    private final RestaurantRepository repository = mock(RestaurantRepository.class);
+    private final RestaurantSearchIndex searchIndex = mock(RestaurantSearchIndex.class);
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new RestaurantController(repository, mock(FileService.class), searchIndex))
+                .build();
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("user", null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void searchAnswers503WhileIndexIsLoading() throws Exception {
+        when(searchIndex.isLoaded()).thenReturn(false);
+
+        mockMvc.perform(get("/restaurant/search").param("q", "sushi"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.error").exists());
+
+        verify(searchIndex, never()).rebuild();
+        verify(searchIndex, never()).search(any(), any(), any(), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void nameFilterMatchesOnlyTheName() throws Exception {
+        Restaurant restaurant = new Restaurant();
+        restaurant.setId(1L);
+        restaurant.setName("Casa de Comidas");
+        when(repository.findByNameContainingIgnoreCase("de")).thenReturn(List.of(restaurant));
+
+        mockMvc.perform(get("/restaurant").param("name", "de"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1));
+
+        verifyNoInteractions(searchIndex);
+    }
+}
@@ -0,0 +1,118 @@
+package com.BiteBooking.backend.repository;
+
+import com.BiteBooking.backend.model.Promotion;
+import com.BiteBooking.backend.model.PromotionType;
+import com.BiteBooking.backend.model.Restaurant;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Benchmark de canjes por segundo sobre una misma promoción contra la BD real
+ * (MySQL de application.properties), con el UPDATE condicional de redeem.
+ * Fuera de "mvn test"; se ejecuta con mvn test -Pbenchmark.
+ * La corrección bajo concurrencia se comprueba en PromotionRepositoryTest.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Tag("benchmark")
+@Slf4j
+class PromotionRedemptionBenchmarkTest {
+
+    private static final int THREADS = 16;
+    private static final int REDEMPTIONS = 5_000;
+    // Intentos de más, que llegan con la promoción ya agotada
+    private static final int EXTRA_ATTEMPTS = 1_000;
+
+    @Autowired
+    private PromotionRepository promotionRepository;
+    @Autowired
+    private RestaurantRepository restaurantRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Restaurant restaurant;
+    private Promotion promotion;
+
+    @BeforeEach
+    void setUp() {
+        restaurant = new Restaurant();
+        restaurant.setName("Restaurante de benchmark");
+        restaurant = restaurantRepository.save(restaurant);
+
+        promotion = new Promotion();
+        promotion.setTitle("Benchmark");
+        promotion.setType(PromotionType.PERCENTAGE_DISCOUNT);
+        promotion.setStartDate(LocalDate.now().minusDays(1));
+        promotion.setEndDate(LocalDate.now().plusDays(1));
+        promotion.setMaxUses(REDEMPTIONS);
+        promotion.setRestaurant(restaurant);
+        promotion = promotionRepository.save(promotion);
+    }
+
+    @AfterEach
+    void tearDown() {
+        promotionRepository.deleteById(promotion.getId());
+        restaurantRepository.deleteById(restaurant.getId());
+    }
+
+    @Test
+    void redemptionsPerSecondOnASinglePromotion() throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        AtomicInteger accepted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long elapsed;
+        try {
+            List<Future<?>> futures = new ArrayList<>(REDEMPTIONS + EXTRA_ATTEMPTS);
+            for (int i = 0; i < REDEMPTIONS + EXTRA_ATTEMPTS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    Integer updated = transactionTemplate.execute(status ->
+                            promotionRepository.redeem(promotion.getId(), LocalDateTime.now()));
+                    if (updated != null && updated == 1) {
+                        accepted.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            elapsed = System.nanoTime() - begin;
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(REDEMPTIONS, accepted.get());
+        assertEquals(REDEMPTIONS, promotionRepository.findById(promotion.getId()).orElseThrow().getCurrentUses());
+
+        log.info("Canjes: {} aceptados + {} rechazados con {} hilos en {} ms ({} intentos/s)",
+                REDEMPTIONS, EXTRA_ATTEMPTS, THREADS, elapsed / 1_000_000,
+                (REDEMPTIONS + EXTRA_ATTEMPTS) * 1_000_000_000L / elapsed);
+    }
+}
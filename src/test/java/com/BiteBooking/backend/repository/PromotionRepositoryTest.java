@@ -0,0 +1,110 @@
+package com.BiteBooking.backend.repository;
+
+import com.BiteBooking.backend.model.Promotion;
+import com.BiteBooking.backend.model.PromotionType;
+import com.BiteBooking.backend.model.Restaurant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Canjes concurrentes contra la BD real (MySQL de application.properties):
+ * el UPDATE condicional de redeem nunca supera maxUses.
+ * Se ejecuta con el perfil de Maven "integration".
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Tag("integration")
+class PromotionRepositoryTest {
+
+    private static final int MAX_USES = 30;
+    private static final int REQUESTS = 200;
+
+    @Autowired
+    private PromotionRepository promotionRepository;
+    @Autowired
+    private RestaurantRepository restaurantRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Restaurant restaurant;
+    private Promotion promotion;
+
+    @BeforeEach
+    void setUp() {
+        restaurant = new Restaurant();
+        restaurant.setName("Restaurante de prueba");
+        restaurant = restaurantRepository.save(restaurant);
+
+        promotion = new Promotion();
+        promotion.setTitle("Flash");
+        promotion.setType(PromotionType.PERCENTAGE_DISCOUNT);
+        promotion.setStartDate(LocalDate.now().minusDays(1));
+        promotion.setEndDate(LocalDate.now().plusDays(1));
+        promotion.setMaxUses(MAX_USES);
+        promotion.setRestaurant(restaurant);
+        promotion = promotionRepository.save(promotion);
+    }
+
+    @AfterEach
+    void tearDown() {
+        promotionRepository.deleteById(promotion.getId());
+        restaurantRepository.deleteById(restaurant.getId());
+    }
+
+    @Test
+    void concurrentRedemptionsNeverExceedMaxUses() throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        AtomicInteger accepted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<?>> futures = new ArrayList<>(REQUESTS);
+            for (int i = 0; i < REQUESTS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    Integer updated = transactionTemplate.execute(status -> redeem());
+                    if (updated != null && updated == 1) {
+                        accepted.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(MAX_USES, accepted.get());
+        assertEquals(MAX_USES, promotionRepository.findById(promotion.getId()).orElseThrow().getCurrentUses());
+        assertEquals(Integer.valueOf(0), transactionTemplate.execute(status -> redeem()));
+    }
+
+    private int redeem() {
+        return promotionRepository.redeem(promotion.getId(), LocalDateTime.now());
+    }
+}
@@ -0,0 +1,173 @@
+package com.BiteBooking.backend.service;
+
+import com.BiteBooking.backend.repository.BookingRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CapacityLedgerTest {
+
+    private static final LocalDate DATE = LocalDate.of(2030, 6, 14);
+    private static final LocalTime TIME = LocalTime.of(21, 0);
+
+    @Test
+    void concurrentReservationsNeverOversellSlot() throws Exception {
+        BookingRepository repository = mock(BookingRepository.class);
+        when(repository.sumBookedPeopleByTime(anyLong(), any())).thenReturn(rows(4));
+        CapacityLedger ledger = new CapacityLedger(repository);
+
+        int maxPerSlot = 40;
+        int requests = 5000;
+        AtomicInteger accepted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        try {
+            List<Future<?>> futures = new ArrayList<>(requests);
+            for (int i = 0; i < requests; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    if (ledger.tryReserve(1L, DATE, TIME, 2, maxPerSlot)) {
+                        accepted.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // 4 personas ya reservadas en BD: quedan 36 plazas = 18 reservas de 2
+        assertEquals(18, accepted.get());
+        assertFalse(ledger.tryReserve(1L, DATE, TIME, 1, maxPerSlot));
+        verify(repository, times(1)).sumBookedPeopleByTime(1L, DATE);
+    }
+
+    @Test
+    void releaseAndInvalidateRestoreCapacity() {
+        BookingRepository repository = mock(BookingRepository.class);
+        when(repository.sumBookedPeopleByTime(anyLong(), any())).thenReturn(rows(0));
+        CapacityLedger ledger = new CapacityLedger(repository);
+
+        assertTrue(ledger.tryReserve(1L, DATE, TIME, 10, 10));
+        assertFalse(ledger.tryReserve(1L, DATE, TIME, 1, 10));
+
+        ledger.release(1L, DATE, TIME, 4);
+        assertTrue(ledger.tryReserve(1L, DATE, TIME, 4, 10));
+
+        // La BD no tiene reservas (p. ej. se borraron con DELETE directo)
+        ledger.invalidate(1L, DATE);
+        assertTrue(ledger.tryReserve(1L, DATE, TIME, 10, 10));
+        verify(repository, times(2)).sumBookedPeopleByTime(1L, DATE);
+    }
+
+    @Test
+    void invalidateKeepsReservationsInFlight() {
+        BookingRepository repository = mock(BookingRepository.class);
+        when(repository.sumBookedPeopleByTime(anyLong(), any())).thenReturn(rows(0));
+        CapacityLedger ledger = new CapacityLedger(repository);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertTrue(ledger.tryReserve(1L, DATE, TIME, 6, 10));
+            List<TransactionSynchronization> inFlight = TransactionSynchronizationManager.getSynchronizations();
+
+            // Recarga mientras la reserva no ha confirmado: la BD aún no la ve
+            ledger.invalidate(1L, DATE);
+            assertFalse(ledger.tryReserve(1L, DATE, TIME, 5, 10));
+
+            // Al revertirse se liberan sus plazas sin dejar el contador por debajo de la BD
+            inFlight.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertTrue(ledger.tryReserve(1L, DATE, TIME, 10, 10));
+        assertFalse(ledger.tryReserve(1L, DATE, TIME, 1, 10));
+    }
+
+    @Test
+    void committedReservationCountsAfterCompletion() {
+        BookingRepository repository = mock(BookingRepository.class);
+        when(repository.sumBookedPeopleByTime(anyLong(), any())).thenReturn(rows(0));
+        CapacityLedger ledger = new CapacityLedger(repository);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertTrue(ledger.tryReserve(1L, DATE, TIME, 6, 10));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertFalse(ledger.tryReserve(1L, DATE, TIME, 5, 10));
+        assertTrue(ledger.tryReserve(1L, DATE, TIME, 4, 10));
+    }
+
+    @Test
+    void overlappingNeighbourSlotsShareTotalSeats() throws Exception {
+        BookingRepository repository = mock(BookingRepository.class);
+        when(repository.sumBookedPeopleByTime(anyLong(), any())).thenReturn(rows(0));
+        CapacityLedger ledger = new CapacityLedger(repository);
+        // 20 por slot, 30 de aforo total, reservas de 90 minutos
+        CapacityLedger.Limits limits = new CapacityLedger.Limits(20, 30, 90);
+        LocalTime[] times = {LocalTime.of(20, 0), LocalTime.of(20, 30), LocalTime.of(21, 0)};
+
+        AtomicInteger seated = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                LocalTime time = times[i % times.length];
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    if (ledger.tryReserve(1L, DATE, time, 2, limits)) {
+                        seated.addAndGet(2);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Las tres horas se solapan a las 21:00: nunca más de 30 personas sentadas
+        assertEquals(30, seated.get());
+        assertFalse(ledger.tryReserve(1L, DATE, LocalTime.of(20, 45), 2, limits));
+        // A las 22:30 ya se han ido todos
+        assertTrue(ledger.tryReserve(1L, DATE, LocalTime.of(22, 30), 2, limits));
+    }
+
+    private static List<Object[]> rows(int people) {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{TIME, (long) people});
+        return rows;
+    }
+}
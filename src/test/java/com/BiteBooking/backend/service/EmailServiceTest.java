@@ -0,0 +1,119 @@
+package com.BiteBooking.backend.service;
+
+import com.BiteBooking.backend.model.Booking;
+import com.BiteBooking.backend.model.Restaurant;
+import com.BiteBooking.backend.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Los emails renderizados con EmailTemplate son idénticos a los que construía
+ * EmailService con StringBuilder (LegacyEmails) y escapan los datos de la reserva
+ */
+class EmailServiceTest {
+
+    private static final String FRONTEND_URL = "https://bitebooking.example";
+
+    private EmailService emailService;
+
+    @BeforeEach
+    void setUp() {
+        emailService = new EmailService(mock(MailDispatcher.class));
+        ReflectionTestUtils.setField(emailService, "frontendUrl", FRONTEND_URL);
+    }
+
+    static Booking booking(int i) {
+        User user = new User();
+        user.setFirstName("Cliente" + i);
+        user.setLastName("Apellido" + i);
+        user.setEmail("cliente" + i + "@example.com");
+
+        Restaurant restaurant = new Restaurant();
+        restaurant.setId((long) (i % 50));
+        restaurant.setName("Restaurante " + (i % 50));
+        restaurant.setAddress("Calle Mayor " + (i % 200));
+
+        Booking booking = new Booking();
+        booking.setId((long) i);
+        booking.setUser(user);
+        booking.setRestaurant(restaurant);
+        booking.setBookingDate(LocalDate.of(2025, 6, 1).plusDays(i % 30));
+        booking.setBookingTime(LocalTime.of(13 + i % 9, (i % 4) * 15));
+        booking.setNumPeople(1 + i % 8);
+        booking.setContactPhone("600" + (100000 + i));
+        booking.setObservations("Observacion " + i);
+        return booking;
+    }
+
+    @Test
+    void customerEmailsMatchStringBuilderOutput() {
+        for (int i = 0; i < 40; i++) {
+            Booking booking = booking(i);
+            assertEquals(LegacyEmails.confirmation(booking, FRONTEND_URL), emailService.buildConfirmationEmail(booking));
+            assertEquals(LegacyEmails.newBooking(booking, FRONTEND_URL), emailService.buildNewBookingEmail(booking));
+            assertEquals(LegacyEmails.reminder(booking, FRONTEND_URL), emailService.buildReminderEmail(booking));
+            assertEquals(LegacyEmails.cancellation(booking, FRONTEND_URL), emailService.buildCancellationEmail(booking));
+        }
+    }
+
+    @Test
+    void optionalValuesMatchStringBuilderOutput() {
+        Booking booking = booking(3);
+        booking.getRestaurant().setAddress(null);
+        booking.setCancellationReason("Cierre por obras");
+        assertEquals(LegacyEmails.cancellation(booking, FRONTEND_URL), emailService.buildCancellationEmail(booking));
+        assertTrue(emailService.buildReminderEmail(booking).contains("No especificada"));
+
+        booking.getUser().setLastName(null);
+        booking.setContactPhone(null);
+        booking.setObservations(null);
+        assertEquals(LegacyEmails.restaurantNotification(booking, FRONTEND_URL),
+                emailService.buildRestaurantNotificationEmail(booking));
+    }
+
+    @Test
+    void restaurantNotificationMatchesStringBuilderOutput() {
+        for (int i = 0; i < 40; i++) {
+            Booking booking = booking(i);
+            assertEquals(LegacyEmails.restaurantNotification(booking, FRONTEND_URL),
+                    emailService.buildRestaurantNotificationEmail(booking));
+        }
+    }
+
+    @Test
+    void rejectionEmailIsNotACancellation() {
+        Booking booking = booking(5);
+        booking.setCancellationReason("Completo");
+
+        String html = emailService.buildRejectionEmail(booking);
+
+        assertTrue(html.contains("Reserva No Aceptada"));
+        assertTrue(html.contains("no ha podido aceptar tu reserva. Motivo: Completo"));
+        assertFalse(html.contains("Reserva Cancelada"));
+    }
+
+    @Test
+    void bookingFieldsAreEscaped() {
+        Booking booking = booking(0);
+        booking.getRestaurant().setName("<script>alert('x')</script> & Co");
+        booking.setObservations("Mesa \"tranquila\"");
+        booking.setContactPhone(null);
+
+        String reminder = emailService.buildReminderEmail(booking);
+        assertTrue(reminder.contains("&lt;script&gt;alert(&#39;x&#39;)&lt;/script&gt; &amp; Co"));
+        assertFalse(reminder.contains("<script>"));
+
+        String notification = emailService.buildRestaurantNotificationEmail(booking);
+        assertTrue(notification.contains("Mesa &quot;tranquila&quot;"));
+        assertFalse(notification.contains("Telefono"));
+    }
+}
@@ -0,0 +1,59 @@
+package com.BiteBooking.backend.service;
+
+import com.BiteBooking.backend.model.Booking;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Benchmark del renderizado de recordatorios: plantilla precompilada (EmailTemplate)
+ * frente al StringBuilder que construía el HTML completo en cada mensaje.
+ * Fuera de "mvn test"; se ejecuta con mvn test -Pbenchmark.
+ * La equivalencia del HTML se comprueba en EmailServiceTest.
+ */
+@Tag("benchmark")
+@Slf4j
+class EmailTemplateBenchmarkTest {
+
+    private static final int BOOKINGS = 20_000;
+    private static final int ROUNDS = 5;
+    private static final String FRONTEND_URL = "https://bitebooking.example";
+
+    @Test
+    void precompiledTemplateVersusStringBuilder() {
+        EmailService emailService = new EmailService(mock(MailDispatcher.class));
+        ReflectionTestUtils.setField(emailService, "frontendUrl", FRONTEND_URL);
+        List<Booking> bookings = new ArrayList<>(BOOKINGS);
+        for (int i = 0; i < BOOKINGS; i++) {
+            bookings.add(EmailServiceTest.booking(i));
+        }
+
+        long legacyBest = Long.MAX_VALUE;
+        long templateBest = Long.MAX_VALUE;
+        long checksum = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long begin = System.nanoTime();
+            for (Booking booking : bookings) {
+                checksum += LegacyEmails.reminder(booking, FRONTEND_URL).length();
+            }
+            legacyBest = Math.min(legacyBest, System.nanoTime() - begin);
+
+            begin = System.nanoTime();
+            for (Booking booking : bookings) {
+                checksum -= emailService.buildReminderEmail(booking).length();
+            }
+            templateBest = Math.min(templateBest, System.nanoTime() - begin);
+        }
+        assertEquals(0, checksum);
+
+        log.info("Recordatorios: {}, StringBuilder {} ms, plantilla {} ms",
+                BOOKINGS, legacyBest / 1_000_000, templateBest / 1_000_000);
+    }
+}
@@ -0,0 +1,252 @@
+package com.BiteBooking.backend.service;
+
+import com.BiteBooking.backend.exception.FileException;
+import com.BiteBooking.backend.repository.StoredBlobRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class FileServiceTest {
+
+    private static final String NAME = "0".repeat(63) + "f.png";
+    private static final byte[] PNG_HEADER = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] JPEG_HEADER = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0};
+
+    private final StoredBlobRepository storedBlobRepository = mock(StoredBlobRepository.class);
+    private final ImageVariantService imageVariantService = mock(ImageVariantService.class);
+    private final TransactionTemplate transactionTemplate = new TransactionTemplate(new NoOpTransactionManager());
+
+    @TempDir
+    Path uploads;
+
+    private FileService fileService;
+    private Path file;
+
+    /**
+     * Gestor sin recursos: propaga, suspende y sincroniza (afterCommit) como uno real
+     */
+    private static class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+        private final ThreadLocal<Boolean> active = ThreadLocal.withInitial(() -> false);
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected boolean isExistingTransaction(Object transaction) {
+            return active.get();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+            active.set(true);
+        }
+
+        @Override
+        protected Object doSuspend(Object transaction) {
+            active.set(false);
+            return Boolean.TRUE;
+        }
+
+        @Override
+        protected void doResume(Object transaction, Object suspendedResources) {
+            active.set(true);
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doCleanupAfterCompletion(Object transaction) {
+            active.set(false);
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        fileService = new FileService(imageVariantService, storedBlobRepository, transactionTemplate, uploads.toString());
+        file = Files.writeString(uploads.resolve(NAME), "png");
+    }
+
+    @Test
+    void deletesLastReferenceOnlyAfterCommit() {
+        when(storedBlobRepository.deleteIfUnreferenced(NAME)).thenReturn(1);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            fileService.release(NAME);
+            assertTrue(Files.exists(file));
+        });
+
+        assertFalse(Files.exists(file));
+        verify(imageVariantService).delete(NAME);
+    }
+
+    @Test
+    void keepsFileWhenTransactionRollsBack() {
+        when(storedBlobRepository.deleteIfUnreferenced(NAME)).thenReturn(1);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            fileService.release(NAME);
+            status.setRollbackOnly();
+        });
+
+        assertTrue(Files.exists(file));
+        verify(imageVariantService, never()).delete(anyString());
+    }
+
+    @Test
+    void keepsFileWhileReferenced() {
+        when(storedBlobRepository.deleteIfUnreferenced(NAME)).thenReturn(0);
+
+        fileService.release(NAME);
+
+        assertTrue(Files.exists(file));
+        verify(storedBlobRepository).removeReference(NAME);
+        verify(storedBlobRepository, never()).lockByFileName(anyString());
+    }
+
+    @Test
+    void keepsFileStoredAgainBeforeDeletion() {
+        when(storedBlobRepository.deleteIfUnreferenced(NAME)).thenReturn(1);
+        when(storedBlobRepository.lockByFileName(NAME)).thenReturn(1L);
+
+        fileService.release(NAME);
+
+        assertTrue(Files.exists(file));
+        verify(imageVariantService, never()).delete(anyString());
+    }
+
+    @Test
+    void releaseStoredIgnoresDefaultAndLegacyNames() {
+        fileService.releaseStored(null);
+        fileService.releaseStored("avatar.png");
+        fileService.releaseStored("Robata-8e1cb523-457a-40a0-9884-6897d015ac75.webp");
+
+        verifyNoInteractions(storedBlobRepository, imageVariantService);
+    }
+
+    // ==================== STORE ====================
+
+    private static byte[] content(byte[] header, int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        System.arraycopy(header, 0, bytes, 0, header.length);
+        return bytes;
+    }
+
+    /**
+     * Multipart que solo se puede leer como stream (store no debe cargarlo entero en memoria)
+     */
+    private static MockMultipartFile upload(String name, byte[] bytes) {
+        return new MockMultipartFile("photo", name, "image/png", bytes) {
+            @Override
+            public byte[] getBytes() {
+                throw new AssertionError("store debe leer el archivo como stream");
+            }
+        };
+    }
+
+    private static String sha256(byte[] bytes) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+    }
+
+    @Test
+    void storeNamesLargeUploadsByContentHash() throws Exception {
+        // Mayor que el buffer de 64 KB: el hash y la copia se hacen por bloques
+        byte[] bytes = content(PNG_HEADER, 200_000);
+
+        String name = fileService.store(upload("foto.jpg", bytes));
+
+        assertEquals(sha256(bytes) + ".png", name);
+        assertArrayEquals(bytes, Files.readAllBytes(uploads.resolve(name)));
+        verify(storedBlobRepository).addReference(eq(sha256(bytes)), eq(name), eq("image/png"),
+                eq(200_000L), any(LocalDateTime.class));
+        verify(imageVariantService).submit(name);
+        try (Stream<Path> files = Files.list(uploads)) {
+            assertFalse(files.anyMatch(path -> path.getFileName().toString().startsWith(".upload-")));
+        }
+    }
+
+    @Test
+    void storeTakesExtensionFromContent() throws Exception {
+        byte[] jpeg = content(JPEG_HEADER, 1000);
+        assertEquals(sha256(jpeg) + ".jpg", fileService.store(upload("foto.png", jpeg)));
+
+        byte[] unknown = "no es una imagen".getBytes(StandardCharsets.UTF_8);
+        String name = fileService.store(upload("foto.png", unknown));
+        assertEquals(sha256(unknown) + ".bin", name);
+        verify(storedBlobRepository).addReference(eq(sha256(unknown)), eq(name), eq("application/octet-stream"),
+                eq((long) unknown.length), any(LocalDateTime.class));
+        verify(imageVariantService, never()).submit(name);
+    }
+
+    @Test
+    void storeOfIdenticalContentOnlyAddsAReference() throws Exception {
+        byte[] bytes = content(PNG_HEADER, 5000);
+        String name = fileService.store(upload("a.png", bytes));
+        Path stored = uploads.resolve(name);
+        FileTime original = FileTime.fromMillis(1_000_000_000L);
+        Files.setLastModifiedTime(stored, original);
+
+        assertEquals(name, fileService.store(upload("b.png", bytes)));
+
+        assertEquals(original, Files.getLastModifiedTime(stored));
+        verify(storedBlobRepository, times(2)).addReference(eq(sha256(bytes)), eq(name), anyString(),
+                eq(5000L), any(LocalDateTime.class));
+        verify(imageVariantService, times(1)).submit(name);
+        try (Stream<Path> files = Files.list(uploads)) {
+            assertEquals(2, files.count()); // NAME del setUp y la subida
+        }
+    }
+
+    @Test
+    void storeRejectsEmptyUploads() {
+        assertThrows(FileException.class, () -> fileService.store(upload("vacio.png", new byte[0])));
+        verifyNoInteractions(storedBlobRepository);
+    }
+
+    @Test
+    void isImageChecksMagicBytesNotTheName() {
+        assertTrue(fileService.isImage(upload("foto.bin", content(PNG_HEADER, 100))));
+        assertTrue(fileService.isImage(upload("foto", content(JPEG_HEADER, 100))));
+        assertFalse(fileService.isImage(new MockMultipartFile("photo", "foto.jpg", "image/jpeg",
+                "<?php echo 'hola'; ?>".getBytes(StandardCharsets.UTF_8))));
+        assertFalse(fileService.isImage(new MockMultipartFile("photo", "foto.png", "image/png", new byte[0])));
+    }
+}
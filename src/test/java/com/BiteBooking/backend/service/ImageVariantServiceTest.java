@@ -0,0 +1,103 @@
+package com.BiteBooking.backend.service;
+
+import com.BiteBooking.backend.exception.FileException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImageVariantServiceTest {
+
+    private static final String NAME = "f".repeat(64) + ".png";
+
+    @TempDir
+    Path uploads;
+
+    private ImageVariantService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ImageVariantService(uploads.toString(), 1, 4);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        service.shutdown();
+    }
+
+    @Test
+    void scaleKeepsAspectRatioAndNeverEnlarges() {
+        BufferedImage wide = new BufferedImage(3000, 1500, BufferedImage.TYPE_INT_ARGB);
+
+        BufferedImage thumb = ImageVariantService.scale(wide, ImageVariant.THUMB.getMaxSide());
+        assertEquals(240, thumb.getWidth());
+        assertEquals(120, thumb.getHeight());
+        assertEquals(BufferedImage.TYPE_INT_RGB, thumb.getType());
+
+        BufferedImage small = new BufferedImage(100, 50, BufferedImage.TYPE_INT_RGB);
+        assertSame(small, ImageVariantService.scale(small, ImageVariant.FULL.getMaxSide()));
+
+        BufferedImage tall = ImageVariantService.scale(new BufferedImage(500, 2000, BufferedImage.TYPE_INT_RGB), 800);
+        assertEquals(200, tall.getWidth());
+        assertEquals(800, tall.getHeight());
+    }
+
+    @Test
+    void generateWritesEveryVariantAndDeleteRemovesThem() throws Exception {
+        ImageIO.write(new BufferedImage(2000, 1000, BufferedImage.TYPE_INT_RGB), "png", uploads.resolve(NAME).toFile());
+
+        service.generate(NAME);
+
+        for (ImageVariant variant : ImageVariant.values()) {
+            Path file = uploads.resolve(variant.fileName(NAME));
+            assertTrue(Files.exists(file), variant.name());
+            BufferedImage image = ImageIO.read(file.toFile());
+            assertEquals(Math.min(2000, variant.getMaxSide()), image.getWidth(), variant.name());
+        }
+
+        service.delete(NAME);
+        for (ImageVariant variant : ImageVariant.values()) {
+            assertFalse(Files.exists(uploads.resolve(variant.fileName(NAME))), variant.name());
+        }
+    }
+
+    @Test
+    void generateIgnoresFilesThatAreNotImages() throws Exception {
+        Files.writeString(uploads.resolve(NAME), "no es una imagen");
+
+        service.generate(NAME);
+
+        assertFalse(Files.exists(uploads.resolve(ImageVariant.THUMB.fileName(NAME))));
+    }
+
+    @Test
+    void submitMissingGeneratesVariantsOfOlderUploads() throws Exception {
+        String legacy = "foto-123e4567-e89b-12d3-a456-426614174000.png";
+        ImageIO.write(new BufferedImage(400, 300, BufferedImage.TYPE_INT_RGB), "png", uploads.resolve(legacy).toFile());
+
+        service.submitMissing(legacy);
+        service.shutdown();
+
+        for (ImageVariant variant : ImageVariant.values()) {
+            assertTrue(Files.exists(uploads.resolve(variant.fileName(legacy))), variant.name());
+        }
+    }
+
+    @Test
+    void variantNamesAndParams() {
+        assertEquals("variants/foto-thumb.jpg", ImageVariant.THUMB.fileName("foto.png"));
+        assertEquals(ImageVariant.MEDIUM, ImageVariant.fromParam(" Medium "));
+        assertThrows(FileException.class, () -> ImageVariant.fromParam("huge"));
+    }
+}
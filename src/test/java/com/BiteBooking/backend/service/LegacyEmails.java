@@ -0,0 +1,99 @@
+package com.BiteBooking.backend.service;
+
+import com.BiteBooking.backend.model.Booking;
+
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * HTML que construían los métodos de EmailService con StringBuilder antes de
+ * EmailTemplate (referencia para comprobar que el resultado no cambia)
+ */
+final class LegacyEmails {
+
+    private static final DateTimeFormatter DATE_FORMATTER =
+        DateTimeFormatter.ofPattern("EEEE, d 'de' MMMM 'de' yyyy", Locale.of("es", "ES"));
+    private static final DateTimeFormatter TIME_FORMATTER =
+        DateTimeFormatter.ofPattern("HH:mm");
+
+    private LegacyEmails() {
+    }
+
+    static String confirmation(Booking booking, String frontendUrl) {
+        return emailTemplate("Reserva Confirmada", "Tu reserva ha sido confirmada.", booking,
+            frontendUrl + "/mis-reservas", "Ver mis reservas");
+    }
+
+    static String newBooking(Booking booking, String frontendUrl) {
+        return emailTemplate("Reserva Recibida", "Hemos recibido tu reserva. Te confirmaremos pronto.", booking,
+            frontendUrl + "/mis-reservas", "Ver mis reservas");
+    }
+
+    static String reminder(Booking booking, String frontendUrl) {
+        return emailTemplate("Recordatorio", "Te recordamos que manana tienes una reserva.", booking,
+            frontendUrl + "/mis-reservas", "Ver detalles");
+    }
+
+    static String cancellation(Booking booking, String frontendUrl) {
+        String reason = booking.getCancellationReason() != null ?
+            " Motivo: " + booking.getCancellationReason() : "";
+        return emailTemplate("Reserva Cancelada", "Tu reserva ha sido cancelada." + reason, booking,
+            frontendUrl + "/restaurantes/" + booking.getRestaurant().getId(), "Reservar de nuevo");
+    }
+
+    private static String emailTemplate(String title, String message, Booking booking, String actionUrl, String actionText) {
+        String address = booking.getRestaurant().getAddress() != null ?
+            booking.getRestaurant().getAddress() : "No especificada";
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("<!DOCTYPE html><html><head><meta charset='UTF-8'></head>");
+        sb.append("<body style='font-family: Arial, sans-serif; max-width: 600px; margin: 0 auto; padding: 20px;'>");
+        sb.append("<div style='background: linear-gradient(135deg, #667eea 0%, #764ba2 100%); color: white; padding: 20px; border-radius: 10px 10px 0 0; text-align: center;'>");
+        sb.append("<h1>BiteBooking</h1>");
+        sb.append("<p style='font-size: 18px;'>").append(title).append("</p></div>");
+        sb.append("<div style='background: #f8f9fa; padding: 20px; border-radius: 0 0 10px 10px;'>");
+        sb.append("<p>").append(message).append("</p>");
+        sb.append("<div style='background: white; padding: 15px; border-radius: 8px; margin: 20px 0;'>");
+        sb.append("<p><strong>Restaurante:</strong> ").append(booking.getRestaurant().getName()).append("</p>");
+        sb.append("<p><strong>Fecha:</strong> ").append(booking.getBookingDate().format(DATE_FORMATTER)).append("</p>");
+        sb.append("<p><strong>Hora:</strong> ").append(booking.getBookingTime().format(TIME_FORMATTER)).append("</p>");
+        sb.append("<p><strong>Personas:</strong> ").append(booking.getNumPeople()).append("</p>");
+        sb.append("<p><strong>Direccion:</strong> ").append(address).append("</p>");
+        sb.append("</div>");
+        sb.append("<div style='text-align: center; margin-top: 20px;'>");
+        sb.append("<a href='").append(actionUrl).append("' style='background: linear-gradient(135deg, #667eea 0%, #764ba2 100%); color: white; padding: 12px 30px; text-decoration: none; border-radius: 25px; display: inline-block;'>").append(actionText).append("</a>");
+        sb.append("</div></div>");
+        sb.append("<p style='text-align: center; color: #666; font-size: 12px; margin-top: 20px;'>2025 BiteBooking. Todos los derechos reservados.</p>");
+        sb.append("</body></html>");
+        return sb.toString();
+    }
+
+    static String restaurantNotification(Booking booking, String frontendUrl) {
+        String customerName = booking.getUser().getFirstName() + " " +
+            (booking.getUser().getLastName() != null ? booking.getUser().getLastName() : "");
+        String phoneHtml = booking.getContactPhone() != null ?
+            "<p><strong>Telefono:</strong> " + booking.getContactPhone() + "</p>" : "";
+        String obsHtml = booking.getObservations() != null ?
+            "<p><strong>Observaciones:</strong> " + booking.getObservations() + "</p>" : "";
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("<!DOCTYPE html><html><head><meta charset='UTF-8'></head>");
+        sb.append("<body style='font-family: Arial, sans-serif; max-width: 600px; margin: 0 auto; padding: 20px;'>");
+        sb.append("<div style='background: linear-gradient(135deg, #11998e 0%, #38ef7d 100%); color: white; padding: 20px; border-radius: 10px 10px 0 0; text-align: center;'>");
+        sb.append("<h1>Nueva Reserva</h1></div>");
+        sb.append("<div style='background: #f8f9fa; padding: 20px; border-radius: 0 0 10px 10px;'>");
+        sb.append("<h3>Cliente</h3>");
+        sb.append("<p><strong>Nombre:</strong> ").append(customerName).append("</p>");
+        sb.append("<p><strong>Email:</strong> ").append(booking.getUser().getEmail()).append("</p>");
+        sb.append(phoneHtml);
+        sb.append("<h3>Detalles</h3>");
+        sb.append("<p><strong>Fecha:</strong> ").append(booking.getBookingDate().format(DATE_FORMATTER)).append("</p>");
+        sb.append("<p><strong>Hora:</strong> ").append(booking.getBookingTime().format(TIME_FORMATTER)).append("</p>");
+        sb.append("<p><strong>Personas:</strong> ").append(booking.getNumPeople()).append("</p>");
+        sb.append(obsHtml);
+        sb.append("<div style='text-align: center; margin-top: 20px;'>");
+        sb.append("<a href='").append(frontendUrl).append("/dashboard/reservas' style='background: #11998e; color: white; padding: 12px 30px; text-decoration: none; border-radius: 25px; display: inline-block;'>Gestionar reservas</a>");
+        sb.append("</div></div></body></html>");
+        return sb.toString();
+    }
+}
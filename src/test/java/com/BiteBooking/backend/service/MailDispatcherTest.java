@@ -0,0 +1,127 @@
+package com.BiteBooking.backend.service;
+
+import com.BiteBooking.backend.service.MailDispatcher.OutboundMail;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MailDispatcherTest {
+
+    private final JavaMailSender mailSender = mock(JavaMailSender.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch firstSendStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseFirstSend = new CountDownLatch(1);
+    private MailDispatcher dispatcher;
+
+    /**
+     * Un worker cuyo primer envío queda bloqueado hasta releaseFirstSend,
+     * para que los siguientes mensajes se acumulen en la cola
+     */
+    private MailDispatcher blockedDispatcher(int queueCapacity) {
+        when(mailSender.createMimeMessage()).thenAnswer(invocation -> new MimeMessage((Session) null));
+        doAnswer(invocation -> {
+            if (firstSendStarted.getCount() > 0) {
+                firstSendStarted.countDown();
+                releaseFirstSend.await(5, TimeUnit.SECONDS);
+            }
+            return null;
+        }).when(mailSender).send(any(MimeMessage[].class));
+        dispatcher = new MailDispatcher(mailSender, meterRegistry, "noreply@bitebooking.com", 1, queueCapacity, 50);
+        return dispatcher;
+    }
+
+    private static OutboundMail mail(int i) {
+        return new OutboundMail("cliente" + i + "@example.com", "Reserva", "<p>" + i + "</p>", "mail " + i);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        releaseFirstSend.countDown();
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+    }
+
+    @Test
+    void sendsQueuedMessagesInOneBatch() throws Exception {
+        MailDispatcher dispatcher = blockedDispatcher(100);
+        CompletableFuture<Void> first = dispatcher.enqueue(mail(0));
+        assertTrue(firstSendStarted.await(5, TimeUnit.SECONDS));
+
+        List<CompletableFuture<Void>> queued = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            queued.add(dispatcher.enqueue(mail(i)));
+        }
+        releaseFirstSend.countDown();
+
+        first.get(5, TimeUnit.SECONDS);
+        CompletableFuture.allOf(queued.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+        ArgumentCaptor<MimeMessage[]> batches = ArgumentCaptor.forClass(MimeMessage[].class);
+        verify(mailSender, times(2)).send(batches.capture());
+        assertEquals(10, batches.getAllValues().get(1).length);
+        assertEquals(11.0, meterRegistry.counter("mail.sent").count());
+    }
+
+    @Test
+    void rejectsWithoutBlockingWhenQueueIsFull() throws Exception {
+        MailDispatcher dispatcher = blockedDispatcher(1);
+        dispatcher.enqueue(mail(0));
+        assertTrue(firstSendStarted.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Void> queued = dispatcher.enqueue(mail(1));
+
+        long start = System.nanoTime();
+        CompletableFuture<Void> rejected = dispatcher.enqueue(mail(2));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsedMs < 500, "enqueue esperó " + elapsedMs + " ms");
+        assertTrue(rejected.isCompletedExceptionally());
+        ExecutionException error = assertThrows(ExecutionException.class, rejected::get);
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+        assertEquals(1.0, meterRegistry.counter("mail.rejected").count());
+
+        releaseFirstSend.countDown();
+        queued.get(5, TimeUnit.SECONDS);
+        verify(mailSender, timeout(5000).times(2)).send(any(MimeMessage[].class));
+    }
+
+    @Test
+    void failedSendCompletesWithErrorWithoutRetrying() throws Exception {
+        when(mailSender.createMimeMessage()).thenAnswer(invocation -> new MimeMessage((Session) null));
+        doThrow(new MailSendException("SMTP caído")).when(mailSender).send(any(MimeMessage[].class));
+        dispatcher = new MailDispatcher(mailSender, meterRegistry, "noreply@bitebooking.com", 1, 10, 50);
+
+        CompletableFuture<Void> result = dispatcher.enqueue(mail(0));
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(MailSendException.class, error.getCause());
+        verify(mailSender, after(500).times(1)).send(any(MimeMessage[].class));
+        assertEquals(1.0, meterRegistry.counter("mail.failed").count());
+    }
+}
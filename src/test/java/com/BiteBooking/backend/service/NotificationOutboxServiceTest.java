@@ -0,0 +1,116 @@
+package com.BiteBooking.backend.service;
+
+import com.BiteBooking.backend.model.Booking;
+import com.BiteBooking.backend.model.BookingStatus;
+import com.BiteBooking.backend.model.NotificationOutbox;
+import com.BiteBooking.backend.model.NotificationType;
+import com.BiteBooking.backend.model.OutboxStatus;
+import com.BiteBooking.backend.repository.BookingRepository;
+import com.BiteBooking.backend.repository.NotificationOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NotificationOutboxServiceTest {
+
+    private final NotificationOutboxRepository outboxRepository = mock(NotificationOutboxRepository.class);
+    private final BookingRepository bookingRepository = mock(BookingRepository.class);
+    private final EmailService emailService = mock(EmailService.class);
+    private final MailDispatcher mailDispatcher = mock(MailDispatcher.class);
+    private NotificationOutboxService service;
+
+    @BeforeEach
+    void setUp() {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        service = new NotificationOutboxService(outboxRepository, bookingRepository, emailService,
+                mailDispatcher, new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(service, "emailEnabled", true);
+        ReflectionTestUtils.setField(service, "batchSize", 10);
+        ReflectionTestUtils.setField(service, "leaseSeconds", 3L);
+        ReflectionTestUtils.setField(service, "maxAttempts", 8);
+        ReflectionTestUtils.setField(service, "retryBackoffSeconds", 30L);
+        when(mailDispatcher.getRemainingCapacity()).thenReturn(100);
+    }
+
+    private Booking claim(NotificationType type) {
+        NotificationOutbox notification = new NotificationOutbox();
+        notification.setId(1L);
+        notification.setBookingId(7L);
+        notification.setType(type);
+        notification.setStatus(OutboxStatus.PENDING);
+        notification.setAttempts(0);
+        Booking booking = new Booking();
+        booking.setId(7L);
+        booking.setStatus(BookingStatus.REJECTED);
+        when(outboxRepository.lockReady(any(), anyInt())).thenReturn(List.of(notification), List.of());
+        when(bookingRepository.findAllById(any())).thenReturn(List.of(booking));
+        return booking;
+    }
+
+    @Test
+    void rejectedBookingGetsRejectionEmail() {
+        Booking booking = claim(NotificationType.BOOKING_REJECTED);
+        when(emailService.sendRejectionNotification(booking)).thenReturn(CompletableFuture.completedFuture(null));
+
+        service.dispatch();
+
+        verify(emailService).sendRejectionNotification(booking);
+        verify(emailService, never()).sendCancellationNotification(any());
+        verify(outboxRepository).markSent(eq(1L), any());
+    }
+
+    @Test
+    void renewsLeaseUntilDispatcherConfirms() {
+        Booking booking = claim(NotificationType.BOOKING_CONFIRMED);
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        when(emailService.sendBookingConfirmation(booking)).thenReturn(result);
+        ScheduledExecutorService smtp = Executors.newSingleThreadScheduledExecutor();
+        try {
+            smtp.schedule(() -> result.complete(null), 2500, TimeUnit.MILLISECONDS);
+
+            service.dispatch();
+        } finally {
+            smtp.shutdownNow();
+        }
+
+        // Plazo de 3 s: se renueva cada segundo mientras el mensaje sigue en la cola
+        verify(outboxRepository, atLeastOnce()).extendLease(eq(List.of(1L)), any(LocalDateTime.class));
+        verify(outboxRepository).markSent(eq(1L), any());
+    }
+
+    @Test
+    void failedSendIsRetriedOnlyByTheOutbox() {
+        Booking booking = claim(NotificationType.BOOKING_CONFIRMED);
+        when(emailService.sendBookingConfirmation(booking))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("SMTP caído")));
+
+        service.dispatch();
+
+        verify(emailService).sendBookingConfirmation(booking);
+        verify(outboxRepository).markRetry(eq(1L), any(LocalDateTime.class), anyString());
+        verify(outboxRepository, never()).markSent(any(), any());
+        verify(outboxRepository, never()).extendLease(anyCollection(), any());
+    }
+}
@@ -0,0 +1,139 @@
+package com.BiteBooking.backend.service;
+
+import com.BiteBooking.backend.model.Restaurant;
+import com.BiteBooking.backend.model.RestaurantType;
+import com.BiteBooking.backend.repository.RestaurantRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RestaurantSearchIndexTest {
+
+    private final RestaurantRepository restaurantRepository = mock(RestaurantRepository.class);
+    private final RestaurantSearchIndex index = new RestaurantSearchIndex(restaurantRepository);
+
+    private static Restaurant restaurant(long id, String name, String city, RestaurantType type,
+                                         String description, Double averageRating, int ratingCount) {
+        Restaurant restaurant = new Restaurant();
+        restaurant.setId(id);
+        restaurant.setName(name);
+        restaurant.setCity(city);
+        restaurant.setRestaurantType(type);
+        restaurant.setDescription(description);
+        restaurant.setAverageRating(averageRating);
+        restaurant.setRatingCount(ratingCount);
+        return restaurant;
+    }
+
+    @BeforeEach
+    void setUp() {
+        when(restaurantRepository.findAll()).thenReturn(List.of(
+                restaurant(1, "Sushiya Tokio", "Madrid", RestaurantType.JAPANESE_FOOD, "Barra de sushi", 4.5, 20),
+                restaurant(2, "La Taberna de España", "Sevilla", RestaurantType.SPAIN_FOOD, "Tapas y sushi de fusión", 4.8, 5),
+                restaurant(3, "Café Ñoño", "Madrid", RestaurantType.COFFEE_STORE, "Desayunos", null, 0),
+                restaurant(4, "Sushi Bar", "Barcelona", RestaurantType.JAPANESE_FOOD, null, 3.9, 12)));
+        index.rebuild();
+    }
+
+    @Test
+    void tokenizeFoldsAccentsAndDropsStopwordsAndPunctuation() {
+        assertEquals(List.of("cafe", "nono"), RestaurantSearchIndex.tokenize("Café Ñoño"));
+        assertEquals(List.of("taberna", "espana"), RestaurantSearchIndex.tokenize("La Taberna de España"));
+        assertEquals(List.of("tex", "mex"), RestaurantSearchIndex.tokenize("TEX-MEX food"));
+        assertEquals(List.of(), RestaurantSearchIndex.tokenize("de la y - food"));
+        assertEquals(List.of(), RestaurantSearchIndex.tokenize(null));
+    }
+
+    @Test
+    void matchesWithoutAccentsByWordPrefixOrFragment() {
+        assertEquals(List.of(2L), index.search("espana", null, null, null, 0, 10).ids());
+        assertEquals(List.of(3L), index.search("CAFE nono", null, null, null, 0, 10).ids());
+        assertEquals(List.of(2L), index.search("tab", null, null, null, 0, 10).ids());
+        assertEquals(List.of(1L), index.search("shiy", null, null, null, 0, 10).ids());
+        assertEquals(List.of(3L), index.search("ca", null, null, null, 0, 10).ids());
+    }
+
+    @Test
+    void everyTermMustMatch() {
+        assertEquals(List.of(1L), index.search("sushi tokio", null, null, null, 0, 10).ids());
+        assertEquals(0, index.search("sushi paella", null, null, null, 0, 10).total());
+    }
+
+    @Test
+    void stopwordOrPunctuationOnlyQueryMatchesNothing() {
+        for (String query : List.of("de", "la", "y", "food", "-", "de la")) {
+            RestaurantSearchIndex.SearchResult result = index.search(query, null, null, null, 0, 10);
+            assertEquals(0, result.total(), query);
+            assertTrue(result.ids().isEmpty(), query);
+        }
+        // Sin texto se listan todos (por valoración)
+        assertEquals(List.of(2L, 1L, 4L, 3L), index.search("  ", null, null, null, 0, 10).ids());
+    }
+
+    @Test
+    void ranksExactNameOverPrefixOverDescription() {
+        // 4: "sushi" exacto en el nombre; 1: prefijo en el nombre ("sushiya"); 2: solo en la descripción
+        assertEquals(List.of(4L, 1L, 2L), index.search("sushi", null, null, null, 0, 10).ids());
+    }
+
+    @Test
+    void appliesTypeCityAndRatingFilters() {
+        assertEquals(List.of(1L, 4L), index.search(null, RestaurantType.JAPANESE_FOOD, null, null, 0, 10).ids());
+        assertEquals(List.of(1L, 3L), index.search(null, null, "madrid", null, 0, 10).ids());
+        assertEquals(List.of(1L), index.search("sushi", null, "Madrid", null, 0, 10).ids());
+        assertEquals(List.of(2L, 1L), index.search(null, null, null, 4.0, 0, 10).ids());
+    }
+
+    @Test
+    void pagesKeepOrderAndTotal() {
+        List<Long> all = index.search(null, null, null, null, 0, 10).ids();
+        List<Long> paged = new ArrayList<>();
+        for (int page = 0; page < 3; page++) {
+            RestaurantSearchIndex.SearchResult result = index.search(null, null, null, null, page, 3);
+            assertEquals(4, result.total());
+            paged.addAll(result.ids());
+        }
+        assertEquals(all, paged);
+        assertEquals(List.of(3L), index.search(null, null, null, null, 1, 3).ids());
+        assertTrue(index.search(null, null, null, null, 5, 3).ids().isEmpty());
+    }
+
+    @Test
+    void rebuildKeepsChangesAppliedWhileReadingTheDatabase() {
+        Restaurant added = restaurant(5, "Ramen Ya", "Madrid", RestaurantType.JAPANESE_FOOD, null, null, 0);
+        when(restaurantRepository.findAll()).thenAnswer(invocation -> {
+            // Alta y borrado confirmados mientras se lee la foto (que ya no los refleja)
+            index.upsert(added);
+            index.remove(1L);
+            return List.of(
+                    restaurant(1, "Sushiya Tokio", "Madrid", RestaurantType.JAPANESE_FOOD, "Barra de sushi", 4.5, 20),
+                    restaurant(4, "Sushi Bar", "Barcelona", RestaurantType.JAPANESE_FOOD, null, 3.9, 12));
+        });
+        when(restaurantRepository.findAllById(Set.of(1L, 5L))).thenReturn(List.of(added));
+
+        index.rebuild();
+
+        assertEquals(List.of(5L), index.search("ramen", null, null, null, 0, 10).ids());
+        assertEquals(List.of(4L), index.search("sushi", null, null, null, 0, 10).ids());
+    }
+
+    @Test
+    void upsertAndRemoveUpdateTheIndex() {
+        index.upsert(restaurant(3, "Café Central", "Madrid", RestaurantType.COFFEE_STORE, null, null, 0));
+        assertEquals(0, index.search("nono", null, null, null, 0, 10).total());
+        assertEquals(List.of(3L), index.search("central", null, null, null, 0, 10).ids());
+
+        index.remove(3L);
+        assertFalse(index.search("cafe", null, null, null, 0, 10).ids().contains(3L));
+        assertEquals(List.of(1L), index.search(null, null, "madrid", null, 0, 10).ids());
+    }
+}